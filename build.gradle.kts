@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("com.github.bjornvester.xjc") version "1.9.0"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "nl.bliksemlabs"
@@ -27,6 +28,28 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// The sample messages used by InfoPlusParser.warmUp are the test fixtures, copied into the jar
+tasks.processResources {
+    from("src/test/resources") {
+        include("test-*-message.xml")
+        rename("test-(.*)-message\\.xml", "\$1.xml")
+        into("nl/bliksemlabs/infoplus/samples")
+    }
+}
+
+// Benchmarks live in src/jmh and reuse the message fixtures from the tests
+sourceSets {
+    named("jmh") {
+        resources.srcDir("src/test/resources")
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 xjc {
     xsdDir.set(layout.projectDirectory.dir("src/main/resources/infoplus"))
     bindingFiles.setFrom(layout.projectDirectory.dir("src/main/resources").asFileTree.matching { include("**/*.xjb") })
@@ -41,6 +64,10 @@ xjc {
 }
 
 java {
+    // Virtual threads, closeable executors and pattern matching switch need Java 21
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
     withSourcesJar()
     withJavadocJar()
 }
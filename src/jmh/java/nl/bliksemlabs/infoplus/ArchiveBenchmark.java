@@ -0,0 +1,107 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replay of a recorded feed from a memory-mapped {@link InfoPlusArchive}, against reading
+ * the same length-prefixed messages one by one from a FileInputStream. The index and
+ * scan benchmarks show the cost of the archive itself without parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveBenchmark {
+
+    @Param({"300"})
+    public int messages;
+
+    private Path directory;
+    private Path archivePath;
+    private Path streamPath;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("infoplus-archive");
+        archivePath = directory.resolve("feed.ipa");
+        streamPath = directory.resolve("feed.bin");
+        byte[][] payloads = {Fixtures.bytes(Fixtures.DVS), Fixtures.bytes(Fixtures.DAS), Fixtures.bytes(Fixtures.RIT)};
+        Instant time = Instant.parse("2024-05-01T06:00:00Z");
+        try (InfoPlusArchiveWriter archive = InfoPlusArchiveWriter.open(archivePath);
+                DataOutputStream stream = new DataOutputStream(Files.newOutputStream(streamPath))) {
+            for (int i = 0; i < messages; i++) {
+                byte[] payload = payloads[i % payloads.length];
+                archive.append(time.plusMillis(i), payload, 0, payload.length);
+                stream.writeInt(payload.length);
+                stream.write(payload);
+            }
+        }
+        parser = InfoPlusParser.builder().build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(archivePath);
+        Files.deleteIfExists(streamPath);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int openArchive() throws IOException {
+        try (InfoPlusArchive archive = InfoPlusArchive.open(archivePath)) {
+            return archive.size();
+        }
+    }
+
+    @Benchmark
+    public long scanArchive() throws IOException {
+        long bytes = 0;
+        try (InfoPlusArchive archive = InfoPlusArchive.open(archivePath)) {
+            for (ArchiveRecord record : archive.records()) {
+                bytes += record.payload().get(record.payload().limit() - 1);
+            }
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public void replayArchive(Blackhole blackhole) throws IOException, InfoPlusMessage.InfoPlusParseException {
+        try (InfoPlusArchive archive = InfoPlusArchive.open(archivePath)) {
+            for (ArchiveRecord record : archive.records()) {
+                blackhole.consume(record.parse(parser));
+            }
+        }
+    }
+
+    @Benchmark
+    public void replayStream(Blackhole blackhole) throws IOException, InfoPlusMessage.InfoPlusParseException {
+        try (InputStream in = Files.newInputStream(streamPath);
+                DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] payload = data.readNBytes(length);
+                blackhole.consume(parser.parse(payload, 0, payload.length));
+            }
+        }
+    }
+}
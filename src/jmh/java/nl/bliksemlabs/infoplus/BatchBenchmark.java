@@ -0,0 +1,62 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing a batch of DVS messages with {@link BatchParser} as the
+ * parallelism of the ForkJoinPool grows, against a sequential loop. Scaling flattens out
+ * once the parallelism exceeds the number of available cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private List<byte[]> payloads;
+    private InfoPlusParser parser;
+    private ForkJoinPool pool;
+    private BatchParser batch;
+
+    @Setup
+    public void setup() {
+        payloads = Collections.nCopies(BATCH_SIZE, Fixtures.bytes(Fixtures.DVS));
+        parser = InfoPlusParser.builder().poolSize(parallelism).build();
+        pool = new ForkJoinPool(parallelism);
+        batch = BatchParser.builder(parser).executor(pool).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<BatchResult<ReisInformatieProductDVSType>> parallel() {
+        return batch.parseDVS(payloads);
+    }
+
+    @Benchmark
+    public int sequential() throws InfoPlusMessage.InfoPlusParseException {
+        int parsed = 0;
+        for (byte[] payload : payloads) {
+            if (parser.parseDVS(payload, 0, payload.length) != null) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,92 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the {@link BinaryCodec} against marshalling and parsing the
+ * same message as XML. The encoded size relative to the XML is asserted in BinaryCodecTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryCodecBenchmark {
+
+    @Param({"RIT", "DVS", "DAS"})
+    public MessageType type;
+
+    private InfoPlusParser parser;
+    private BinaryCodec<Object> codec;
+    private Marshaller marshaller;
+    private Object product;
+    private Object message;
+    private byte[] xml;
+    private byte[] binary;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        parser = InfoPlusParser.builder().build();
+        marshaller = type.context().createMarshaller();
+        switch (type) {
+            case RIT -> {
+                xml = Fixtures.bytes(Fixtures.RIT);
+                var rit = parser.parseRIT(xml, 0, xml.length);
+                var wrapper = new ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn();
+                wrapper.setReisInformatieProductRitInfo(rit);
+                product = rit;
+                message = wrapper;
+                codec = (BinaryCodec<Object>) (BinaryCodec<?>) BinaryCodec.rit();
+            }
+            case DVS -> {
+                xml = Fixtures.bytes(Fixtures.DVS);
+                var dvs = parser.parseDVS(xml, 0, xml.length);
+                var wrapper = new ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn();
+                wrapper.setReisInformatieProductDVS(dvs);
+                product = dvs;
+                message = wrapper;
+                codec = (BinaryCodec<Object>) (BinaryCodec<?>) BinaryCodec.dvs();
+            }
+            case DAS -> {
+                xml = Fixtures.bytes(Fixtures.DAS);
+                var das = parser.parseDAS(xml, 0, xml.length);
+                var wrapper = new ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn();
+                wrapper.setReisInformatieProductDAS(das);
+                product = das;
+                message = wrapper;
+                codec = (BinaryCodec<Object>) (BinaryCodec<?>) BinaryCodec.das();
+            }
+        }
+        binary = codec.encode(product);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encode(product);
+    }
+
+    @Benchmark
+    public Object decodeBinary() throws InfoPlusMessage.InfoPlusParseException {
+        return codec.decode(binary);
+    }
+
+    @Benchmark
+    public byte[] marshalXml() throws JAXBException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length);
+        marshaller.marshal(message, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object parseXml() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parse(type, new ByteArrayInputStream(xml));
+    }
+}
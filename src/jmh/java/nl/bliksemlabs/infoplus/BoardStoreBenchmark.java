@@ -0,0 +1,62 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying DVS messages to a {@link BoardStore} and of taking a station board
+ * snapshot, with 20 stations of 100 services each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoardStoreBenchmark {
+
+    private static final int STATIONS = 20;
+    private static final int SERVICES = 100;
+
+    private final List<ReisInformatieProductDVSType> products = new ArrayList<>();
+    private BoardStore<ReisInformatieProductDVSType> store;
+    private int next;
+    private long productId;
+
+    @Setup
+    public void setup() throws InfoPlusMessage.InfoPlusParseException {
+        String xml = Fixtures.string(Fixtures.DVS);
+        for (int station = 0; station < STATIONS; station++) {
+            for (int service = 0; service < SERVICES; service++) {
+                products.add(InfoPlusMessage.parseDVS(xml
+                    .replace("<ns2:RitId>6789<", "<ns2:RitId>" + (10_000 + service) + "<")
+                    .replaceFirst("<ns2:StationCode>UTLN<", "<ns2:StationCode>S" + station + "<")));
+            }
+        }
+        store = BoardStore.departures(Duration.ofMinutes(5));
+        products.forEach(store::apply);
+    }
+
+    @Benchmark
+    public BoardStore.ApplyResult applyNewVersion() {
+        ReisInformatieProductDVSType product = products.get(next++ % products.size());
+        product.getRIPAdministratie().setReisInformatieProductID(BigInteger.valueOf(++productId));
+        return store.apply(product);
+    }
+
+    @Benchmark
+    public BoardStore.ApplyResult applyDuplicate() {
+        return store.apply(products.get(next++ % products.size()));
+    }
+
+    @Benchmark
+    public List<BoardStore.Entry<ReisInformatieProductDVSType>> board() {
+        return store.board("S" + (next++ % STATIONS));
+    }
+}
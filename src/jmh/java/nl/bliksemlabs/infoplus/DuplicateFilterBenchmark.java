@@ -0,0 +1,64 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a DVS message passing through a {@link DuplicateFilter} when it is a resend
+ * that is skipped and when it changed and is parsed, against parsing it directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DuplicateFilterBenchmark {
+
+    private InfoPlusParser parser;
+    private DuplicateFilter filter;
+    private byte[] resent;
+    private byte[][] changed;
+    private int next;
+
+    @Setup
+    public void setup() throws InfoPlusMessage.InfoPlusParseException {
+        String xml = Fixtures.string(Fixtures.DVS);
+        resent = xml.replace("TimeStamp=\"2025-12-21T22:59:59.922Z\"", "TimeStamp=\"2025-12-21T23:00:30.100Z\"")
+            .getBytes(StandardCharsets.UTF_8);
+        changed = new byte[][] {
+            xml.replace(">PT23S<", ">PT1M<").getBytes(StandardCharsets.UTF_8),
+            xml.replace(">PT23S<", ">PT2M<").getBytes(StandardCharsets.UTF_8)
+        };
+        parser = InfoPlusParser.builder().build();
+        filter = DuplicateFilter.builder(parser).build();
+        byte[] first = xml.getBytes(StandardCharsets.UTF_8);
+        filter.parseDVS(first, 0, first.length);
+    }
+
+    @Benchmark
+    public MessageFingerprint fingerprint() {
+        return MessageFingerprint.of(resent, 0, resent.length);
+    }
+
+    @Benchmark
+    public Optional<ReisInformatieProductDVSType> filterResent() throws InfoPlusMessage.InfoPlusParseException {
+        return filter.parseDVS(resent, 0, resent.length);
+    }
+
+    @Benchmark
+    public Optional<ReisInformatieProductDVSType> filterChanged() throws InfoPlusMessage.InfoPlusParseException {
+        // Alternate between two versions of the same departure, so every message is parsed
+        byte[] bytes = changed[next++ & 1];
+        return filter.parseDVS(bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDirect() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseDVS(resent, 0, resent.length);
+    }
+}
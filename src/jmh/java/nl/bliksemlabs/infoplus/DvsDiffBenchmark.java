@@ -0,0 +1,62 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the changes between two versions of a departure, on its own and
+ * together with reading the new version from the feed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DvsDiffBenchmark {
+
+    private byte[] bytes;
+    private DvsDeparture departure;
+    private DvsDeparture resent;
+    private DvsDeparture changed;
+
+    @Setup
+    public void setup() throws InfoPlusMessage.InfoPlusParseException {
+        String xml = Fixtures.string(Fixtures.DVS);
+        bytes = xml.getBytes(StandardCharsets.UTF_8);
+        departure = InfoPlusMessage.decodeDVS(new ByteArrayInputStream(bytes));
+        resent = InfoPlusMessage.decodeDVS(new ByteArrayInputStream(bytes));
+        changed = InfoPlusMessage.decodeDVS(new ByteArrayInputStream(xml
+            .replace("<ns2:ExacteVertrekVertraging>PT23S</ns2:ExacteVertrekVertraging>",
+                "<ns2:ExacteVertrekVertraging>PT5M</ns2:ExacteVertrekVertraging>")
+            .replaceFirst("(<ns2:TreinVertrekSpoor InfoStatus=\"Actueel\">\\s*)<ns2:SpoorNummer>2</ns2:SpoorNummer>",
+                "$1<ns2:SpoorNummer>5</ns2:SpoorNummer>")
+            .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public int diffUnchanged(Blackhole blackhole) {
+        return DvsDiff.diff(departure, resent, blackhole::consume);
+    }
+
+    @Benchmark
+    public int diffChanged(Blackhole blackhole) {
+        return DvsDiff.diff(departure, changed, blackhole::consume);
+    }
+
+    @Benchmark
+    public int decodeAndDiff(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        DvsDeparture current = InfoPlusMessage.decodeDVS(new ByteArrayInputStream(bytes));
+        return DvsDiff.diff(changed, current, blackhole::consume);
+    }
+
+    @Benchmark
+    public int parseAndDiff(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        DvsDeparture current = DvsDeparture.from(InfoPlusMessage.parseDVS(new ByteArrayInputStream(bytes)));
+        return DvsDiff.diff(changed, current, blackhole::consume);
+    }
+}
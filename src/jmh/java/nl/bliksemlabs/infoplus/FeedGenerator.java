@@ -0,0 +1,83 @@
+package nl.bliksemlabs.infoplus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * In-process InfoPlus feed for load tests, built from the bundled test messages.
+ *
+ * Each message is a copy of a fixture with the RitId (TreinNummer for RIT) of one of a
+ * fixed set of services and a ReisInformatieTijdstip that increases with every update of
+ * that service, like the resends of the real feed. Of the messages 85% are DVS, 10% DAS and
+ * 5% RIT, about randomly chosen services. The messages are generated up front, so
+ * publishing them costs no more than a real socket reader would.
+ */
+final class FeedGenerator {
+
+    private final List<byte[]> messages;
+
+    /**
+     * @param messages Number of messages in the feed
+     * @param services Number of distinct services the messages are about
+     * @param seed Seed of the random choice of types and services
+     */
+    FeedGenerator(int messages, int services, long seed) {
+        Template rit = new Template(Fixtures.string(Fixtures.RIT), "TreinNummer>2992<", "TreinNummer>%d<",
+            "T22:59:00.000Z</ReisInformatieTijdstip>", "T%s.000Z</ReisInformatieTijdstip>", LocalTime.of(22, 59));
+        Template dvs = new Template(Fixtures.string(Fixtures.DVS), "RitId>6789<", "RitId>%d<",
+            "T23:10:00.000Z</ns2:ReisInformatieTijdstip>", "T%s.000Z</ns2:ReisInformatieTijdstip>", LocalTime.of(23, 10));
+        Template das = new Template(Fixtures.string(Fixtures.DAS), "RitId>2889<", "RitId>%d<",
+            "T23:08:00Z</ns2:ReisInformatieTijdstip>", "T%sZ</ns2:ReisInformatieTijdstip>", LocalTime.of(23, 8));
+
+        Random random = new Random(seed);
+        int[] versions = new int[services * 3];
+        this.messages = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            int roll = random.nextInt(100);
+            int type = roll < 85 ? 1 : roll < 95 ? 2 : 0;
+            int service = random.nextInt(services);
+            int version = versions[type * services + service]++;
+            Template template = type == 0 ? rit : type == 1 ? dvs : das;
+            this.messages.add(template.message(10_000 + service, version));
+        }
+    }
+
+    /**
+     * @return The messages of the feed, in order
+     */
+    List<byte[]> messages() {
+        return messages;
+    }
+
+    /**
+     * Publish all messages to the subscriber as fast as it requests them, then complete.
+     * The calling thread waits while the buffer of the subscriber is full.
+     * @param subscriber Subscriber of the feed, such as an {@link InfoPlusPipeline}
+     */
+    void publish(Flow.Subscriber<byte[]> subscriber) {
+        try (SubmissionPublisher<byte[]> feed = new SubmissionPublisher<>()) {
+            feed.subscribe(subscriber);
+            for (byte[] message : messages) {
+                feed.submit(message);
+            }
+        }
+    }
+
+    /**
+     * A fixture with the identifying value and the version time marked for replacement.
+     */
+    private record Template(String xml, String id, String idFormat, String time, String timeFormat, LocalTime start) {
+
+        byte[] message(int service, int version) {
+            return xml
+                .replace(id, idFormat.formatted(service))
+                .replace(time, timeFormat.formatted(start.plusSeconds(version)))
+                .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the bundled test messages and builds synthetic variants of them for the benchmarks.
+ */
+final class Fixtures {
+
+    static final String RIT = "/test-rit-message.xml";
+    static final String DVS = "/test-dvs-message.xml";
+    static final String DAS = "/test-das-message.xml";
+
+    private static final String STATION_START = "<LogischeRitDeelStation>";
+    private static final String STATION_END = "</LogischeRitDeelStation>";
+
+    private Fixtures() {
+    }
+
+    static byte[] bytes(String resource) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture not found: " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String string(String resource) {
+        return new String(bytes(resource), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Build a RIT message with the given number of LogischeRitDeelStation entries by
+     * repeating the stations of the bundled fixture.
+     * @param stations Number of stations in the resulting message
+     * @return RIT message XML
+     */
+    static String syntheticRit(int stations) {
+        String xml = string(RIT);
+        int first = xml.indexOf(STATION_START);
+        int last = xml.lastIndexOf(STATION_END) + STATION_END.length();
+
+        // Split the fixture into its individual station elements
+        String body = xml.substring(first, last);
+        String[] parts = body.split("(?<=" + STATION_END + ")");
+
+        StringBuilder sb = new StringBuilder(xml.length() * (stations / parts.length + 1));
+        sb.append(xml, 0, first);
+        for (int i = 0; i < stations; i++) {
+            sb.append(parts[i % parts.length]);
+        }
+        sb.append(xml, last, xml.length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package nl.bliksemlabs.infoplus;
+
+import ns.cdm.reisinformatie.data.rit._5.AankomstOfVertrekTijdType;
+import ns.cdm.reisinformatie.data.rit._5.InfoStatus;
+import ns.cdm.reisinformatie.data.rit._5.LogischeRitDeelType;
+import ns.cdm.reisinformatie.data.rit._5.LogischeRitType;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import ns.cdm.reisinformatie.data.rit._5.RitStationsType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the actual departure of a train at its last station through a
+ * {@link JourneyIndex}, versus walking the parsed RIT message, and the cost of indexing
+ * a message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JourneyIndexBenchmark {
+
+    private static final int TREIN_NUMMER = 2992;
+    private static final LocalDate TREIN_DATUM = LocalDate.of(2025, 12, 25);
+    private static final String STATION = "EHV";
+
+    private ReisInformatieProductRitInfoType ritInfo;
+    private JourneyIndex index;
+
+    @Setup
+    public void setup() throws InfoPlusMessage.InfoPlusParseException {
+        ritInfo = InfoPlusMessage.parseRIT(Fixtures.string(Fixtures.RIT));
+        index = new JourneyIndex();
+        index.apply(ritInfo);
+    }
+
+    @Benchmark
+    public long lookupIndex() {
+        return index.stop(TREIN_NUMMER, TREIN_DATUM, STATION).map(JourneyStop::actualDeparture).orElse(JourneyIndex.NO_TIME);
+    }
+
+    @Benchmark
+    public long lookupWalk() {
+        if (ritInfo.getRitInfo().getTreinDatum().equals(TREIN_DATUM)) {
+            for (LogischeRitType logischeRit : ritInfo.getRitInfo().getLogischeRit()) {
+                for (LogischeRitDeelType deel : logischeRit.getLogischeRitDeel()) {
+                    if (deel.getLogischeRitDeelNummer() != TREIN_NUMMER) {
+                        continue;
+                    }
+                    for (RitStationsType station : deel.getLogischeRitDeelStation()) {
+                        if (STATION.equals(station.getStation().getStationCode())) {
+                            for (AankomstOfVertrekTijdType tijd : station.getVertrekTijd()) {
+                                if (tijd.getInfoStatus() == InfoStatus.ACTUEEL) {
+                                    return tijd.getValue().toEpochSecond(ZoneOffset.UTC);
+                                }
+                            }
+                            return JourneyIndex.NO_TIME;
+                        }
+                    }
+                }
+            }
+        }
+        return JourneyIndex.NO_TIME;
+    }
+
+    @Benchmark
+    public JourneyIndex apply() {
+        JourneyIndex fresh = new JourneyIndex();
+        fresh.apply(ritInfo);
+        return fresh;
+    }
+}
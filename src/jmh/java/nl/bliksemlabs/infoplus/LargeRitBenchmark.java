@@ -0,0 +1,49 @@
+package nl.bliksemlabs.infoplus;
+
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of RIT messages as the number of LogischeRitDeelStation entries grows,
+ * as seen on long-distance and international trips.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LargeRitBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int stations;
+
+    private String xml;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        xml = Fixtures.syntheticRit(stations);
+        bytes = xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ReisInformatieProductRitInfoType parseString() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseRIT(xml);
+    }
+
+    @Benchmark
+    public ReisInformatieProductRitInfoType parseStream() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseRIT(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public void streamStations(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        InfoPlusMessage.streamRIT(new ByteArrayInputStream(bytes), (context, station) -> blackhole.consume(station));
+    }
+}
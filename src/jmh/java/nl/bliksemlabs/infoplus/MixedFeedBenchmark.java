@@ -0,0 +1,72 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a feed carrying all three message types: detecting the type from the root
+ * element versus trying the typed parse methods in turn until one succeeds, with the
+ * typed methods on an already known type as the lower bound.
+ *
+ * Each operation parses one RIT, four DVS and four DAS messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MixedFeedBenchmark {
+
+    private List<byte[]> feed;
+    private List<MessageType> types;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() {
+        byte[] rit = Fixtures.bytes(Fixtures.RIT);
+        byte[] dvs = Fixtures.bytes(Fixtures.DVS);
+        byte[] das = Fixtures.bytes(Fixtures.DAS);
+        feed = List.of(rit, dvs, das, dvs, das, dvs, das, dvs, das);
+        types = List.of(MessageType.RIT, MessageType.DVS, MessageType.DAS, MessageType.DVS, MessageType.DAS,
+            MessageType.DVS, MessageType.DAS, MessageType.DVS, MessageType.DAS);
+        parser = InfoPlusParser.builder().build();
+    }
+
+    @Benchmark
+    public void routed(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        for (byte[] message : feed) {
+            blackhole.consume(parser.parse(message, 0, message.length));
+        }
+    }
+
+    @Benchmark
+    public void trialParse(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        for (byte[] message : feed) {
+            try {
+                blackhole.consume(parser.parseDVS(message, 0, message.length));
+                continue;
+            } catch (InfoPlusMessage.InfoPlusParseException e) {
+                // Not a DVS message
+            }
+            try {
+                blackhole.consume(parser.parseDAS(message, 0, message.length));
+                continue;
+            } catch (InfoPlusMessage.InfoPlusParseException e) {
+                // Not a DAS message
+            }
+            blackhole.consume(parser.parseRIT(message, 0, message.length));
+        }
+    }
+
+    @Benchmark
+    public void knownType(Blackhole blackhole) throws InfoPlusMessage.InfoPlusParseException {
+        for (int i = 0; i < feed.size(); i++) {
+            blackhole.consume(parser.parse(types.get(i), new ByteArrayInputStream(feed.get(i))));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline throughput, latency and allocation of the InfoPlusMessage parse methods
+ * on the bundled test messages.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports gc.alloc.rate.norm as the
+ * bytes allocated per message, and the SampleTime mode reports the p99 latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private String ritXml;
+    private String dvsXml;
+    private String dasXml;
+    private byte[] ritBytes;
+    private byte[] dvsBytes;
+    private byte[] dasBytes;
+    private ByteBuffer dvsDirect;
+
+    @Setup
+    public void setup() {
+        ritBytes = Fixtures.bytes(Fixtures.RIT);
+        dvsBytes = Fixtures.bytes(Fixtures.DVS);
+        dasBytes = Fixtures.bytes(Fixtures.DAS);
+        ritXml = Fixtures.string(Fixtures.RIT);
+        dvsXml = Fixtures.string(Fixtures.DVS);
+        dasXml = Fixtures.string(Fixtures.DAS);
+        dvsDirect = ByteBuffer.allocateDirect(dvsBytes.length).put(dvsBytes).flip();
+    }
+
+    @Benchmark
+    public ReisInformatieProductRitInfoType parseRitString() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseRIT(ritXml);
+    }
+
+    @Benchmark
+    public ReisInformatieProductRitInfoType parseRitStream() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseRIT(new ByteArrayInputStream(ritBytes));
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDvsString() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDVS(dvsXml);
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDvsStream() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDVS(new ByteArrayInputStream(dvsBytes));
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDvsBytes() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDVS(dvsBytes, 0, dvsBytes.length);
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDvsDirectBuffer() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDVS(dvsDirect);
+    }
+
+    @Benchmark
+    public DvsDeparture decodeDvsStream() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.decodeDVS(new ByteArrayInputStream(dvsBytes));
+    }
+
+    @Benchmark
+    public DvsDeparture parseDvsToDeparture() throws InfoPlusMessage.InfoPlusParseException {
+        return DvsDeparture.from(InfoPlusMessage.parseDVS(new ByteArrayInputStream(dvsBytes)));
+    }
+
+    @Benchmark
+    public ReisInformatieProductDASType parseDasString() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDAS(dasXml);
+    }
+
+    @Benchmark
+    public ReisInformatieProductDASType parseDasStream() throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parseDAS(new ByteArrayInputStream(dasBytes));
+    }
+}
@@ -0,0 +1,57 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of a {@link ParseListener} on parsing a DVS message: no listener, the default
+ * {@link ParseMetrics} and the metrics with allocation measurement, plus the cost of
+ * recording a single histogram value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseMetricsBenchmark {
+
+    private byte[] xml;
+    private InfoPlusParser withoutListener;
+    private InfoPlusParser withMetrics;
+    private InfoPlusParser withAllocation;
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+    private long value;
+
+    @Setup
+    public void setup() {
+        xml = Fixtures.bytes(Fixtures.DVS);
+        withoutListener = InfoPlusParser.builder().build();
+        withMetrics = InfoPlusParser.builder().listener(ParseMetrics.builder().build()).build();
+        withAllocation = InfoPlusParser.builder()
+            .listener(ParseMetrics.builder().measureAllocation(true).build())
+            .build();
+    }
+
+    @Benchmark
+    public Object parseWithoutListener() throws InfoPlusMessage.InfoPlusParseException {
+        return withoutListener.parseDVS(xml, 0, xml.length);
+    }
+
+    @Benchmark
+    public Object parseWithMetrics() throws InfoPlusMessage.InfoPlusParseException {
+        return withMetrics.parseDVS(xml, 0, xml.length);
+    }
+
+    @Benchmark
+    public Object parseWithAllocation() throws InfoPlusMessage.InfoPlusParseException {
+        return withAllocation.parseDVS(xml, 0, xml.length);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void recordHistogram() {
+        histogram.record(value += 977);
+    }
+}
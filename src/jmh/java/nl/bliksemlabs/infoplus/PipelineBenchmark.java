@@ -0,0 +1,115 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link InfoPlusPipeline}: time to take a burst of messages from a
+ * {@link FeedGenerator} through detection, queueing, parsing and publishing to subscribers,
+ * per backpressure policy and number of DVS workers.
+ *
+ * The burst of 2000 messages about 200 services is larger than the queues, so the policies
+ * that drop or coalesce payloads finish sooner by parsing fewer messages. The counters
+ * report the messages parsed, dropped and coalesced during each iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    private static final int MESSAGES = 2000;
+    private static final int SERVICES = 200;
+    private static final int QUEUE_CAPACITY = 128;
+
+    @Param({"BLOCK", "DROP_OLDEST", "COALESCE_LATEST"})
+    public InfoPlusPipeline.Backpressure backpressure;
+
+    @Param({"1", "4"})
+    public int dvsWorkers;
+
+    private FeedGenerator feed;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() {
+        feed = new FeedGenerator(MESSAGES, SERVICES, 42);
+        parser = InfoPlusParser.builder().poolSize(dvsWorkers + 2).build();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long parsed;
+        public long dropped;
+        public long coalesced;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            parsed = 0;
+            dropped = 0;
+            coalesced = 0;
+        }
+    }
+
+    @Benchmark
+    public void burst(Counters counters) throws InterruptedException {
+        InfoPlusPipeline pipeline = InfoPlusPipeline.builder(parser)
+            .backpressure(backpressure)
+            .workers(MessageType.DVS, dvsWorkers)
+            .queueCapacity(MessageType.RIT, QUEUE_CAPACITY)
+            .queueCapacity(MessageType.DVS, QUEUE_CAPACITY)
+            .queueCapacity(MessageType.DAS, QUEUE_CAPACITY)
+            .build();
+        CountDownLatch completed = new CountDownLatch(3);
+        pipeline.rit().subscribe(new Draining<>(completed));
+        pipeline.dvs().subscribe(new Draining<>(completed));
+        pipeline.das().subscribe(new Draining<>(completed));
+        feed.publish(pipeline);
+        completed.await();
+
+        for (MessageType type : MessageType.values()) {
+            InfoPlusPipeline.Stats stats = pipeline.stats(type);
+            counters.parsed += stats.parsed();
+            counters.dropped += stats.dropped();
+            counters.coalesced += stats.coalesced();
+        }
+    }
+
+    /**
+     * Subscriber that requests everything and counts down when the pipeline completes.
+     */
+    private static final class Draining<T> implements Flow.Subscriber<T> {
+
+        private final CountDownLatch completed;
+
+        Draining(CountDownLatch completed) {
+            this.completed = completed;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation and time per message when presentation texts and Wijziging lists are skipped
+ * with a {@link Projection}, compared to parsing the full message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"ALL", "WITHOUT_PRESENTATIE", "WITHOUT_PRESENTATIE_WIJZIGING"})
+    public String projection;
+
+    private byte[] ritBytes;
+    private byte[] dvsBytes;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() {
+        ritBytes = Fixtures.bytes(Fixtures.RIT);
+        dvsBytes = Fixtures.bytes(Fixtures.DVS);
+        parser = InfoPlusParser.builder()
+            .projection(switch (projection) {
+                case "WITHOUT_PRESENTATIE" -> Projection.WITHOUT_PRESENTATIE;
+                case "WITHOUT_PRESENTATIE_WIJZIGING" -> Projection.WITHOUT_PRESENTATIE.and(Projection.WITHOUT_WIJZIGING);
+                default -> Projection.ALL;
+            })
+            .build();
+    }
+
+    @Benchmark
+    public Object parseRit() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseRIT(new ByteArrayInputStream(ritBytes));
+    }
+
+    @Benchmark
+    public Object parseDvs() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseDVS(new ByteArrayInputStream(dvsBytes));
+    }
+}
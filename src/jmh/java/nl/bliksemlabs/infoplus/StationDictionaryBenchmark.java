@@ -0,0 +1,50 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of canonicalizing every StationType through a {@link StationDictionary}.
+ * The retained heap saved by sharing the station names is not visible here; the
+ * allocation rate shows what the lookups add per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StationDictionaryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean dictionary;
+
+    private byte[] ritBytes;
+    private byte[] dvsBytes;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() {
+        ritBytes = Fixtures.bytes(Fixtures.RIT);
+        dvsBytes = Fixtures.bytes(Fixtures.DVS);
+        InfoPlusParser.Builder builder = InfoPlusParser.builder();
+        if (dictionary) {
+            builder.stationDictionary(StationDictionary.bounded(BoundedStationDictionary.DEFAULT_MAX_STATIONS));
+        }
+        parser = builder.build();
+    }
+
+    @Benchmark
+    public ReisInformatieProductRitInfoType parseRit() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseRIT(new ByteArrayInputStream(ritBytes));
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType parseDvs() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseDVS(new ByteArrayInputStream(dvsBytes));
+    }
+}
@@ -0,0 +1,41 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of creating an Unmarshaller for every DVS message versus reusing
+ * pooled Unmarshallers through {@link InfoPlusParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnmarshallerPoolBenchmark {
+
+    private byte[] dvsBytes;
+    private InfoPlusParser parser;
+
+    @Setup
+    public void setup() {
+        dvsBytes = Fixtures.bytes(Fixtures.DVS);
+        parser = InfoPlusParser.builder().build();
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType createPerMessage() throws JAXBException {
+        Object result = MessageType.DVS.context().createUnmarshaller().unmarshal(new ByteArrayInputStream(dvsBytes));
+        return ((ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn) result).getReisInformatieProductDVS();
+    }
+
+    @Benchmark
+    public ReisInformatieProductDVSType pooled() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseDVS(new ByteArrayInputStream(dvsBytes));
+    }
+}
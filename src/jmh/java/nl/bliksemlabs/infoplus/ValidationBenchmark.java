@@ -0,0 +1,60 @@
+package nl.bliksemlabs.infoplus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of lenient parsing and of validating against the compiled schema, per message
+ * type. The schemas are compiled in the setup, so only the per-message cost is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"RIT", "DVS", "DAS"})
+    public MessageType type;
+
+    private byte[] xml;
+    private InfoPlusParser parser;
+    private InfoPlusParser validating;
+
+    @Setup
+    public void setup() throws InfoPlusMessage.InfoPlusParseException {
+        xml = Fixtures.bytes(switch (type) {
+            case RIT -> Fixtures.RIT;
+            case DVS -> Fixtures.DVS;
+            case DAS -> Fixtures.DAS;
+        });
+        parser = InfoPlusParser.builder().build();
+        validating = InfoPlusParser.builder().validateSchema(true).build();
+        if (!validating.parseLenient(new ByteArrayInputStream(xml)).isClean()) {
+            throw new IllegalStateException(type + " fixture is not valid");
+        }
+    }
+
+    @Benchmark
+    public Object parse() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Object parseLenient() throws InfoPlusMessage.InfoPlusParseException {
+        return parser.parseLenient(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Object parseValidating() throws InfoPlusMessage.InfoPlusParseException {
+        return validating.parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Object parseValidatingLenient() throws InfoPlusMessage.InfoPlusParseException {
+        return validating.parseLenient(new ByteArrayInputStream(xml));
+    }
+}
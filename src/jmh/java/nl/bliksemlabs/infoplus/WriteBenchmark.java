@@ -0,0 +1,84 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing one message with the pooled {@link InfoPlusWriter}, into a stream, a
+ * direct ByteBuffer and a line-per-message sequence, against creating a Marshaller for
+ * every message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    @Param({"RIT", "DVS", "DAS"})
+    public MessageType type;
+
+    private InfoPlusWriter writer;
+    private InfoPlusSequenceWriter sequence;
+    private Object product;
+    private ByteArrayOutputStream out;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+        byte[] xml = Fixtures.bytes(switch (type) {
+            case RIT -> Fixtures.RIT;
+            case DVS -> Fixtures.DVS;
+            case DAS -> Fixtures.DAS;
+        });
+        product = parser.parse(type, new ByteArrayInputStream(xml));
+        writer = InfoPlusWriter.builder().build();
+        out = new ByteArrayOutputStream(2 * xml.length);
+        buffer = ByteBuffer.allocateDirect(2 * xml.length);
+        sequence = writer.sequence(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int writePooled() throws InfoPlusMessage.InfoPlusWriteException {
+        out.reset();
+        writer.write(type, product, out, false);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeByteBuffer() throws InfoPlusMessage.InfoPlusWriteException {
+        buffer.clear();
+        switch (type) {
+            case RIT -> writer.writeRIT((ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType) product, buffer);
+            case DVS -> writer.writeDVS((ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType) product, buffer);
+            case DAS -> writer.writeDAS((ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType) product, buffer);
+        }
+        return buffer.position();
+    }
+
+    @Benchmark
+    public void writeSequence() throws InfoPlusMessage.InfoPlusWriteException {
+        switch (type) {
+            case RIT -> sequence.writeRIT((ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType) product);
+            case DVS -> sequence.writeDVS((ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType) product);
+            case DAS -> sequence.writeDAS((ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType) product);
+        }
+    }
+
+    @Benchmark
+    public int writeNewMarshaller() throws JAXBException {
+        out.reset();
+        Marshaller marshaller = type.context().createMarshaller();
+        marshaller.marshal(InfoPlusWriter.wrap(type, product), out);
+        return out.size();
+    }
+}
@@ -0,0 +1,37 @@
+package nl.bliksemlabs.infoplus;
+
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * A message stored in an {@link InfoPlusArchive}.
+ *
+ * @param index Position of the message in the archive, starting at 0
+ * @param type Type of the message
+ * @param time Time at which the message was recorded
+ * @param ritId RitId of a DVS or DAS message, TreinNummer of a RIT message, or an empty
+ *              string if the message has none
+ * @param payload Read-only view of the (possibly compressed) message in the mapped file
+ */
+public record ArchiveRecord(int index, MessageType type, Instant time, String ritId, ByteBuffer payload) {
+
+    /**
+     * Parse the message with the unmarshaller of its type, directly from the mapped file.
+     * @param parser Parser to use
+     * @return Parsed message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public InfoPlusProduct parse(InfoPlusParser parser) throws InfoPlusParseException {
+        Object product = parser.parse(type, ByteBufferInputStream.of(payload));
+        return switch (type) {
+            case RIT -> new InfoPlusProduct.Rit((ReisInformatieProductRitInfoType) product);
+            case DVS -> new InfoPlusProduct.Dvs((ReisInformatieProductDVSType) product);
+            case DAS -> new InfoPlusProduct.Das((ReisInformatieProductDASType) product);
+        };
+    }
+}
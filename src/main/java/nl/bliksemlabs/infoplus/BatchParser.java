@@ -0,0 +1,246 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses many payloads in parallel on an Executor, for replays and backfills of archived
+ * feeds.
+ *
+ * Results are returned in input order, and a payload that fails to parse yields a failed
+ * {@link BatchResult} instead of aborting the batch. At most {@code window} payloads are
+ * in flight at a time, so a Stream over an archive of any size is parsed in bounded memory.
+ * Each task borrows an Unmarshaller from the pools of the underlying {@link InfoPlusParser},
+ * whose pool size should be at least the parallelism of the executor.
+ *
+ * <pre>{@code
+ * BatchParser batch = BatchParser.builder(parser)
+ *     .executor(Executors.newVirtualThreadPerTaskExecutor())
+ *     .build();
+ * try (Stream<BatchResult<ReisInformatieProductDVSType>> results = batch.parseDVS(payloads)) {
+ *     results.forEach(...);
+ * }
+ * }</pre>
+ */
+public final class BatchParser {
+
+    private final InfoPlusParser parser;
+    private final Executor executor;
+    private final int window;
+
+    private BatchParser(Builder builder) {
+        this.parser = builder.parser;
+        this.executor = builder.executor;
+        this.window = builder.window > 0 ? builder.window : defaultWindow(builder.executor);
+    }
+
+    /**
+     * @param parser Parser used for every payload
+     * @return A new builder that runs on the common ForkJoinPool by default
+     */
+    public static Builder builder(InfoPlusParser parser) {
+        return new Builder(parser);
+    }
+
+    /**
+     * Parse RIT messages in parallel.
+     * @param payloads (Possibly compressed) RIT messages
+     * @return Results in the order of {@code payloads}
+     */
+    public List<BatchResult<ReisInformatieProductRitInfoType>> parseRIT(List<byte[]> payloads) {
+        try (Stream<BatchResult<ReisInformatieProductRitInfoType>> results = parseRIT(payloads.stream())) {
+            return results.toList();
+        }
+    }
+
+    /**
+     * Parse RIT messages in parallel while the returned stream is consumed. Closing the
+     * returned stream closes {@code payloads}.
+     * @param payloads (Possibly compressed) RIT messages
+     * @return Results in the order of {@code payloads}
+     */
+    public Stream<BatchResult<ReisInformatieProductRitInfoType>> parseRIT(Stream<byte[]> payloads) {
+        return parse(MessageType.RIT, payloads, bytes -> parser.parseRIT(bytes, 0, bytes.length));
+    }
+
+    /**
+     * Parse DVS messages in parallel.
+     * @param payloads (Possibly compressed) DVS messages
+     * @return Results in the order of {@code payloads}
+     */
+    public List<BatchResult<ReisInformatieProductDVSType>> parseDVS(List<byte[]> payloads) {
+        try (Stream<BatchResult<ReisInformatieProductDVSType>> results = parseDVS(payloads.stream())) {
+            return results.toList();
+        }
+    }
+
+    /**
+     * Parse DVS messages in parallel while the returned stream is consumed. Closing the
+     * returned stream closes {@code payloads}.
+     * @param payloads (Possibly compressed) DVS messages
+     * @return Results in the order of {@code payloads}
+     */
+    public Stream<BatchResult<ReisInformatieProductDVSType>> parseDVS(Stream<byte[]> payloads) {
+        return parse(MessageType.DVS, payloads, bytes -> parser.parseDVS(bytes, 0, bytes.length));
+    }
+
+    /**
+     * Parse DAS messages in parallel.
+     * @param payloads (Possibly compressed) DAS messages
+     * @return Results in the order of {@code payloads}
+     */
+    public List<BatchResult<ReisInformatieProductDASType>> parseDAS(List<byte[]> payloads) {
+        try (Stream<BatchResult<ReisInformatieProductDASType>> results = parseDAS(payloads.stream())) {
+            return results.toList();
+        }
+    }
+
+    /**
+     * Parse DAS messages in parallel while the returned stream is consumed. Closing the
+     * returned stream closes {@code payloads}.
+     * @param payloads (Possibly compressed) DAS messages
+     * @return Results in the order of {@code payloads}
+     */
+    public Stream<BatchResult<ReisInformatieProductDASType>> parseDAS(Stream<byte[]> payloads) {
+        return parse(MessageType.DAS, payloads, bytes -> parser.parseDAS(bytes, 0, bytes.length));
+    }
+
+    private <T> Stream<BatchResult<T>> parse(MessageType type, Stream<byte[]> payloads, PayloadParser<T> payloadParser) {
+        OrderedResults<T> results = new OrderedResults<>(type, payloads.iterator(), payloadParser);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(results::cancel)
+            .onClose(payloads::close);
+    }
+
+    private static int defaultWindow(Executor executor) {
+        int parallelism = executor instanceof ForkJoinPool pool
+            ? pool.getParallelism()
+            : Runtime.getRuntime().availableProcessors();
+        return Math.max(16, parallelism * 4);
+    }
+
+    @FunctionalInterface
+    private interface PayloadParser<T> {
+        T parse(byte[] payload) throws InfoPlusParseException;
+    }
+
+    /**
+     * Submits payloads ahead of the consumer, up to the window size, and hands out the
+     * results in submission order.
+     */
+    private final class OrderedResults<T> implements Iterator<BatchResult<T>> {
+
+        private final MessageType type;
+        private final Iterator<byte[]> payloads;
+        private final PayloadParser<T> payloadParser;
+        private final ArrayDeque<CompletableFuture<BatchResult<T>>> pending = new ArrayDeque<>();
+        private long index;
+
+        OrderedResults(MessageType type, Iterator<byte[]> payloads, PayloadParser<T> payloadParser) {
+            this.type = type;
+            this.payloads = payloads;
+            this.payloadParser = payloadParser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public BatchResult<T> next() {
+            fill();
+            CompletableFuture<BatchResult<T>> next = pending.poll();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            return next.join();
+        }
+
+        private void fill() {
+            while (pending.size() < window && payloads.hasNext()) {
+                byte[] payload = payloads.next();
+                long position = index++;
+                pending.add(CompletableFuture.supplyAsync(() -> parse(position, payload), executor));
+            }
+        }
+
+        private BatchResult<T> parse(long position, byte[] payload) {
+            try {
+                return new BatchResult<>(position, payloadParser.parse(payload), null);
+            } catch (InfoPlusParseException e) {
+                return new BatchResult<>(position, null, e);
+            } catch (RuntimeException e) {
+                return new BatchResult<>(position, null, new InfoPlusParseException("Failed to parse " + type + " message", e));
+            }
+        }
+
+        void cancel() {
+            pending.forEach(future -> future.cancel(false));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Builder for {@link BatchParser} instances.
+     */
+    public static final class Builder {
+
+        private final InfoPlusParser parser;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int window;
+
+        private Builder(InfoPlusParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+        }
+
+        /**
+         * Set the executor that runs the parse tasks, such as a ForkJoinPool or a virtual
+         * thread per task executor. The executor is not shut down by the batch parser.
+         * @param executor Executor for the parse tasks
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of payloads being parsed, or waiting to be consumed, at a
+         * time. Defaults to four times the parallelism of the executor, and at least 16.
+         * @param window Maximum number of payloads in flight
+         * @return This builder
+         */
+        public Builder window(int window) {
+            if (window < 1) {
+                throw new IllegalArgumentException("window must be at least 1");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * @return A new batch parser with the configured settings
+         */
+        public BatchParser build() {
+            return new BatchParser(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package nl.bliksemlabs.infoplus;
+
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+
+/**
+ * Outcome of parsing a single payload of a batch: either the parsed message or the
+ * reason it could not be parsed.
+ *
+ * @param index Position of the payload in the input, starting at 0
+ * @param value Parsed message, or null when parsing failed
+ * @param failure Reason parsing failed, or null when it succeeded
+ * @param <T> Type of the parsed message
+ */
+public record BatchResult<T>(long index, T value, InfoPlusParseException failure) {
+
+    /**
+     * @return Whether the payload was parsed
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * @return The parsed message
+     * @throws InfoPlusParseException if parsing this payload failed
+     */
+    public T get() throws InfoPlusParseException {
+        if (failure != null) {
+            throw failure;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,152 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+/**
+ * Compact binary encoding of parsed messages, to cache them or pass them between
+ * services without marshalling them back to XML.
+ *
+ * The layout is derived from the generated JAXB classes the first time a codec is used,
+ * so it always matches the XSDs the classes were generated from. Fields are written in
+ * schema order without names. Strings are written once per message and referred back to
+ * by index, and numbers, times and durations are varints. Every encoded message starts
+ * with a fingerprint of the layout; a message encoded against other XSDs is rejected
+ * instead of being misread.
+ *
+ * Codecs are thread-safe.
+ *
+ * <pre>{@code
+ * byte[] cached = BinaryCodec.dvs().encode(dvs);
+ * ReisInformatieProductDVSType copy = BinaryCodec.dvs().decode(cached);
+ * }</pre>
+ *
+ * @param <T> ReisInformatieProductRitInfoType, ReisInformatieProductDVSType or ReisInformatieProductDASType
+ */
+public final class BinaryCodec<T> {
+
+    private static final byte[] MAGIC = {'I', 'P', 'B'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Long.BYTES;
+
+    private final MessageType type;
+    private final Class<T> productType;
+    private final BinaryLayout.ObjectCodec root;
+    private final long fingerprint;
+
+    private BinaryCodec(MessageType type, Class<T> productType) {
+        this.type = type;
+        this.productType = productType;
+        BinaryLayout.Root layout = BinaryLayout.derive(productType);
+        this.root = layout.codec();
+        this.fingerprint = layout.fingerprint();
+    }
+
+    /**
+     * @return Codec for RIT messages
+     */
+    public static BinaryCodec<ReisInformatieProductRitInfoType> rit() {
+        return RitHolder.CODEC;
+    }
+
+    /**
+     * @return Codec for DVS messages
+     */
+    public static BinaryCodec<ReisInformatieProductDVSType> dvs() {
+        return DvsHolder.CODEC;
+    }
+
+    /**
+     * @return Codec for DAS messages
+     */
+    public static BinaryCodec<ReisInformatieProductDASType> das() {
+        return DasHolder.CODEC;
+    }
+
+    /**
+     * @return Fingerprint of the layout, equal between codecs derived from the same XSDs
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param product Message to encode
+     * @return Encoded message
+     * @throws IllegalArgumentException if the message contains an element of an xsi:type
+     *         subclass, which the layout cannot represent
+     */
+    public byte[] encode(T product) {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeBytes(MAGIC);
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeLong(fingerprint);
+        root.writeFields(productType.cast(product), writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param bytes Encoded message
+     * @return Decoded message
+     * @throws InfoPlusParseException if the bytes are not a message encoded by a codec with the same layout
+     */
+    public T decode(byte[] bytes) throws InfoPlusParseException {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode a message from a region of a byte array.
+     * @param bytes Array containing the encoded message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Decoded message
+     * @throws InfoPlusParseException if the bytes are not a message encoded by a codec with the same layout
+     */
+    public T decode(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        if (length < HEADER_LENGTH) {
+            throw new InfoPlusParseException("Not an encoded " + type + " message: too short", null);
+        }
+        BinaryReader reader = new BinaryReader(bytes, offset, length);
+        for (byte b : MAGIC) {
+            if (reader.readByte() != b) {
+                throw new InfoPlusParseException("Not an encoded " + type + " message", null);
+            }
+        }
+        int version = reader.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new InfoPlusParseException("Unsupported encoding version " + version + " of " + type + " message", null);
+        }
+        long encodedFingerprint = reader.readLong();
+        if (encodedFingerprint != fingerprint) {
+            throw new InfoPlusParseException(String.format(
+                "Encoded %s message has layout %016x, expected %016x", type, encodedFingerprint, fingerprint), null);
+        }
+
+        try {
+            Object product = root.readFields(reader);
+            if (!reader.isAtEnd()) {
+                throw new IllegalStateException("Trailing bytes after message");
+            }
+            return productType.cast(product);
+        } catch (RuntimeException e) {
+            throw new InfoPlusParseException("Failed to decode " + type + " message", e);
+        }
+    }
+
+    private static final class RitHolder {
+        static final BinaryCodec<ReisInformatieProductRitInfoType> CODEC =
+            new BinaryCodec<>(MessageType.RIT, ReisInformatieProductRitInfoType.class);
+    }
+
+    private static final class DvsHolder {
+        static final BinaryCodec<ReisInformatieProductDVSType> CODEC =
+            new BinaryCodec<>(MessageType.DVS, ReisInformatieProductDVSType.class);
+    }
+
+    private static final class DasHolder {
+        static final BinaryCodec<ReisInformatieProductDASType> CODEC =
+            new BinaryCodec<>(MessageType.DAS, ReisInformatieProductDASType.class);
+    }
+}
@@ -0,0 +1,633 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.annotation.XmlAnyAttribute;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary layout of a generated JAXB class and every class reachable from it, derived
+ * from the classes through reflection.
+ *
+ * The fields of a class are written in the propOrder of its XmlType, followed by the
+ * remaining bound fields (attributes) by name. Each field has a value encoding chosen by
+ * its Java type; nullable values fold the null case into their first varint where
+ * possible. The layout is also described as text, whose hash is the fingerprint that
+ * {@link BinaryCodec} writes in front of every message.
+ */
+final class BinaryLayout {
+
+    private final Map<Class<?>, ObjectCodec> objects = new HashMap<>();
+    private final Map<Class<?>, String> descriptions = new LinkedHashMap<>();
+
+    private BinaryLayout() {
+    }
+
+    /**
+     * Derive the layout of a generated class.
+     * @param type Root class, such as ReisInformatieProductDVSType
+     * @return Codec for instances of the class
+     * @throws IllegalStateException if a field has a type that cannot be encoded
+     */
+    static Root derive(Class<?> type) {
+        BinaryLayout layout = new BinaryLayout();
+        ObjectCodec root = layout.object(type);
+        return new Root(root, fingerprint(String.join("\n", layout.descriptions.values())));
+    }
+
+    /**
+     * @param codec Codec of the root class
+     * @param fingerprint Hash of the layout of all classes reachable from the root
+     */
+    record Root(ObjectCodec codec, long fingerprint) {
+    }
+
+    /**
+     * Encoding of a single, possibly null, value.
+     */
+    interface ValueCodec {
+
+        void write(Object value, BinaryWriter writer);
+
+        Object read(BinaryReader reader);
+    }
+
+    private ObjectCodec object(Class<?> type) {
+        ObjectCodec known = objects.get(type);
+        if (known != null) {
+            return known;
+        }
+        ObjectCodec codec = new ObjectCodec(type);
+        // Registered before its fields are derived, in case the class is reachable from itself
+        objects.put(type, codec);
+
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            codec.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No accessible no-argument constructor in " + type.getName(), e);
+        }
+
+        List<Field> fields = boundFields(type);
+        StringBuilder description = new StringBuilder(type.getName()).append('{');
+        FieldCodec[] codecs = new FieldCodec[fields.size()];
+        for (int i = 0; i < codecs.length; i++) {
+            Field field = fields.get(i);
+            description.append(field.getName()).append(':');
+            codecs[i] = field(lookup, field, description);
+            description.append(';');
+        }
+        codec.fields = codecs;
+        descriptions.put(type, description.append('}').toString());
+        return codec;
+    }
+
+    private FieldCodec field(MethodHandles.Lookup lookup, Field field, StringBuilder description) {
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field " + field + " is not accessible", e);
+        }
+        if (field.getType() == Map.class && field.isAnnotationPresent(XmlAnyAttribute.class)) {
+            description.append("AnyAttributes");
+            return new FieldCodec(getter, setter, ANY_ATTRIBUTES, false);
+        }
+        if (field.getType() == List.class) {
+            description.append("List<");
+            Class<?> elementType = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            ValueCodec element = value(elementType, field, description);
+            description.append('>');
+            return new FieldCodec(getter, setter, element, true);
+        }
+        return new FieldCodec(getter, setter, value(field.getType(), field, description), false);
+    }
+
+    private ValueCodec value(Class<?> type, Field field, StringBuilder description) {
+        if (type == String.class) {
+            description.append("String");
+            return STRING;
+        }
+        if (type == int.class) {
+            description.append("int");
+            return INT;
+        }
+        if (type == Integer.class) {
+            description.append("Integer");
+            return INTEGER;
+        }
+        if (type == BigInteger.class) {
+            description.append("BigInteger");
+            return BIG_INTEGER;
+        }
+        if (type == BigDecimal.class) {
+            description.append("BigDecimal");
+            return BIG_DECIMAL;
+        }
+        if (type == LocalDateTime.class) {
+            description.append("LocalDateTime");
+            return LOCAL_DATE_TIME;
+        }
+        if (type == LocalDate.class) {
+            description.append("LocalDate");
+            return LOCAL_DATE;
+        }
+        if (type == Duration.class) {
+            description.append("Duration");
+            return DURATION;
+        }
+        if (type == Element.class) {
+            description.append("Element");
+            return ELEMENT;
+        }
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            description.append(type.getName()).append(Arrays.toString(constants));
+            return new EnumCodec(constants);
+        }
+        if (type.isAnnotationPresent(XmlType.class)) {
+            description.append(type.getName());
+            return object(type);
+        }
+        throw new IllegalStateException("Cannot encode field " + field + " of type " + type.getName());
+    }
+
+    /**
+     * @return The bound fields of the superclasses, followed by those of the class itself
+     */
+    private static List<Field> boundFields(Class<?> type) {
+        List<Field> fields = type.getSuperclass() == Object.class
+            ? new ArrayList<>()
+            : boundFields(type.getSuperclass());
+        fields.addAll(declaredBoundFields(type));
+        return fields;
+    }
+
+    /**
+     * @return The non-static, non-transient fields declared by the class in propOrder,
+     *         followed by the others by name
+     */
+    private static List<Field> declaredBoundFields(Class<?> type) {
+        Map<String, Field> fields = new LinkedHashMap<>();
+        Arrays.stream(type.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+            .filter(field -> !field.isAnnotationPresent(XmlTransient.class))
+            .sorted(Comparator.comparing(Field::getName))
+            .forEach(field -> fields.put(field.getName(), field));
+
+        List<Field> ordered = new ArrayList<>(fields.size());
+        XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType != null) {
+            for (String name : xmlType.propOrder()) {
+                Field field = fields.remove(name);
+                if (field != null) {
+                    ordered.add(field);
+                }
+            }
+        }
+        ordered.addAll(fields.values());
+        return ordered;
+    }
+
+    private static long fingerprint(String description) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(description.getBytes(StandardCharsets.UTF_8));
+            long fingerprint = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+            }
+            return fingerprint;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A bound field and the encoding of its value, or of its elements for a List.
+     */
+    record FieldCodec(MethodHandle getter, MethodHandle setter, ValueCodec codec, boolean list) {
+
+        void write(Object owner, BinaryWriter writer) {
+            Object value = get(owner);
+            if (!list) {
+                codec.write(value, writer);
+                return;
+            }
+            List<?> values = (List<?>) value;
+            int size = values == null ? 0 : values.size();
+            writer.writeVarLong(size);
+            for (int i = 0; i < size; i++) {
+                codec.write(values.get(i), writer);
+            }
+        }
+
+        void read(Object owner, BinaryReader reader) {
+            if (!list) {
+                set(owner, codec.read(reader));
+                return;
+            }
+            int size = reader.readVarInt();
+            if (size == 0) {
+                // Generated getters create the list on first access
+                return;
+            }
+            List<Object> values = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                values.add(codec.read(reader));
+            }
+            set(owner, values);
+        }
+
+        private Object get(Object owner) {
+            try {
+                return (Object) getter.invokeExact(owner);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        private void set(Object owner, Object value) {
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    /**
+     * A generated class, written as a presence tag followed by its fields.
+     */
+    static final class ObjectCodec implements ValueCodec {
+
+        private final Class<?> type;
+        private MethodHandle constructor;
+        private FieldCodec[] fields;
+
+        private ObjectCodec(Class<?> type) {
+            this.type = type;
+        }
+
+        Class<?> type() {
+            return type;
+        }
+
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            if (value == null) {
+                writer.writeVarLong(0);
+                return;
+            }
+            if (value.getClass() != type) {
+                // An xsi:type subclass would be decoded as the declared class
+                throw new IllegalArgumentException("Cannot encode " + value.getClass().getName() + " as " + type.getName());
+            }
+            writer.writeVarLong(1);
+            writeFields(value, writer);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag != 1) {
+                throw new IllegalStateException("Invalid presence tag " + tag + " for " + type.getName());
+            }
+            return readFields(reader);
+        }
+
+        void writeFields(Object value, BinaryWriter writer) {
+            for (FieldCodec field : fields) {
+                field.write(value, writer);
+            }
+        }
+
+        Object readFields(BinaryReader reader) {
+            Object value;
+            try {
+                value = (Object) constructor.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+            for (FieldCodec field : fields) {
+                field.read(value, reader);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Enum constant as 0 for null or its ordinal plus one.
+     */
+    private record EnumCodec(Object[] constants) implements ValueCodec {
+
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            writer.writeVarLong(value == null ? 0 : ((Enum<?>) value).ordinal() + 1L);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            int tag = reader.readVarInt();
+            return tag == 0 ? null : constants[tag - 1];
+        }
+    }
+
+    private static final ValueCodec STRING = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            writer.writeString((String) value);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            return reader.readString();
+        }
+    };
+
+    private static final ValueCodec INT = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            writer.writeSignedVarLong((Integer) value);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            return Math.toIntExact(reader.readSignedVarLong());
+        }
+    };
+
+    /**
+     * 0 for null, the zigzag value plus one otherwise.
+     */
+    private static final ValueCodec INTEGER = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            writer.writeVarLong(value == null ? 0 : BinaryWriter.zigzag((Integer) value) + 1);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            return tag == 0 ? null : Math.toIntExact(BinaryReader.unzigzag(tag - 1));
+        }
+    };
+
+    /**
+     * 0 for null, 1 for a value of more than 61 bits followed by its two's complement
+     * bytes, and the zigzag value plus two otherwise.
+     */
+    private static final ValueCodec BIG_INTEGER = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            if (value == null) {
+                writer.writeVarLong(0);
+                return;
+            }
+            BigInteger integer = (BigInteger) value;
+            if (integer.bitLength() <= 61) {
+                writer.writeVarLong(BinaryWriter.zigzag(integer.longValue()) + 2);
+            } else {
+                byte[] bytes = integer.toByteArray();
+                writer.writeVarLong(1);
+                writer.writeVarLong(bytes.length);
+                writer.writeBytes(bytes);
+            }
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag == 1) {
+                return new BigInteger(reader.readBytes(reader.readVarInt()));
+            }
+            return BigInteger.valueOf(BinaryReader.unzigzag(tag - 2));
+        }
+    };
+
+    /**
+     * Unscaled value as a BigInteger, followed by the scale when not null.
+     */
+    private static final ValueCodec BIG_DECIMAL = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            BigDecimal decimal = (BigDecimal) value;
+            BIG_INTEGER.write(decimal == null ? null : decimal.unscaledValue(), writer);
+            if (decimal != null) {
+                writer.writeSignedVarLong(decimal.scale());
+            }
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            BigInteger unscaled = (BigInteger) BIG_INTEGER.read(reader);
+            return unscaled == null ? null : new BigDecimal(unscaled, Math.toIntExact(reader.readSignedVarLong()));
+        }
+    };
+
+    /**
+     * 0 for null, otherwise the zigzag epoch second shifted left by one, with the low bit
+     * set when a nano-of-second varint follows, plus one.
+     */
+    private static final ValueCodec LOCAL_DATE_TIME = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            if (value == null) {
+                writer.writeVarLong(0);
+                return;
+            }
+            LocalDateTime dateTime = (LocalDateTime) value;
+            writeSecondsAndNanos(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano(), writer);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            long seconds = BinaryReader.unzigzag((tag - 1) >>> 1);
+            int nanos = ((tag - 1) & 1) == 0 ? 0 : reader.readVarInt();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    };
+
+    /**
+     * 0 for null, the zigzag epoch day plus one otherwise.
+     */
+    private static final ValueCodec LOCAL_DATE = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            writer.writeVarLong(value == null ? 0 : BinaryWriter.zigzag(((LocalDate) value).toEpochDay()) + 1);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            return tag == 0 ? null : LocalDate.ofEpochDay(BinaryReader.unzigzag(tag - 1));
+        }
+    };
+
+    /**
+     * Same as {@link #LOCAL_DATE_TIME}, with the seconds of the Duration.
+     */
+    private static final ValueCodec DURATION = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            if (value == null) {
+                writer.writeVarLong(0);
+                return;
+            }
+            Duration duration = (Duration) value;
+            writeSecondsAndNanos(duration.getSeconds(), duration.getNano(), writer);
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            long tag = reader.readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            long seconds = BinaryReader.unzigzag((tag - 1) >>> 1);
+            int nanos = ((tag - 1) & 1) == 0 ? 0 : reader.readVarInt();
+            return Duration.ofSeconds(seconds, nanos);
+        }
+    };
+
+    /**
+     * Wildcard (xs:any) content, written as its XML text. These elements are rare, so
+     * they are serialized and parsed with a new Transformer and DocumentBuilder each time.
+     */
+    private static final ValueCodec ELEMENT = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            if (value == null) {
+                writer.writeString(null);
+                return;
+            }
+            try {
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+                StringWriter xml = new StringWriter();
+                transformer.transform(new DOMSource((Element) value), new StreamResult(xml));
+                writer.writeString(xml.toString());
+            } catch (TransformerException e) {
+                throw new IllegalStateException("Failed to serialize element " + ((Element) value).getTagName(), e);
+            }
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            String xml = reader.readString();
+            if (xml == null) {
+                return null;
+            }
+            try {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+            } catch (ParserConfigurationException | SAXException | IOException e) {
+                throw new IllegalStateException("Failed to parse element", e);
+            }
+        }
+    };
+
+    /**
+     * Wildcard attributes (xs:anyAttribute) as their number, followed by the namespace,
+     * local name, prefix and value of each.
+     */
+    private static final ValueCodec ANY_ATTRIBUTES = new ValueCodec() {
+        @Override
+        public void write(Object value, BinaryWriter writer) {
+            @SuppressWarnings("unchecked")
+            Map<QName, String> attributes = (Map<QName, String>) value;
+            writer.writeVarLong(attributes == null ? 0 : attributes.size());
+            if (attributes == null) {
+                return;
+            }
+            for (Map.Entry<QName, String> attribute : attributes.entrySet()) {
+                writer.writeString(attribute.getKey().getNamespaceURI());
+                writer.writeString(attribute.getKey().getLocalPart());
+                writer.writeString(attribute.getKey().getPrefix());
+                writer.writeString(attribute.getValue());
+            }
+        }
+
+        @Override
+        public Object read(BinaryReader reader) {
+            int size = reader.readVarInt();
+            Map<QName, String> attributes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                QName name = new QName(reader.readString(), reader.readString(), reader.readString());
+                attributes.put(name, reader.readString());
+            }
+            return attributes;
+        }
+    };
+
+    private static void writeSecondsAndNanos(long seconds, int nanos, BinaryWriter writer) {
+        long tag = (BinaryWriter.zigzag(seconds) << 1) | (nanos == 0 ? 0 : 1);
+        writer.writeVarLong(tag + 1);
+        if (nanos != 0) {
+            writer.writeVarLong(nanos);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(e);
+    }
+}
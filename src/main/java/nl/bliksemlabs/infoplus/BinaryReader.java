@@ -0,0 +1,99 @@
+package nl.bliksemlabs.infoplus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Reads the primitives written by a {@link BinaryWriter} from a region of a byte array.
+ *
+ * Reading past the end of the region throws an IndexOutOfBoundsException, which the
+ * {@link BinaryCodec} reports as a corrupt message.
+ */
+final class BinaryReader {
+
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final byte[] buffer;
+    private final int end;
+    private int position;
+
+    BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    int readByte() {
+        check(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    long readLong() {
+        check(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint longer than 64 bits");
+    }
+
+    int readVarInt() {
+        return Math.toIntExact(readVarLong());
+    }
+
+    long readSignedVarLong() {
+        return unzigzag(readVarLong());
+    }
+
+    byte[] readBytes(int length) {
+        check(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    /**
+     * @see BinaryWriter#writeString(String)
+     */
+    String readString() {
+        long tag = readVarLong();
+        if (tag == 0) {
+            return null;
+        }
+        if ((tag & 1) != 0) {
+            return strings.get(Math.toIntExact(tag >>> 1));
+        }
+        int length = Math.toIntExact((tag >>> 1) - 1);
+        check(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        strings.add(value);
+        return value;
+    }
+
+    boolean isAtEnd() {
+        return position == end;
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private void check(int count) {
+        if (count < 0 || count > end - position) {
+            throw new IndexOutOfBoundsException("Message truncated at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package nl.bliksemlabs.infoplus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Growable byte buffer with the primitives of the {@link BinaryCodec} format: unsigned
+ * and zigzag varints, and strings that are written once and referred back to by index.
+ */
+final class BinaryWriter {
+
+    private static final int INITIAL_SIZE = 1024;
+
+    private final HashMap<String, Integer> strings = new HashMap<>();
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int length;
+
+    void writeByte(int b) {
+        ensure(1);
+        buffer[length++] = (byte) b;
+    }
+
+    void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    void writeLong(long value) {
+        ensure(Long.BYTES);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Write an unsigned varint: seven bits per byte, least significant first.
+     */
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    /**
+     * Write a signed value as a zigzag varint, so small negative values stay short.
+     */
+    void writeSignedVarLong(long value) {
+        writeVarLong(zigzag(value));
+    }
+
+    /**
+     * Write a nullable string. The tag is 0 for null, odd for a reference to the
+     * {@code tag >> 1}th string of the message, and even for a new string of
+     * {@code (tag >> 1) - 1} UTF-8 bytes that follow.
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarLong(((long) index << 1) | 1);
+            return;
+        }
+        strings.put(value, strings.size());
+
+        int chars = value.length();
+        if (isAscii(value)) {
+            // ASCII is its own UTF-8 encoding, so copy the low bytes of the chars
+            writeVarLong((chars + 1L) << 1);
+            ensure(chars);
+            for (int i = 0; i < chars; i++) {
+                buffer[length++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong((bytes.length + 1L) << 1);
+            writeBytes(bytes);
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensure(int count) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+    }
+}
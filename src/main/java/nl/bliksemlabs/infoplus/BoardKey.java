@@ -0,0 +1,13 @@
+package nl.bliksemlabs.infoplus;
+
+import java.time.LocalDate;
+
+/**
+ * Identifies the departure or arrival of a single service at a single station.
+ *
+ * @param ritId RitId of the service
+ * @param ritDatum RitDatum of the service
+ * @param stationCode StationCode of the RitStation
+ */
+public record BoardKey(long ritId, LocalDate ritDatum, String stationCode) {
+}
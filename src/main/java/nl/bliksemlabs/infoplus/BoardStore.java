@@ -0,0 +1,253 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.AankomstOfVertrekTijdType;
+import ndov.cdm.trein.reisinformatie.data._4.DynamischeAankomstStaatType;
+import ndov.cdm.trein.reisinformatie.data._4.DynamischeVertrekStaatType;
+import ndov.cdm.trein.reisinformatie.data._4.InfoStatus;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Live departure (DVS) or arrival (DAS) boards, holding the latest message for every
+ * {@link BoardKey}.
+ *
+ * Messages are ordered by their {@link MessageVersion}. Applying a message that is not
+ * newer than the stored one has no effect, so messages may be applied more than once
+ * and out of order. Services are removed by {@link #expire(Instant)} once their
+ * departure or arrival time, actual if known and planned otherwise, lies more than the
+ * retention period in the past.
+ *
+ * Entries are kept in a ConcurrentHashMap per station. Writers only contend when they
+ * update the same map bin, and {@link #board(String)} reads without taking any locks.
+ *
+ * <pre>{@code
+ * BoardStore<ReisInformatieProductDVSType> departures = BoardStore.departures(Duration.ofMinutes(5));
+ * departures.apply(parser.parseDVS(inputStream));
+ * List<BoardStore.Entry<ReisInformatieProductDVSType>> board = departures.board("UT");
+ * }</pre>
+ *
+ * @param <T> ReisInformatieProductDVSType or ReisInformatieProductDASType
+ */
+public final class BoardStore<T> {
+
+    /**
+     * Outcome of {@link #apply(Object)}.
+     */
+    public enum ApplyResult {
+        /** The message was stored for a key that had no entry. */
+        ADDED,
+        /** The message replaced an older version. */
+        REPLACED,
+        /** The stored version is the same as that of the message. */
+        DUPLICATE,
+        /** The stored version is newer than that of the message. */
+        STALE,
+        /** The service of the message has already expired. */
+        EXPIRED
+    }
+
+    /**
+     * A stored message.
+     *
+     * @param key Service and station of the message
+     * @param version Version of the message
+     * @param time Departure or arrival time, actual if known and planned otherwise
+     * @param product The message
+     * @param <T> Type of the message
+     */
+    public record Entry<T>(BoardKey key, MessageVersion version, Instant time, T product) {
+    }
+
+    private static final Comparator<Entry<?>> BY_TIME = Comparator
+        .comparing((Entry<?> entry) -> entry.time())
+        .thenComparingLong(entry -> entry.key().ritId());
+
+    private final Function<T, Entry<T>> entryFactory;
+    private final Duration retention;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<BoardKey, Entry<T>>> stations = new ConcurrentHashMap<>();
+    private final AtomicLong expiredBefore = new AtomicLong(Long.MIN_VALUE);
+
+    private BoardStore(Function<T, Entry<T>> entryFactory, Duration retention) {
+        this.entryFactory = entryFactory;
+        this.retention = Objects.requireNonNull(retention, "retention");
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("retention must not be negative");
+        }
+    }
+
+    /**
+     * @param retention How long a service is kept after its departure time
+     * @return A new store for departure boards built from DVS messages
+     */
+    public static BoardStore<ReisInformatieProductDVSType> departures(Duration retention) {
+        return new BoardStore<>(BoardStore::departure, retention);
+    }
+
+    /**
+     * @param retention How long a service is kept after its arrival time
+     * @return A new store for arrival boards built from DAS messages
+     */
+    public static BoardStore<ReisInformatieProductDASType> arrivals(Duration retention) {
+        return new BoardStore<>(BoardStore::arrival, retention);
+    }
+
+    /**
+     * Store the message unless a message with the same or a newer version is stored for
+     * its key, or its service has already expired.
+     * @param product Parsed message
+     * @return What was done with the message
+     * @throws IllegalArgumentException if the message has no RitId, RitDatum or RitStation
+     */
+    public ApplyResult apply(T product) {
+        Entry<T> entry = entryFactory.apply(product);
+        long time = entry.time().getEpochSecond();
+        if (time < expiredBefore.get()) {
+            return ApplyResult.EXPIRED;
+        }
+        ConcurrentHashMap<BoardKey, Entry<T>> board =
+            stations.computeIfAbsent(entry.key().stationCode(), code -> new ConcurrentHashMap<>());
+        ApplyResult[] result = new ApplyResult[1];
+        board.compute(entry.key(), (key, stored) -> {
+            // Checked again under the lock of the key, as expire may have passed it since
+            if (time < expiredBefore.get()) {
+                result[0] = ApplyResult.EXPIRED;
+                return stored;
+            }
+            if (stored == null) {
+                result[0] = ApplyResult.ADDED;
+                return entry;
+            }
+            int order = entry.version().compareTo(stored.version());
+            if (order > 0) {
+                result[0] = ApplyResult.REPLACED;
+                return entry;
+            }
+            result[0] = order == 0 ? ApplyResult.DUPLICATE : ApplyResult.STALE;
+            return stored;
+        });
+        return result[0];
+    }
+
+    /**
+     * @param key Service and station
+     * @return The stored message for the key
+     */
+    public Optional<Entry<T>> get(BoardKey key) {
+        Map<BoardKey, Entry<T>> board = stations.get(key.stationCode());
+        return board == null ? Optional.empty() : Optional.ofNullable(board.get(key));
+    }
+
+    /**
+     * Snapshot of the board of a station, ordered by time. Messages applied while the
+     * snapshot is taken may or may not be included.
+     * @param stationCode StationCode of the station
+     * @return The stored messages of the station, earliest first
+     */
+    public List<Entry<T>> board(String stationCode) {
+        Map<BoardKey, Entry<T>> board = stations.get(stationCode);
+        if (board == null) {
+            return List.of();
+        }
+        List<Entry<T>> snapshot = new ArrayList<>(board.values());
+        snapshot.sort(BY_TIME);
+        return snapshot;
+    }
+
+    /**
+     * Remove services whose time lies more than the retention period before {@code now},
+     * and reject messages for them from then on.
+     * @param now Current time
+     * @return Number of removed entries
+     */
+    public int expire(Instant now) {
+        long cutoff = now.minus(retention).getEpochSecond();
+        expiredBefore.accumulateAndGet(cutoff, Math::max);
+        int[] removed = new int[1];
+        for (ConcurrentHashMap<BoardKey, Entry<T>> board : stations.values()) {
+            for (Entry<T> entry : board.values()) {
+                if (entry.time().getEpochSecond() >= cutoff) {
+                    continue;
+                }
+                // Check the entry that is stored now, which apply may have replaced meanwhile
+                board.computeIfPresent(entry.key(), (key, stored) -> {
+                    if (stored.time().getEpochSecond() >= cutoff) {
+                        return stored;
+                    }
+                    removed[0]++;
+                    return null;
+                });
+            }
+        }
+        return removed[0];
+    }
+
+    /**
+     * @return Number of stored entries over all stations
+     */
+    public int size() {
+        int size = 0;
+        for (Map<BoardKey, Entry<T>> board : stations.values()) {
+            size += board.size();
+        }
+        return size;
+    }
+
+    private static Entry<ReisInformatieProductDVSType> departure(ReisInformatieProductDVSType product) {
+        DynamischeVertrekStaatType staat = product.getDynamischeVertrekStaat();
+        MessageVersion version = MessageVersion.of(product.getRIPAdministratie());
+        BoardKey key = key(staat.getRitId(), staat.getRitDatum(), staat.getRitStation() == null ? null : staat.getRitStation().getStationCode());
+        List<AankomstOfVertrekTijdType> times = staat.getTrein() == null ? List.of() : staat.getTrein().getVertrekTijd();
+        return new Entry<>(key, version, time(times, version), product);
+    }
+
+    private static Entry<ReisInformatieProductDASType> arrival(ReisInformatieProductDASType product) {
+        DynamischeAankomstStaatType staat = product.getDynamischeAankomstStaat();
+        MessageVersion version = MessageVersion.of(product.getRIPAdministratie());
+        BoardKey key = key(staat.getRitId(), staat.getRitDatum(), staat.getRitStation() == null ? null : staat.getRitStation().getStationCode());
+        List<AankomstOfVertrekTijdType> times = staat.getTreinAankomst() == null ? List.of() : staat.getTreinAankomst().getAankomstTijd();
+        return new Entry<>(key, version, time(times, version), product);
+    }
+
+    private static BoardKey key(BigInteger ritId, LocalDate ritDatum, String stationCode) {
+        if (ritId == null || ritDatum == null || stationCode == null) {
+            throw new IllegalArgumentException("Message without RitId, RitDatum or RitStation");
+        }
+        return new BoardKey(ritId.longValueExact(), ritDatum, stationCode);
+    }
+
+    private static Instant time(List<AankomstOfVertrekTijdType> times, MessageVersion version) {
+        LocalDateTime planned = null;
+        for (AankomstOfVertrekTijdType time : times) {
+            if (time.getValue() == null) {
+                continue;
+            }
+            if (time.getInfoStatus() == InfoStatus.ACTUEEL) {
+                return time.getValue().toInstant(ZoneOffset.UTC);
+            }
+            if (planned == null) {
+                planned = time.getValue();
+            }
+        }
+        if (planned == null) {
+            // Fall back to the time the message refers to
+            planned = version.reisInformatieTijdstip();
+        }
+        return planned == null ? Instant.MAX : planned.toInstant(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,90 @@
+package nl.bliksemlabs.infoplus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link StationDictionary} that keeps at most a fixed number of stations.
+ *
+ * Stations are keyed by all of their values, so a station that appears under different
+ * names, for instance around a rename, is kept once for every version and messages with
+ * either version keep sharing their Strings. Once the dictionary is full, unknown stations
+ * are passed through unchanged.
+ */
+public final class BoundedStationDictionary implements StationDictionary {
+
+    /**
+     * Default capacity: every Dutch station plus the foreign stations InfoPlus refers to.
+     */
+    public static final int DEFAULT_MAX_STATIONS = 4096;
+
+    private final int maxStations;
+    private final ConcurrentHashMap<Station, Station> stations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BoundedStationDictionary(int maxStations) {
+        if (maxStations < 0) {
+            throw new IllegalArgumentException("maxStations must not be negative");
+        }
+        this.maxStations = maxStations;
+    }
+
+    @Override
+    public Station canonical(Station station) {
+        if (station.stationCode() == null && station.uicCode() == null) {
+            misses.increment();
+            return station;
+        }
+        Station known = stations.get(station);
+        if (known != null) {
+            hits.increment();
+            return known;
+        }
+        misses.increment();
+        // The size check and insert race, so the bound may be exceeded by the number of threads
+        if (stations.size() < maxStations) {
+            known = stations.putIfAbsent(station, station);
+        }
+        return known != null ? known : station;
+    }
+
+    /**
+     * @return Counters and size of this dictionary
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), stations.size());
+    }
+
+    /**
+     * Remove all stations and reset the counters.
+     */
+    public void clear() {
+        stations.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedStationDictionary" + stats();
+    }
+
+    /**
+     * Snapshot of the dictionary counters.
+     *
+     * @param hits Stations that were replaced by a canonical instance
+     * @param misses Stations that were not known
+     * @param size Number of stations held
+     */
+    public record Stats(long hits, long misses, int size) {
+
+        /**
+         * @return Fraction of lookups that were hits, or 0 when there were none
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
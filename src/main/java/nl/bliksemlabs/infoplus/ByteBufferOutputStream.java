@@ -0,0 +1,39 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * OutputStream writing into a ByteBuffer from its position, advancing the position.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw overflow(1);
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.remaining()) {
+            throw overflow(length);
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    private IOException overflow(int length) {
+        return new IOException("Buffer has " + buffer.remaining() + " bytes remaining, " + length + " needed",
+            new BufferOverflowException());
+    }
+}
@@ -0,0 +1,69 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream counting the bytes read from the underlying stream. Bytes read again after
+ * a reset are counted once.
+ */
+final class CountingInputStream extends FilterInputStream {
+
+    private long position;
+    private long mark;
+    private long count;
+
+    CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * @return Number of distinct bytes read so far
+     */
+    long count() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = in.read(bytes, offset, length);
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        in.mark(readLimit);
+        mark = position;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        in.reset();
+        position = mark;
+    }
+
+    private void advance(long bytes) {
+        position += bytes;
+        count = Math.max(count, position);
+    }
+}
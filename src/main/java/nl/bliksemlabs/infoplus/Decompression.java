@@ -0,0 +1,240 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Detects gzip and zlib compressed messages from their leading bytes and inflates them
+ * while they are being parsed.
+ *
+ * Inflaters hold native memory, so they are taken from a bounded pool and returned when
+ * the stream is released instead of being created and ended for every message.
+ */
+final class Decompression {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int DEFLATE = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final InflaterPool GZIP_INFLATERS = new InflaterPool(true);
+    private static final InflaterPool ZLIB_INFLATERS = new InflaterPool(false);
+
+    private Decompression() {
+    }
+
+    /**
+     * Wrap the stream so it is inflated when it starts with a gzip or zlib header, or
+     * return a stream with the same content otherwise. Only the first member of a
+     * multi-member gzip stream is read.
+     * @param in Possibly compressed message
+     * @return Stream of the uncompressed message, to be passed to {@link #release(InputStream)} after use
+     * @throws IOException if the header cannot be read or is invalid
+     */
+    static InputStream decompress(InputStream in) throws IOException {
+        int first;
+        int second;
+        if (in.markSupported()) {
+            in.mark(2);
+            first = in.read();
+            second = in.read();
+            in.reset();
+        } else {
+            PushbackInputStream pushback = new PushbackInputStream(in, 2);
+            first = pushback.read();
+            second = pushback.read();
+            if (second != -1) {
+                pushback.unread(second);
+            }
+            if (first != -1) {
+                pushback.unread(first);
+            }
+            in = pushback;
+        }
+
+        if (first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2) {
+            skipGzipHeader(in);
+            return new InflatingInputStream(in, GZIP_INFLATERS, new CRC32());
+        }
+        if (isZlibHeader(first, second)) {
+            return new InflatingInputStream(in, ZLIB_INFLATERS, null);
+        }
+        return in;
+    }
+
+    /**
+     * Return the Inflater of a stream created by {@link #decompress(InputStream)} to the
+     * pool. The underlying stream is not closed.
+     * @param in Stream returned by {@link #decompress(InputStream)}
+     */
+    static void release(InputStream in) {
+        if (in instanceof InflatingInputStream inflating) {
+            inflating.release();
+        }
+    }
+
+    private static boolean isZlibHeader(int cmf, int flg) {
+        // RFC 1950: deflate with a window of at most 32K, and a header checksum
+        return cmf >= 0 && flg >= 0
+            && (cmf & 0x0f) == DEFLATE
+            && (cmf >> 4) <= 7
+            && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    private static void skipGzipHeader(InputStream in) throws IOException {
+        // RFC 1952: ID1 ID2 CM FLG MTIME(4) XFL OS, followed by the optional fields
+        skipBytes(in, 2);
+        if (readByte(in) != DEFLATE) {
+            throw new ZipException("Unsupported gzip compression method");
+        }
+        int flags = readByte(in);
+        skipBytes(in, 6);
+        if ((flags & FEXTRA) != 0) {
+            int length = readByte(in) | (readByte(in) << 8);
+            skipBytes(in, length);
+        }
+        if ((flags & FNAME) != 0) {
+            while (readByte(in) != 0) {
+                // Skip zero terminated file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readByte(in) != 0) {
+                // Skip zero terminated comment
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skipBytes(in, 2);
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of compressed message");
+        }
+        return b;
+    }
+
+    private static void skipBytes(InputStream in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readByte(in);
+        }
+    }
+
+    /**
+     * Inflates a gzip member or zlib stream with a pooled Inflater, and checks the gzip
+     * trailer when the stream is read to the end.
+     */
+    private static final class InflatingInputStream extends InflaterInputStream {
+
+        private final InflaterPool pool;
+        private final CRC32 crc;
+        private boolean released;
+        private boolean verified;
+        private int trailerPosition;
+
+        InflatingInputStream(InputStream in, InflaterPool pool, CRC32 crc) {
+            super(in, pool.acquire(), BUFFER_SIZE);
+            this.pool = pool;
+            this.crc = crc;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (released) {
+                throw new IOException("Stream closed");
+            }
+            int count = super.read(bytes, offset, length);
+            if (crc != null) {
+                if (count > 0) {
+                    crc.update(bytes, offset, count);
+                } else if (count == -1 && !verified) {
+                    verifyTrailer();
+                }
+            }
+            return count;
+        }
+
+        private void verifyTrailer() throws IOException {
+            verified = true;
+            // The first bytes of the trailer may already have been read into the input buffer
+            trailerPosition = len - inf.getRemaining();
+            long expectedCrc = readTrailerInt();
+            long expectedSize = readTrailerInt();
+            if (expectedCrc != crc.getValue()) {
+                throw new ZipException("Corrupt gzip trailer: CRC mismatch");
+            }
+            if (expectedSize != (inf.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt gzip trailer: size mismatch");
+            }
+        }
+
+        private long readTrailerInt() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = trailerPosition < len ? buf[trailerPosition++] & 0xff : readByte(in);
+                value |= (long) b << (8 * i);
+            }
+            return value;
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                pool.release(inf);
+            }
+        }
+
+        @Override
+        public void close() {
+            // The underlying stream belongs to the caller
+            release();
+        }
+    }
+
+    private static final class InflaterPool {
+
+        private final boolean nowrap;
+        private final ConcurrentLinkedQueue<Inflater> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        InflaterPool(boolean nowrap) {
+            this.nowrap = nowrap;
+        }
+
+        Inflater acquire() {
+            Inflater inflater = idle.poll();
+            if (inflater != null) {
+                idleCount.decrementAndGet();
+                return inflater;
+            }
+            return new Inflater(nowrap);
+        }
+
+        void release(Inflater inflater) {
+            inflater.reset();
+            if (idleCount.incrementAndGet() <= POOL_SIZE) {
+                idle.offer(inflater);
+            } else {
+                idleCount.decrementAndGet();
+                inflater.end();
+            }
+        }
+    }
+}
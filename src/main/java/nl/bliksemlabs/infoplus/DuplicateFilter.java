@@ -0,0 +1,294 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Skips messages whose content did not change since the last message about the same
+ * service, before they are parsed.
+ *
+ * The feed resends complete messages that are often byte-identical to the previous one,
+ * or only differ in their TimeStamp, ReisInformatieTijdstip and ReisInformatieProductID.
+ * Each payload is hashed in a single scan over its bytes, leaving out these fields, and
+ * compared with the hash of the last parsed message with the same key (RitId, RitDatum
+ * and station for DVS and DAS, TreinNummer and TreinDatum for RIT). Unchanged messages
+ * return an empty Optional without building the JAXB tree. Payloads without a key are
+ * always parsed.
+ *
+ * The hashes of the most recently seen keys are kept in a LinkedHashMap in access order,
+ * evicting the least recently used key once {@code maxEntries} is reached. The map is
+ * guarded by a lock that is held only for the lookup and the update, never while parsing.
+ *
+ * <pre>{@code
+ * DuplicateFilter filter = DuplicateFilter.builder(parser).maxEntries(100_000).build();
+ * filter.parseDVS(payload, 0, payload.length).ifPresent(this::handleDvs);
+ * }</pre>
+ */
+public final class DuplicateFilter {
+
+    /**
+     * Default number of keys kept: every departure and arrival of a day on the Dutch network.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 65_536;
+
+    private final InfoPlusParser parser;
+    private final int maxEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Long> hashes;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder fingerprintNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    private DuplicateFilter(Builder builder) {
+        this.parser = builder.parser;
+        this.maxEntries = builder.maxEntries;
+        this.hashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > DuplicateFilter.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param parser Parser for the messages that are not skipped
+     * @return A new builder that keeps {@link #DEFAULT_MAX_ENTRIES} keys by default
+     */
+    public static Builder builder(InfoPlusParser parser) {
+        return new Builder(parser);
+    }
+
+    /**
+     * Parse a RIT message unless it is unchanged.
+     * @param bytes Array containing the (possibly compressed) RIT message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed message, or empty if it is unchanged
+     * @throws InfoPlusParseException if the message cannot be read or parsed
+     */
+    public Optional<ReisInformatieProductRitInfoType> parseRIT(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return filter(MessageType.RIT, bytes, offset, length, parser::parseRIT);
+    }
+
+    /**
+     * Parse a DVS message unless it is unchanged.
+     * @param bytes Array containing the (possibly compressed) DVS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed message, or empty if it is unchanged
+     * @throws InfoPlusParseException if the message cannot be read or parsed
+     */
+    public Optional<ReisInformatieProductDVSType> parseDVS(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return filter(MessageType.DVS, bytes, offset, length, parser::parseDVS);
+    }
+
+    /**
+     * Parse a DAS message unless it is unchanged.
+     * @param bytes Array containing the (possibly compressed) DAS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed message, or empty if it is unchanged
+     * @throws InfoPlusParseException if the message cannot be read or parsed
+     */
+    public Optional<ReisInformatieProductDASType> parseDAS(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return filter(MessageType.DAS, bytes, offset, length, parser::parseDAS);
+    }
+
+    /**
+     * Parse a message of any supported type unless it is unchanged.
+     * @param bytes Array containing the (possibly compressed) message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed message, or empty if it is unchanged
+     * @throws InfoPlusParseException if the message cannot be read, its type is not supported or parsing fails
+     * @see InfoPlusParser#parse(InputStream)
+     */
+    public Optional<InfoPlusProduct> parse(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return filter("InfoPlus message", bytes, offset, length, parser::parse);
+    }
+
+    /**
+     * @return Counters and size of this filter
+     */
+    public Stats stats() {
+        lock.lock();
+        int size;
+        try {
+            size = hashes.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(messages.sum(), skipped.sum(), fingerprintNanos.sum(), parseNanos.sum(), size);
+    }
+
+    /**
+     * Forget all hashes and reset the counters.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            hashes.clear();
+        } finally {
+            lock.unlock();
+        }
+        messages.reset();
+        skipped.reset();
+        fingerprintNanos.reset();
+        parseNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateFilter" + stats();
+    }
+
+    private <T> Optional<T> filter(MessageType type, byte[] bytes, int offset, int length, PayloadParser<T> payloadParser)
+            throws InfoPlusParseException {
+        return filter(type + " message", bytes, offset, length, payloadParser);
+    }
+
+    private <T> Optional<T> filter(String description, byte[] bytes, int offset, int length,
+            PayloadParser<T> payloadParser) throws InfoPlusParseException {
+        messages.increment();
+        long start = System.nanoTime();
+
+        // Compressed payloads are hashed and parsed after inflating them once
+        byte[] message = bytes;
+        int messageOffset = offset;
+        int messageLength = length;
+        InputStream input = new ByteArrayInputStream(bytes, offset, length);
+        InputStream inflated = null;
+        try {
+            inflated = Decompression.decompress(input);
+            if (inflated != input) {
+                message = inflated.readAllBytes();
+                messageOffset = 0;
+                messageLength = message.length;
+            }
+        } catch (IOException e) {
+            throw new InfoPlusParseException("Failed to read " + description, e);
+        } finally {
+            if (inflated != null) {
+                Decompression.release(inflated);
+            }
+        }
+
+        MessageFingerprint fingerprint = MessageFingerprint.of(message, messageOffset, messageLength);
+        if (fingerprint != null && isUnchanged(fingerprint)) {
+            skipped.increment();
+            fingerprintNanos.add(System.nanoTime() - start);
+            return Optional.empty();
+        }
+        long parseStart = System.nanoTime();
+        fingerprintNanos.add(parseStart - start);
+
+        T result;
+        try {
+            result = payloadParser.parse(message, messageOffset, messageLength);
+        } finally {
+            parseNanos.add(System.nanoTime() - parseStart);
+        }
+        if (fingerprint != null) {
+            lock.lock();
+            try {
+                hashes.put(fingerprint.key(), fingerprint.hash());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    private boolean isUnchanged(MessageFingerprint fingerprint) {
+        lock.lock();
+        try {
+            Long previous = hashes.get(fingerprint.key());
+            return previous != null && previous == fingerprint.hash();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PayloadParser<T> {
+        T parse(byte[] bytes, int offset, int length) throws InfoPlusParseException;
+    }
+
+    /**
+     * Snapshot of the filter counters.
+     *
+     * @param messages Messages passed to the filter
+     * @param skipped Messages that were unchanged and not parsed
+     * @param fingerprintNanos Time spent inflating and hashing all messages
+     * @param parseNanos Time spent parsing the messages that were not skipped
+     * @param size Number of keys held
+     */
+    public record Stats(long messages, long skipped, long fingerprintNanos, long parseNanos, int size) {
+
+        /**
+         * @return Fraction of messages that were skipped, or 0 when there were none
+         */
+        public double skipRatio() {
+            return messages == 0 ? 0 : (double) skipped / messages;
+        }
+
+        /**
+         * @return Parse time avoided by skipping, estimated from the mean parse time of
+         *         the messages that were parsed
+         */
+        public long savedParseNanos() {
+            long parsed = messages - skipped;
+            return parsed == 0 ? 0 : Math.round((double) parseNanos / parsed * skipped);
+        }
+    }
+
+    /**
+     * Builder for {@link DuplicateFilter} instances.
+     */
+    public static final class Builder {
+
+        private final InfoPlusParser parser;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        private Builder(InfoPlusParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+        }
+
+        /**
+         * Set the maximum number of keys whose last hash is kept.
+         * @param maxEntries Maximum number of keys
+         * @return This builder
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @return A new duplicate filter with the configured settings
+         */
+        public DuplicateFilter build() {
+            return new DuplicateFilter(this);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.bliksemlabs.infoplus;
+
+/**
+ * A change between two successive versions of the same departure, as found by
+ * {@link DvsDiff}.
+ *
+ * Tracks and destinations are the actual value when present and the planned value
+ * otherwise. Every change carries the current version of the departure.
+ */
+public sealed interface DvsChange {
+
+    /**
+     * @return Current version of the departure
+     */
+    DvsDeparture departure();
+
+    /**
+     * The ExacteVertrekVertraging changed.
+     *
+     * @param departure Current version of the departure
+     * @param previousDelaySeconds Delay of the previous version in seconds
+     * @param delaySeconds Delay of the current version in seconds
+     */
+    record DelayChanged(DvsDeparture departure, int previousDelaySeconds, int delaySeconds) implements DvsChange {
+    }
+
+    /**
+     * The departure track changed.
+     *
+     * @param departure Current version of the departure
+     * @param previousTrack Track of the previous version, or null
+     * @param track Track of the current version, or null
+     */
+    record TrackChanged(DvsDeparture departure, String previousTrack, String track) implements DvsChange {
+    }
+
+    /**
+     * The TreinEindBestemming changed.
+     *
+     * @param departure Current version of the departure
+     * @param previousDestination StationCode of the previous destination, or null
+     * @param destination StationCode of the current destination, or null
+     */
+    record DestinationChanged(DvsDeparture departure, String previousDestination, String destination)
+            implements DvsChange {
+    }
+
+    /**
+     * The departure was cancelled, or a cancellation was withdrawn.
+     *
+     * @param departure Current version of the departure
+     * @param cancelled Whether the departure is now cancelled
+     */
+    record CancellationChanged(DvsDeparture departure, boolean cancelled) implements DvsChange {
+    }
+
+    /**
+     * The set of Wijziging codes of the Trein changed, other than by a cancellation alone.
+     *
+     * @param departure Current version of the departure
+     * @param addedLow Bits 0-63 of the codes that were added
+     * @param addedHigh Bits 64-127 of the codes that were added
+     * @param removedLow Bits 0-63 of the codes that were removed
+     * @param removedHigh Bits 64-127 of the codes that were removed
+     */
+    record WijzigingenChanged(DvsDeparture departure, long addedLow, long addedHigh, long removedLow, long removedHigh)
+            implements DvsChange {
+
+        /**
+         * @param code WijzigingType code
+         * @return Whether the code was added in the current version
+         */
+        public boolean added(int code) {
+            return contains(addedLow, addedHigh, code);
+        }
+
+        /**
+         * @param code WijzigingType code
+         * @return Whether the code was removed in the current version
+         */
+        public boolean removed(int code) {
+            return contains(removedLow, removedHigh, code);
+        }
+
+        private static boolean contains(long low, long high, int code) {
+            if (code < 0 || code >= 128) {
+                return false;
+            }
+            return ((code < 64 ? low : high) & (1L << (code & 63))) != 0;
+        }
+    }
+}
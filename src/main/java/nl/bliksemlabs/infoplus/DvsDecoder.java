@@ -0,0 +1,265 @@
+package nl.bliksemlabs.infoplus;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes a DVS message straight from the StAX event stream into a {@link DvsDeparture},
+ * without building the JAXB object tree.
+ *
+ * Only the elements that make up a DvsDeparture are read; everything else, including the
+ * Presentatie, VerkorteRoute and TreinVleugel subtrees, is passed over without creating
+ * objects for it.
+ */
+final class DvsDecoder {
+
+    private static final int STAAT_DEPTH = 3;
+    private static final int STAAT_CHILD_DEPTH = 4;
+    private static final int TREIN_CHILD_DEPTH = 5;
+    private static final int TREIN_GRANDCHILD_DEPTH = 6;
+
+    private long ritId;
+    private int ritDatum;
+    private String stationCode;
+    private int treinNummer;
+    private long plannedDeparture = DvsDeparture.NO_TIME;
+    private long actualDeparture = DvsDeparture.NO_TIME;
+    private int delaySeconds;
+    private String plannedTrack;
+    private String actualTrack;
+    private String plannedDestination;
+    private String actualDestination;
+    private long wijzigingenLow;
+    private long wijzigingenHigh;
+
+    private boolean hasRitId;
+    private boolean hasTrein;
+
+    // Element names of the current path below the DynamischeVertrekStaat
+    private String staatChild;
+    private String treinChild;
+    private String infoStatus;
+    private int spoorNummer;
+    private String spoorFase;
+
+    private DvsDecoder() {
+    }
+
+    /**
+     * Decode the departure of a DVS message.
+     * @param reader Reader positioned at the start of the document
+     * @return Departure of the message
+     * @throws XMLStreamException if the document is not a well-formed DVS message
+     */
+    static DvsDeparture decode(XMLStreamReader reader) throws XMLStreamException {
+        return new DvsDecoder().read(reader);
+    }
+
+    private DvsDeparture read(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        int event = reader.getEventType();
+        while (event != XMLStreamConstants.END_DOCUMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 1 && !MessageType.DVS.namespace().equals(reader.getNamespaceURI())) {
+                    throw new XMLStreamException("Not a DVS message: " + reader.getName(), reader.getLocation());
+                }
+                if (startElement(reader, depth)) {
+                    // The element text was read, which leaves the reader at the end tag
+                    depth--;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                endElement(depth);
+                depth--;
+            }
+            event = reader.next();
+        }
+        if (!hasRitId || !hasTrein || stationCode == null) {
+            throw new XMLStreamException("DVS message without RitId, RitStation or Trein");
+        }
+        return new DvsDeparture(
+            ritId,
+            ritDatum,
+            stationCode,
+            treinNummer,
+            plannedDeparture,
+            actualDeparture,
+            delaySeconds,
+            plannedTrack,
+            actualTrack,
+            plannedDestination,
+            actualDestination,
+            DvsDeparture.isCancelled(wijzigingenLow),
+            wijzigingenLow,
+            wijzigingenHigh
+        );
+    }
+
+    /**
+     * @return Whether the element text was consumed
+     */
+    private boolean startElement(XMLStreamReader reader, int depth) throws XMLStreamException {
+        if (depth == STAAT_DEPTH) {
+            staatChild = null;
+            return false;
+        }
+        if (depth == STAAT_CHILD_DEPTH) {
+            staatChild = reader.getLocalName();
+            switch (staatChild) {
+                case "RitId" -> {
+                    ritId = Long.parseLong(reader.getElementText().trim());
+                    hasRitId = true;
+                    return true;
+                }
+                case "RitDatum" -> {
+                    ritDatum = Math.toIntExact(LocalDate.parse(reader.getElementText().trim()).toEpochDay());
+                    return true;
+                }
+                case "Trein" -> hasTrein = true;
+                default -> {
+                }
+            }
+            return false;
+        }
+        if (depth == TREIN_CHILD_DEPTH) {
+            treinChild = reader.getLocalName();
+            if ("RitStation".equals(staatChild)) {
+                if ("StationCode".equals(treinChild)) {
+                    stationCode = reader.getElementText();
+                    return true;
+                }
+                return false;
+            }
+            if (!"Trein".equals(staatChild)) {
+                return false;
+            }
+            switch (treinChild) {
+                case "TreinNummer" -> {
+                    treinNummer = Integer.parseInt(reader.getElementText().trim());
+                    return true;
+                }
+                case "VertrekTijd" -> {
+                    String status = reader.getAttributeValue(null, "InfoStatus");
+                    long value = epochSecond(reader.getElementText().trim());
+                    if ("Gepland".equals(status) && plannedDeparture == DvsDeparture.NO_TIME) {
+                        plannedDeparture = value;
+                    } else if ("Actueel".equals(status) && actualDeparture == DvsDeparture.NO_TIME) {
+                        actualDeparture = value;
+                    }
+                    return true;
+                }
+                case "ExacteVertrekVertraging" -> {
+                    delaySeconds = Math.toIntExact(Duration.parse(reader.getElementText().trim()).getSeconds());
+                    return true;
+                }
+                case "TreinEindBestemming", "TreinVertrekSpoor" -> {
+                    infoStatus = reader.getAttributeValue(null, "InfoStatus");
+                    spoorNummer = 0;
+                    spoorFase = null;
+                }
+                default -> {
+                }
+            }
+            return false;
+        }
+        if (depth == TREIN_GRANDCHILD_DEPTH && "Trein".equals(staatChild)) {
+            String name = reader.getLocalName();
+            switch (treinChild) {
+                case "TreinEindBestemming" -> {
+                    if ("StationCode".equals(name)) {
+                        String code = reader.getElementText();
+                        if ("Gepland".equals(infoStatus) && plannedDestination == null) {
+                            plannedDestination = code;
+                        } else if ("Actueel".equals(infoStatus) && actualDestination == null) {
+                            actualDestination = code;
+                        }
+                        return true;
+                    }
+                }
+                case "TreinVertrekSpoor" -> {
+                    if ("SpoorNummer".equals(name)) {
+                        spoorNummer = Integer.parseInt(reader.getElementText().trim());
+                        return true;
+                    } else if ("SpoorFase".equals(name)) {
+                        spoorFase = reader.getElementText();
+                        return true;
+                    }
+                }
+                case "Wijziging" -> {
+                    if ("WijzigingType".equals(name)) {
+                        addWijziging(DvsDeparture.wijzigingCode(reader.getElementText()));
+                        return true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+
+    private void endElement(int depth) {
+        if (depth == TREIN_CHILD_DEPTH && "Trein".equals(staatChild) && "TreinVertrekSpoor".equals(treinChild)) {
+            if ("Gepland".equals(infoStatus) && plannedTrack == null) {
+                plannedTrack = DvsDeparture.track(spoorNummer, spoorFase);
+            } else if ("Actueel".equals(infoStatus) && actualTrack == null) {
+                actualTrack = DvsDeparture.track(spoorNummer, spoorFase);
+            }
+        }
+    }
+
+    private void addWijziging(int code) {
+        if (code >= 0 && code < 64) {
+            wijzigingenLow |= 1L << code;
+        } else if (code >= 64 && code < 128) {
+            wijzigingenHigh |= 1L << (code - 64);
+        }
+    }
+
+    /**
+     * Parse an xs:dateTime to UTC epoch seconds, with the same semantics as
+     * {@link UtcLocalDateTimeXmlAdapter}. The common {@code yyyy-MM-ddTHH:mm:ss[.fff]Z}
+     * form is decoded in place; other forms go through the adapter.
+     */
+    static long epochSecond(String value) {
+        int length = value.length();
+        if (length >= 20 && value.charAt(length - 1) == 'Z'
+                && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+                && value.charAt(13) == ':' && value.charAt(16) == ':'
+                && (length == 20 || value.charAt(19) == '.')) {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            int hour = digits(value, 11, 13);
+            int minute = digits(value, 14, 16);
+            int second = digits(value, 17, 19);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59
+                    && (length == 20 || digits(value, 20, length - 1) >= 0)) {
+                return LocalDate.of(year, month, day).toEpochDay() * 86_400L + hour * 3_600L + minute * 60L + second;
+            }
+        }
+        LocalDateTime dateTime = new UtcLocalDateTimeXmlAdapter().unmarshal(value);
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int digits(String value, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.AankomstOfVertrekTijdType;
+import ndov.cdm.trein.reisinformatie.data._4.DynamischeVertrekStaatType;
+import ndov.cdm.trein.reisinformatie.data._4.InfoStatus;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ndov.cdm.trein.reisinformatie.data._4.SpoorPlannedActueelType;
+import ndov.cdm.trein.reisinformatie.data._4.StationPlannedActueelType;
+import ndov.cdm.trein.reisinformatie.data._4.TreinType;
+import ndov.cdm.trein.reisinformatie.data._4.WijzigingType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Flat summary of a single departure in a DVS message, holding only the fields needed to
+ * maintain a departure board.
+ *
+ * Times are UTC epoch seconds, or {@link #NO_TIME} when absent. Tracks combine the
+ * SpoorNummer and SpoorFase (e.g. {@code 5b}). Wijziging codes of the Trein are kept as a
+ * bitmask, see {@link #hasWijziging(int)}.
+ *
+ * @param ritId RitId of the DynamischeVertrekStaat
+ * @param ritDatum RitDatum as epoch day
+ * @param stationCode StationCode of the RitStation
+ * @param treinNummer TreinNummer of the Trein
+ * @param plannedDeparture Planned VertrekTijd
+ * @param actualDeparture Actual VertrekTijd
+ * @param delaySeconds ExacteVertrekVertraging in seconds, 0 when absent
+ * @param plannedTrack Planned TreinVertrekSpoor, or null
+ * @param actualTrack Actual TreinVertrekSpoor, or null
+ * @param plannedDestination StationCode of the planned TreinEindBestemming, or null
+ * @param actualDestination StationCode of the actual TreinEindBestemming, or null
+ * @param cancelled Whether the departure is cancelled (WijzigingType {@value #VERTREK_VERVALLEN})
+ * @param wijzigingenLow Bits 0-63 of the Wijziging codes
+ * @param wijzigingenHigh Bits 64-127 of the Wijziging codes
+ */
+public record DvsDeparture(
+    long ritId,
+    int ritDatum,
+    String stationCode,
+    int treinNummer,
+    long plannedDeparture,
+    long actualDeparture,
+    int delaySeconds,
+    String plannedTrack,
+    String actualTrack,
+    String plannedDestination,
+    String actualDestination,
+    boolean cancelled,
+    long wijzigingenLow,
+    long wijzigingenHigh
+) {
+
+    /**
+     * Value of a departure time that is not present in the message.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * WijzigingType code of a cancelled departure.
+     */
+    public static final int VERTREK_VERVALLEN = 32;
+
+    /**
+     * @return RitDatum as LocalDate
+     */
+    public LocalDate ritDate() {
+        return LocalDate.ofEpochDay(ritDatum);
+    }
+
+    /**
+     * @param code WijzigingType code
+     * @return Whether the Trein carries a Wijziging with this code
+     */
+    public boolean hasWijziging(int code) {
+        if (code < 0 || code >= 128) {
+            return false;
+        }
+        long bits = code < 64 ? wijzigingenLow : wijzigingenHigh;
+        return (bits & (1L << (code & 63))) != 0;
+    }
+
+    /**
+     * Summarize a DVS message that was unmarshalled with JAXB. The result equals that of
+     * the fast decoder for the same message.
+     * @param product Parsed DVS message
+     * @return Departure of the message
+     */
+    public static DvsDeparture from(ReisInformatieProductDVSType product) {
+        DynamischeVertrekStaatType staat = product.getDynamischeVertrekStaat();
+        TreinType trein = staat.getTrein();
+
+        long plannedDeparture = NO_TIME;
+        long actualDeparture = NO_TIME;
+        for (AankomstOfVertrekTijdType tijd : trein.getVertrekTijd()) {
+            long value = epochSecond(tijd.getValue());
+            if (tijd.getInfoStatus() == InfoStatus.GEPLAND && plannedDeparture == NO_TIME) {
+                plannedDeparture = value;
+            } else if (tijd.getInfoStatus() == InfoStatus.ACTUEEL && actualDeparture == NO_TIME) {
+                actualDeparture = value;
+            }
+        }
+
+        long wijzigingenLow = 0;
+        long wijzigingenHigh = 0;
+        for (WijzigingType wijziging : trein.getWijziging()) {
+            int code = wijzigingCode(wijziging.getWijzigingType());
+            if (code >= 0 && code < 64) {
+                wijzigingenLow |= 1L << code;
+            } else if (code >= 64 && code < 128) {
+                wijzigingenHigh |= 1L << (code - 64);
+            }
+        }
+
+        return new DvsDeparture(
+            staat.getRitId().longValueExact(),
+            Math.toIntExact(staat.getRitDatum().toEpochDay()),
+            staat.getRitStation().getStationCode(),
+            trein.getTreinNummer(),
+            plannedDeparture,
+            actualDeparture,
+            trein.getExacteVertrekVertraging() == null ? 0 : Math.toIntExact(trein.getExacteVertrekVertraging().getSeconds()),
+            track(trein.getTreinVertrekSpoor(), InfoStatus.GEPLAND),
+            track(trein.getTreinVertrekSpoor(), InfoStatus.ACTUEEL),
+            destination(trein.getTreinEindBestemming(), InfoStatus.GEPLAND),
+            destination(trein.getTreinEindBestemming(), InfoStatus.ACTUEEL),
+            isCancelled(wijzigingenLow),
+            wijzigingenLow,
+            wijzigingenHigh
+        );
+    }
+
+    static boolean isCancelled(long wijzigingenLow) {
+        return (wijzigingenLow & (1L << VERTREK_VERVALLEN)) != 0;
+    }
+
+    static int wijzigingCode(String code) {
+        try {
+            return code == null ? -1 : Integer.parseInt(code.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static String track(int spoorNummer, String spoorFase) {
+        return spoorFase == null ? Integer.toString(spoorNummer) : spoorNummer + spoorFase;
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String track(List<SpoorPlannedActueelType> sporen, InfoStatus status) {
+        for (SpoorPlannedActueelType spoor : sporen) {
+            if (spoor.getInfoStatus() == status) {
+                return track(spoor.getSpoorNummer(), spoor.getSpoorFase());
+            }
+        }
+        return null;
+    }
+
+    private static String destination(List<StationPlannedActueelType> stations, InfoStatus status) {
+        for (StationPlannedActueelType station : stations) {
+            if (station.getInfoStatus() == status) {
+                return station.getStationCode();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Finds the changes between two successive versions of the same departure.
+ *
+ * The feed resends the complete DVS message for every change. Both versions are first
+ * reduced to a {@link DvsDeparture}, after which the comparison is a fixed number of
+ * field compares: delay, track, destination, cancellation and Wijziging codes. When the
+ * departures come from {@link InfoPlusParser#decodeDVS(java.io.InputStream)} the JAXB
+ * tree is never built at all.
+ *
+ * <pre>{@code
+ * DvsDeparture current = parser.decodeDVS(inputStream);
+ * DvsDeparture previous = latest.put(new BoardKey(current.ritId(), current.ritDate(), current.stationCode()), current);
+ * DvsDiff.diff(previous, current, change -> {
+ *     switch (change) {
+ *         case DvsChange.TrackChanged track -> notifyTrack(track);
+ *         case DvsChange.CancellationChanged cancellation -> notifyCancellation(cancellation);
+ *         default -> { }
+ *     }
+ * });
+ * }</pre>
+ */
+public final class DvsDiff {
+
+    private static final long CANCELLED = 1L << DvsDeparture.VERTREK_VERVALLEN;
+
+    private DvsDiff() {
+    }
+
+    /**
+     * @param previous Previous version of the departure, or null if there is none
+     * @param current Current version of the departure
+     * @return Changes from the previous to the current version, empty without a previous version
+     * @throws IllegalArgumentException if the versions are of different departures
+     */
+    public static List<DvsChange> diff(DvsDeparture previous, DvsDeparture current) {
+        List<DvsChange> changes = new ArrayList<>(2);
+        diff(previous, current, changes::add);
+        return changes;
+    }
+
+    /**
+     * Summarize two unmarshalled DVS messages and find their changes.
+     * @param previous Previous version of the message, or null if there is none
+     * @param current Current version of the message
+     * @return Changes from the previous to the current version, empty without a previous version
+     * @throws IllegalArgumentException if the messages are of different departures
+     * @see DvsDeparture#from(ReisInformatieProductDVSType)
+     */
+    public static List<DvsChange> diff(ReisInformatieProductDVSType previous, ReisInformatieProductDVSType current) {
+        return diff(previous == null ? null : DvsDeparture.from(previous), DvsDeparture.from(current));
+    }
+
+    /**
+     * Pass the changes between two versions to a consumer, without collecting them.
+     * @param previous Previous version of the departure, or null if there is none
+     * @param current Current version of the departure
+     * @param changes Receives every change
+     * @return Number of changes
+     * @throws IllegalArgumentException if the versions are of different departures
+     */
+    public static int diff(DvsDeparture previous, DvsDeparture current, Consumer<? super DvsChange> changes) {
+        Objects.requireNonNull(current, "current");
+        if (previous == null) {
+            return 0;
+        }
+        if (previous.ritId() != current.ritId()
+                || previous.ritDatum() != current.ritDatum()
+                || !Objects.equals(previous.stationCode(), current.stationCode())) {
+            throw new IllegalArgumentException("Versions of different departures: "
+                + previous.ritId() + "/" + previous.stationCode() + " and " + current.ritId() + "/" + current.stationCode());
+        }
+
+        int count = 0;
+        if (previous.delaySeconds() != current.delaySeconds()) {
+            changes.accept(new DvsChange.DelayChanged(current, previous.delaySeconds(), current.delaySeconds()));
+            count++;
+        }
+
+        String previousTrack = effective(previous.actualTrack(), previous.plannedTrack());
+        String track = effective(current.actualTrack(), current.plannedTrack());
+        if (!Objects.equals(previousTrack, track)) {
+            changes.accept(new DvsChange.TrackChanged(current, previousTrack, track));
+            count++;
+        }
+
+        String previousDestination = effective(previous.actualDestination(), previous.plannedDestination());
+        String destination = effective(current.actualDestination(), current.plannedDestination());
+        if (!Objects.equals(previousDestination, destination)) {
+            changes.accept(new DvsChange.DestinationChanged(current, previousDestination, destination));
+            count++;
+        }
+
+        if (previous.cancelled() != current.cancelled()) {
+            changes.accept(new DvsChange.CancellationChanged(current, current.cancelled()));
+            count++;
+        }
+
+        // The cancellation code is reported on its own above
+        long previousLow = previous.wijzigingenLow() & ~CANCELLED;
+        long low = current.wijzigingenLow() & ~CANCELLED;
+        long previousHigh = previous.wijzigingenHigh();
+        long high = current.wijzigingenHigh();
+        if (previousLow != low || previousHigh != high) {
+            changes.accept(new DvsChange.WijzigingenChanged(current,
+                low & ~previousLow, high & ~previousHigh, previousLow & ~low, previousHigh & ~high));
+            count++;
+        }
+        return count;
+    }
+
+    private static String effective(String actual, String planned) {
+        return actual != null ? actual : planned;
+    }
+}
@@ -0,0 +1,416 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of an archive recorded by {@link InfoPlusArchiveWriter}, for replaying
+ * a day of messages without reading them through a stream.
+ *
+ * The file is memory-mapped in regions of at most 2 GB that never split a message, and
+ * the headers of all messages are indexed when it is opened. The payload of a record is
+ * a view of the mapped file, so it is parsed without copying it, for example with
+ * {@link ArchiveRecord#parse(InfoPlusParser)}. Records are found by position, by the time
+ * they were recorded and by RitId. A message that was only partially written when
+ * recording stopped is ignored.
+ *
+ * The archive is immutable once opened and safe to use from multiple threads.
+ *
+ * <pre>{@code
+ * try (InfoPlusArchive archive = InfoPlusArchive.open(Path.of("infoplus-2024-05-01.ipa"))) {
+ *     for (ArchiveRecord record : archive.between(from, to)) {
+ *         InfoPlusProduct product = record.parse(parser);
+ *     }
+ * }
+ * }</pre>
+ */
+public final class InfoPlusArchive implements Closeable {
+
+    /**
+     * Start of every archive file: "IPA" followed by the format version.
+     */
+    static final byte[] MAGIC = {'I', 'P', 'A', 1};
+
+    /**
+     * Maximum length in bytes of the UTF-8 encoded RitId of a record.
+     */
+    static final int MAX_KEY_LENGTH = 0xFFFF;
+
+    /**
+     * Size of the fixed part of a record header: payload length, type, time and RitId length.
+     */
+    static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES + Short.BYTES;
+
+    private static final int MAX_REGION_SIZE = Integer.MAX_VALUE;
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final int size;
+    private final int[] regionOf;
+    private final int[] offsetOf;
+    private final int[] lengthOf;
+    private final byte[] typeOf;
+    private final long[] timeOf;
+    private final String[] ritIdOf;
+    private final Map<String, int[]> byRitId;
+    private final int[] byTime;
+    private final List<ArchiveRecord> records = new RecordList(null);
+
+    private InfoPlusArchive(FileChannel channel, Index index) {
+        this.channel = channel;
+        this.regions = index.regions;
+        this.size = index.size;
+        this.regionOf = index.regionOf;
+        this.offsetOf = index.offsetOf;
+        this.lengthOf = index.lengthOf;
+        this.typeOf = index.typeOf;
+        this.timeOf = index.timeOf;
+        this.ritIdOf = index.ritIdOf;
+        this.byRitId = index.byRitId;
+        this.byTime = index.byTime();
+    }
+
+    /**
+     * Map an archive and index its messages.
+     * @param path Archive file
+     * @return The opened archive
+     * @throws IOException if the file cannot be read or is not a valid archive
+     */
+    public static InfoPlusArchive open(Path path) throws IOException {
+        return open(path, MAX_REGION_SIZE);
+    }
+
+    /**
+     * @param regionSize Maximum size of a mapped region, smaller than 2 GB in tests only
+     */
+    static InfoPlusArchive open(Path path, int regionSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new InfoPlusArchive(channel, Index.build(channel, regionSize));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Find where the next record of an archive is to be written, reading only the record
+     * headers.
+     * @param channel Channel of the archive file
+     * @return Position after the last complete record
+     * @throws IOException if the file cannot be read or is not a valid archive
+     */
+    static long end(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        if (fileSize < MAGIC.length || !Arrays.equals(MAGIC, read(channel, magic, 0).array())) {
+            throw new IOException("Not an InfoPlus archive");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = MAGIC.length;
+        while (fileSize - position >= HEADER_SIZE) {
+            long recordSize = recordSize(read(channel, header.clear(), position), 0, position);
+            if (position + recordSize > fileSize) {
+                // Message only partially written when recording stopped
+                break;
+            }
+            position += recordSize;
+        }
+        return position;
+    }
+
+    /**
+     * @return Number of messages in the archive
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index Position of the message, starting at 0
+     * @return The message at this position
+     * @throws IndexOutOfBoundsException if there is no message at this position
+     */
+    public ArchiveRecord get(int index) {
+        Objects.checkIndex(index, size);
+        ByteBuffer payload = regions[regionOf[index]].slice(offsetOf[index], lengthOf[index]).asReadOnlyBuffer();
+        return new ArchiveRecord(index, TYPES[typeOf[index]], Instant.ofEpochMilli(timeOf[index]), ritIdOf[index], payload);
+    }
+
+    /**
+     * @return All messages in the order in which they were recorded
+     */
+    public List<ArchiveRecord> records() {
+        return records;
+    }
+
+    /**
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @return Messages recorded in the range, ordered by time
+     */
+    public List<ArchiveRecord> between(Instant from, Instant to) {
+        int start = firstAtOrAfter(from.toEpochMilli());
+        int end = Math.max(start, firstAtOrAfter(to.toEpochMilli()));
+        if (byTime == null) {
+            return records.subList(start, end);
+        }
+        return new RecordList(Arrays.copyOfRange(byTime, start, end));
+    }
+
+    /**
+     * @param ritId RitId of DVS and DAS messages, or TreinNummer of RIT messages
+     * @return Messages about this service, in the order in which they were recorded
+     */
+    public List<ArchiveRecord> byRitId(String ritId) {
+        int[] indexes = byRitId.get(ritId);
+        return indexes == null ? List.of() : new RecordList(indexes);
+    }
+
+    /**
+     * Close the file. Records and payloads obtained before remain readable until they are
+     * no longer referenced, as a mapping is only released by the garbage collector.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "InfoPlusArchive[size=" + size + ", regions=" + regions.length + ", ritIds=" + byRitId.size() + "]";
+    }
+
+    /**
+     * @return Position in time order of the first message recorded at or after the time
+     */
+    private int firstAtOrAfter(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long value = timeOf[byTime == null ? middle : byTime[middle]];
+            if (value < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Validate the header of a record.
+     * @param buffer Buffer containing the header
+     * @param offset Offset of the header in the buffer
+     * @param position Position of the record in the file, for error messages
+     * @return Size of the record including its header
+     * @throws IOException if the header is invalid
+     */
+    private static long recordSize(ByteBuffer buffer, int offset, long position) throws IOException {
+        int length = buffer.getInt(offset);
+        int type = buffer.get(offset + Integer.BYTES);
+        int keyLength = Short.toUnsignedInt(buffer.getShort(offset + Integer.BYTES + Byte.BYTES + Long.BYTES));
+        if (length < 0 || type < 0 || type >= TYPES.length) {
+            throw new IOException("Invalid record header at offset " + position);
+        }
+        return (long) HEADER_SIZE + keyLength + length;
+    }
+
+    private static ByteBuffer read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of archive at offset " + position);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Messages at the given positions, or all messages if there are no positions.
+     */
+    private final class RecordList extends AbstractList<ArchiveRecord> implements RandomAccess {
+
+        private final int[] indexes;
+
+        RecordList(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public ArchiveRecord get(int index) {
+            if (indexes == null) {
+                return InfoPlusArchive.this.get(index);
+            }
+            return InfoPlusArchive.this.get(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return indexes == null ? size : indexes.length;
+        }
+    }
+
+    /**
+     * Record headers collected in a single pass over the file.
+     */
+    private static final class Index {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private MappedByteBuffer[] regions = new MappedByteBuffer[0];
+        private int size;
+        private int[] regionOf = new int[INITIAL_CAPACITY];
+        private int[] offsetOf = new int[INITIAL_CAPACITY];
+        private int[] lengthOf = new int[INITIAL_CAPACITY];
+        private byte[] typeOf = new byte[INITIAL_CAPACITY];
+        private long[] timeOf = new long[INITIAL_CAPACITY];
+        private String[] ritIdOf = new String[INITIAL_CAPACITY];
+        private final Map<String, Postings> postings = new HashMap<>();
+        private Map<String, int[]> byRitId;
+        private boolean ordered = true;
+
+        static Index build(FileChannel channel, int regionSize) throws IOException {
+            long fileSize = channel.size();
+            if (fileSize < MAGIC.length) {
+                throw new IOException("Not an InfoPlus archive");
+            }
+            Index index = new Index();
+            long regionStart = 0;
+            MappedByteBuffer region = index.map(channel, regionStart, fileSize, regionSize);
+            byte[] magic = new byte[MAGIC.length];
+            region.get(0, magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new IOException("Not an InfoPlus archive");
+            }
+
+            long position = MAGIC.length;
+            while (fileSize - position >= HEADER_SIZE) {
+                if (position + HEADER_SIZE > regionStart + region.capacity()) {
+                    regionStart = position;
+                    region = index.map(channel, regionStart, fileSize, regionSize);
+                }
+                int offset = (int) (position - regionStart);
+                long recordSize = recordSize(region, offset, position);
+                int length = region.getInt(offset);
+                int type = region.get(offset + Integer.BYTES);
+                long time = region.getLong(offset + Integer.BYTES + Byte.BYTES);
+                int keyLength = Short.toUnsignedInt(region.getShort(offset + Integer.BYTES + Byte.BYTES + Long.BYTES));
+                if (position + recordSize > fileSize) {
+                    // Message only partially written when recording stopped
+                    break;
+                }
+                if (recordSize > regionSize) {
+                    throw new IOException("Record at offset " + position + " is larger than a region");
+                }
+                if (position + recordSize > regionStart + region.capacity()) {
+                    regionStart = position;
+                    region = index.map(channel, regionStart, fileSize, regionSize);
+                    offset = 0;
+                }
+                byte[] key = new byte[keyLength];
+                region.get(offset + HEADER_SIZE, key);
+                index.add(index.regions.length - 1, offset + HEADER_SIZE + keyLength, length, (byte) type, time,
+                    new String(key, StandardCharsets.UTF_8));
+                position += recordSize;
+            }
+            index.byRitId = new HashMap<>(index.postings.size() * 2);
+            for (Postings postings : index.postings.values()) {
+                index.byRitId.put(postings.ritId, Arrays.copyOf(postings.indexes, postings.count));
+            }
+            return index;
+        }
+
+        private MappedByteBuffer map(FileChannel channel, long start, long fileSize, int regionSize) throws IOException {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, fileSize - start));
+            regions = Arrays.copyOf(regions, regions.length + 1);
+            regions[regions.length - 1] = region;
+            return region;
+        }
+
+        private void add(int region, int offset, int length, byte type, long time, String ritId) {
+            if (size == regionOf.length) {
+                int capacity = size * 2;
+                regionOf = Arrays.copyOf(regionOf, capacity);
+                offsetOf = Arrays.copyOf(offsetOf, capacity);
+                lengthOf = Arrays.copyOf(lengthOf, capacity);
+                typeOf = Arrays.copyOf(typeOf, capacity);
+                timeOf = Arrays.copyOf(timeOf, capacity);
+                ritIdOf = Arrays.copyOf(ritIdOf, capacity);
+            }
+            if (size > 0 && time < timeOf[size - 1]) {
+                ordered = false;
+            }
+            // Share a single String per RitId between all of its records
+            if (!ritId.isEmpty()) {
+                Postings list = postings.computeIfAbsent(ritId, Postings::new);
+                list.add(size);
+                ritId = list.ritId;
+            }
+            regionOf[size] = region;
+            offsetOf[size] = offset;
+            lengthOf[size] = length;
+            typeOf[size] = type;
+            timeOf[size] = time;
+            ritIdOf[size] = ritId;
+            size++;
+        }
+
+        /**
+         * @return Positions of all records ordered by time, or null if they were recorded in order
+         */
+        int[] byTime() {
+            if (ordered) {
+                return null;
+            }
+            Integer[] sorted = new Integer[size];
+            for (int index = 0; index < size; index++) {
+                sorted[index] = index;
+            }
+            Arrays.sort(sorted, (a, b) -> Long.compare(timeOf[a], timeOf[b]));
+            int[] positions = new int[size];
+            for (int index = 0; index < size; index++) {
+                positions[index] = sorted[index];
+            }
+            return positions;
+        }
+    }
+
+    /**
+     * Positions of the records of a single RitId, while indexing.
+     */
+    private static final class Postings {
+
+        private final String ritId;
+        private int[] indexes = new int[4];
+        private int count;
+
+        Postings(String ritId) {
+            this.ritId = ritId;
+        }
+
+        void add(int index) {
+            if (count == indexes.length) {
+                indexes = Arrays.copyOf(indexes, count * 2);
+            }
+            indexes[count++] = index;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records raw InfoPlus messages into an archive file for {@link InfoPlusArchive}.
+ *
+ * Every message is stored as it was received, possibly compressed, behind a small header
+ * with its type, the time it was recorded and its RitId. The type and RitId are found by
+ * scanning the message bytes, without parsing it. Appending to an existing archive
+ * continues after its last complete message; a message that was only partially written
+ * when recording stopped is discarded.
+ *
+ * The writer is thread-safe; messages are written in the order in which they are appended.
+ *
+ * <pre>{@code
+ * try (InfoPlusArchiveWriter archive = InfoPlusArchiveWriter.open(Path.of("infoplus-2024-05-01.ipa"))) {
+ *     archive.append(payload, 0, payload.length);
+ * }
+ * }</pre>
+ */
+public final class InfoPlusArchiveWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private InfoPlusArchiveWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Open an archive for appending, creating it if it does not exist.
+     * @param path Archive file
+     * @return Writer appending to the archive
+     * @throws IOException if the file cannot be opened or is not an archive
+     */
+    public static InfoPlusArchiveWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean exists;
+        try {
+            exists = channel.size() > 0;
+            if (exists) {
+                long end = InfoPlusArchive.end(channel);
+                if (end < channel.size()) {
+                    // Anything appended after a partial message would not be readable
+                    channel.truncate(end);
+                }
+                channel.position(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        if (!exists) {
+            out.write(InfoPlusArchive.MAGIC);
+        }
+        return new InfoPlusArchiveWriter(out);
+    }
+
+    /**
+     * Append a message, recorded at the current time.
+     * @param bytes Array containing the (possibly compressed) message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @throws IOException if the message cannot be read or written
+     * @throws IllegalArgumentException if the message is not a RIT, DVS or DAS message
+     */
+    public void append(byte[] bytes, int offset, int length) throws IOException {
+        append(Instant.now(), bytes, offset, length);
+    }
+
+    /**
+     * Append a message, recorded at the given time.
+     * @param time Time at which the message was received
+     * @param bytes Array containing the (possibly compressed) message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @throws IOException if the message cannot be read or written
+     * @throws IllegalArgumentException if the message is not a RIT, DVS or DAS message
+     */
+    public void append(Instant time, byte[] bytes, int offset, int length) throws IOException {
+        Objects.requireNonNull(time, "time");
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+
+        // Compressed messages are inflated to find their type and RitId, but stored as they are
+        byte[] message = bytes;
+        int messageOffset = offset;
+        int messageLength = length;
+        InputStream input = new ByteArrayInputStream(bytes, offset, length);
+        InputStream inflated = Decompression.decompress(input);
+        try {
+            if (inflated != input) {
+                message = inflated.readAllBytes();
+                messageOffset = 0;
+                messageLength = message.length;
+            }
+        } finally {
+            Decompression.release(inflated);
+        }
+        MessageType type = MessageTypeDetector.detect(new ByteArrayInputStream(message, messageOffset, messageLength));
+        if (type == null) {
+            throw new IllegalArgumentException("Not a RIT, DVS or DAS message");
+        }
+        MessageFingerprint fingerprint = MessageFingerprint.of(message, messageOffset, messageLength);
+        byte[] ritId = fingerprint == null ? new byte[0] : fingerprint.ritId().getBytes(StandardCharsets.UTF_8);
+        if (ritId.length > InfoPlusArchive.MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("RitId longer than " + InfoPlusArchive.MAX_KEY_LENGTH + " bytes");
+        }
+
+        lock.lock();
+        try {
+            out.writeInt(length);
+            out.writeByte(type.ordinal());
+            out.writeLong(time.toEpochMilli());
+            out.writeShort(ritId.length);
+            out.write(ritId);
+            out.write(bytes, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write buffered messages to the file.
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            out.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write buffered messages and close the file.
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            out.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
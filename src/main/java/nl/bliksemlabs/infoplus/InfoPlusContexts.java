@@ -0,0 +1,82 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the lazily created JAXBContexts shared by all parsers.
+ *
+ * DVS and DAS share a single context: both are built on the
+ * {@code ndov.cdm.trein.reisinformatie.data._4} classes, which would otherwise be
+ * introspected and kept in metaspace twice.
+ *
+ * Creation is guarded by a ReentrantLock rather than a synchronized block, so virtual
+ * threads waiting for a context to be built do not pin their carrier thread.
+ */
+final class InfoPlusContexts {
+
+    private static final LazyContext RIT = new LazyContext(
+        ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn.class
+    );
+    private static final LazyContext NDOV = new LazyContext(
+        ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn.class,
+        ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn.class
+    );
+
+    private InfoPlusContexts() {
+    }
+
+    static JAXBContext rit() throws JAXBException {
+        return RIT.get();
+    }
+
+    static JAXBContext dvs() throws JAXBException {
+        return NDOV.get();
+    }
+
+    static JAXBContext das() throws JAXBException {
+        return NDOV.get();
+    }
+
+    /**
+     * @return Time it took to create the context of the type, or null if it has not been created
+     */
+    static Duration creationTime(MessageType type) {
+        long nanos = (type == MessageType.RIT ? RIT : NDOV).creationNanos;
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    private static final class LazyContext {
+
+        private final Class<?>[] classes;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile JAXBContext context;
+        private volatile long creationNanos = -1;
+
+        LazyContext(Class<?>... classes) {
+            this.classes = classes;
+        }
+
+        JAXBContext get() throws JAXBException {
+            JAXBContext result = context;
+            if (result == null) {
+                lock.lock();
+                try {
+                    result = context;
+                    if (result == null) {
+                        long start = System.nanoTime();
+                        result = JAXBContext.newInstance(classes);
+                        creationNanos = System.nanoTime() - start;
+                        context = result;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package nl.bliksemlabs.infoplus;
 
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
 import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
 import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
 import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Utility class for marshalling and unmarshalling InfoPlus messages.
@@ -18,50 +16,28 @@ import java.nio.charset.StandardCharsets;
  * - DVS (Dynamische Vertrek Staat): Dynamic departure board messages
  * - DAS (Dynamische Aankomst Staat): Dynamic arrival board messages
  *
+ * The static methods use a shared {@link InfoPlusParser} and {@link InfoPlusWriter} with
+ * default settings; create your own through {@link InfoPlusParser#builder()} and
+ * {@link InfoPlusWriter#builder()} to configure them.
  */
 public class InfoPlusMessage {
 
-    private static volatile JAXBContext ritContext;
-    private static volatile JAXBContext dvsContext;
-    private static volatile JAXBContext dasContext;
-
-    private static JAXBContext getRitContext() throws JAXBException {
-        if (ritContext == null) {
-            synchronized (InfoPlusMessage.class) {
-                if (ritContext == null) {
-                    ritContext = JAXBContext.newInstance(
-                        ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn.class
-                    );
-                }
-            }
-        }
-        return ritContext;
-    }
-
-    private static JAXBContext getDvsContext() throws JAXBException {
-        if (dvsContext == null) {
-            synchronized (InfoPlusMessage.class) {
-                if (dvsContext == null) {
-                    dvsContext = JAXBContext.newInstance(
-                        ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn.class
-                    );
-                }
-            }
-        }
-        return dvsContext;
-    }
-
-    private static JAXBContext getDasContext() throws JAXBException {
-        if (dasContext == null) {
-            synchronized (InfoPlusMessage.class) {
-                if (dasContext == null) {
-                    dasContext = JAXBContext.newInstance(
-                        ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn.class
-                    );
-                }
-            }
-        }
-        return dasContext;
+    private static final InfoPlusParser PARSER = InfoPlusParser.builder().build();
+    private static final InfoPlusWriter WRITER = InfoPlusWriter.builder().build();
+
+    /**
+     * Number of times each sample message is parsed by {@link #warmUp()}.
+     */
+    public static final int WARM_UP_ITERATIONS = 100;
+
+    /**
+     * Create the JAXBContexts of all message types concurrently and prime the shared parser,
+     * so the first message after startup does not take hundreds of milliseconds.
+     * @return Timing of the warm-up
+     * @throws InfoPlusParseException if warming up fails
+     */
+    public static WarmUpReport warmUp() throws InfoPlusParseException {
+        return PARSER.warmUp(WARM_UP_ITERATIONS);
     }
 
     /**
@@ -72,24 +48,54 @@ public class InfoPlusMessage {
      */
     public static ReisInformatieProductRitInfoType parseRIT(String xml)
             throws InfoPlusParseException {
-        return parseRIT(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        return PARSER.parseRIT(xml);
     }
 
     /**
      * Parse a RIT message from an InputStream.
-     * @param inputStream InputStream containing the RIT message
+     * @param inputStream InputStream containing the (possibly compressed) RIT message
      * @return Parsed RIT message
      * @throws InfoPlusParseException if parsing fails
      */
     public static ReisInformatieProductRitInfoType parseRIT(InputStream inputStream)
             throws InfoPlusParseException {
-        try {
-            Unmarshaller unmarshaller = getRitContext().createUnmarshaller();
-            Object result = unmarshaller.unmarshal(inputStream);
-            return ((ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn) result).getReisInformatieProductRitInfo();
-        } catch (JAXBException e) {
-            throw new InfoPlusParseException("Failed to parse RIT message", e);
-        }
+        return PARSER.parseRIT(inputStream);
+    }
+
+    /**
+     * Parse a RIT message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) RIT message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductRitInfoType parseRIT(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return PARSER.parseRIT(bytes, offset, length);
+    }
+
+    /**
+     * Parse a RIT message from the remaining bytes of a ByteBuffer, without copying it.
+     * @param buffer Buffer containing the (possibly compressed) RIT message
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductRitInfoType parseRIT(ByteBuffer buffer)
+            throws InfoPlusParseException {
+        return PARSER.parseRIT(buffer);
+    }
+
+    /**
+     * Stream the stations of a RIT message to a visitor, one LogischeRitDeelStation at a
+     * time, instead of building the whole message.
+     * @param inputStream InputStream containing the (possibly compressed) RIT message
+     * @param visitor Visitor invoked for every station, in document order
+     * @throws InfoPlusParseException if parsing fails, or the visitor throws a RuntimeException
+     */
+    public static void streamRIT(InputStream inputStream, RitStationVisitor visitor)
+            throws InfoPlusParseException {
+        PARSER.streamRIT(inputStream, visitor);
     }
 
     /**
@@ -100,24 +106,54 @@ public class InfoPlusMessage {
      */
     public static ReisInformatieProductDVSType parseDVS(String xml)
             throws InfoPlusParseException {
-        return parseDVS(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        return PARSER.parseDVS(xml);
     }
 
     /**
      * Parse a DVS message from an InputStream.
-     * @param inputStream InputStream containing the DVS message
+     * @param inputStream InputStream containing the (possibly compressed) DVS message
      * @return Parsed DVS message
      * @throws InfoPlusParseException if parsing fails
      */
     public static ReisInformatieProductDVSType parseDVS(InputStream inputStream)
             throws InfoPlusParseException {
-        try {
-            Unmarshaller unmarshaller = getDvsContext().createUnmarshaller();
-            Object result = unmarshaller.unmarshal(inputStream);
-            return ((ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn) result).getReisInformatieProductDVS();
-        } catch (JAXBException e) {
-            throw new InfoPlusParseException("Failed to parse DVS message", e);
-        }
+        return PARSER.parseDVS(inputStream);
+    }
+
+    /**
+     * Parse a DVS message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) DVS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductDVSType parseDVS(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return PARSER.parseDVS(bytes, offset, length);
+    }
+
+    /**
+     * Parse a DVS message from the remaining bytes of a ByteBuffer, without copying it.
+     * @param buffer Buffer containing the (possibly compressed) DVS message
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductDVSType parseDVS(ByteBuffer buffer)
+            throws InfoPlusParseException {
+        return PARSER.parseDVS(buffer);
+    }
+
+    /**
+     * Decode only the departure board fields of a DVS message, without unmarshalling the
+     * whole message.
+     * @param inputStream InputStream containing the (possibly compressed) DVS message
+     * @return Departure of the DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static DvsDeparture decodeDVS(InputStream inputStream)
+            throws InfoPlusParseException {
+        return PARSER.decodeDVS(inputStream);
     }
 
     /**
@@ -128,24 +164,131 @@ public class InfoPlusMessage {
      */
     public static ReisInformatieProductDASType parseDAS(String xml)
             throws InfoPlusParseException {
-        return parseDAS(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        return PARSER.parseDAS(xml);
     }
 
     /**
      * Parse a DAS message from an InputStream.
-     * @param inputStream InputStream containing the DAS message
+     * @param inputStream InputStream containing the (possibly compressed) DAS message
      * @return Parsed DAS message
      * @throws InfoPlusParseException if parsing fails
      */
     public static ReisInformatieProductDASType parseDAS(InputStream inputStream)
             throws InfoPlusParseException {
-        try {
-            Unmarshaller unmarshaller = getDasContext().createUnmarshaller();
-            Object result = unmarshaller.unmarshal(inputStream);
-            return ((ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn) result).getReisInformatieProductDAS();
-        } catch (JAXBException e) {
-            throw new InfoPlusParseException("Failed to parse DAS message", e);
-        }
+        return PARSER.parseDAS(inputStream);
+    }
+
+    /**
+     * Parse a DAS message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) DAS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductDASType parseDAS(byte[] bytes, int offset, int length)
+            throws InfoPlusParseException {
+        return PARSER.parseDAS(bytes, offset, length);
+    }
+
+    /**
+     * Parse a DAS message from the remaining bytes of a ByteBuffer, without copying it.
+     * @param buffer Buffer containing the (possibly compressed) DAS message
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public static ReisInformatieProductDASType parseDAS(ByteBuffer buffer)
+            throws InfoPlusParseException {
+        return PARSER.parseDAS(buffer);
+    }
+
+    /**
+     * Parse a RIT, DVS or DAS message, detecting the type from its root element.
+     * @param inputStream InputStream containing the (possibly compressed) message
+     * @return Parsed message
+     * @throws InfoPlusParseException if the message type is not supported or parsing fails
+     */
+    public static InfoPlusProduct parse(InputStream inputStream)
+            throws InfoPlusParseException {
+        return PARSER.parse(inputStream);
+    }
+
+    /**
+     * Parse a RIT, DVS or DAS message from the remaining bytes of a ByteBuffer, detecting
+     * the type from its root element.
+     * @param buffer Buffer containing the (possibly compressed) message
+     * @return Parsed message
+     * @throws InfoPlusParseException if the message type is not supported or parsing fails
+     */
+    public static InfoPlusProduct parse(ByteBuffer buffer)
+            throws InfoPlusParseException {
+        return PARSER.parse(buffer);
+    }
+
+    /**
+     * Write a RIT message as XML to an OutputStream, which is not closed.
+     * @param product RIT message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if writing fails
+     */
+    public static void writeRIT(ReisInformatieProductRitInfoType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        WRITER.writeRIT(product, outputStream);
+    }
+
+    /**
+     * Write a RIT message as XML into a ByteBuffer, advancing its position.
+     * @param product RIT message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if writing fails or the message does not fit
+     */
+    public static void writeRIT(ReisInformatieProductRitInfoType product, ByteBuffer buffer)
+            throws InfoPlusWriteException {
+        WRITER.writeRIT(product, buffer);
+    }
+
+    /**
+     * Write a DVS message as XML to an OutputStream, which is not closed.
+     * @param product DVS message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if writing fails
+     */
+    public static void writeDVS(ReisInformatieProductDVSType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        WRITER.writeDVS(product, outputStream);
+    }
+
+    /**
+     * Write a DVS message as XML into a ByteBuffer, advancing its position.
+     * @param product DVS message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if writing fails or the message does not fit
+     */
+    public static void writeDVS(ReisInformatieProductDVSType product, ByteBuffer buffer)
+            throws InfoPlusWriteException {
+        WRITER.writeDVS(product, buffer);
+    }
+
+    /**
+     * Write a DAS message as XML to an OutputStream, which is not closed.
+     * @param product DAS message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if writing fails
+     */
+    public static void writeDAS(ReisInformatieProductDASType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        WRITER.writeDAS(product, outputStream);
+    }
+
+    /**
+     * Write a DAS message as XML into a ByteBuffer, advancing its position.
+     * @param product DAS message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if writing fails or the message does not fit
+     */
+    public static void writeDAS(ReisInformatieProductDASType product, ByteBuffer buffer)
+            throws InfoPlusWriteException {
+        WRITER.writeDAS(product, buffer);
     }
 
     /**
@@ -157,4 +300,14 @@ public class InfoPlusMessage {
             super(message, cause);
         }
     }
+
+    /**
+     * Exception thrown when writing an InfoPlus message fails.
+     */
+    public static class InfoPlusWriteException extends Exception {
+
+        public InfoPlusWriteException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 }
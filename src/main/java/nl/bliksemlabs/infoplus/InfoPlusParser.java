@@ -0,0 +1,791 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventHandler;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+/**
+ * Configurable, thread-safe parser for InfoPlus messages.
+ *
+ * Unmarshallers are reused across messages through a bounded pool per message type,
+ * so a single instance can be shared by any number of (virtual) threads.
+ *
+ * <pre>{@code
+ * InfoPlusParser parser = InfoPlusParser.builder()
+ *     .poolSize(32)
+ *     .projection(Projection.WITHOUT_PRESENTATIE)
+ *     .build();
+ * ReisInformatieProductDVSType dvs = parser.parseDVS(inputStream);
+ * }</pre>
+ */
+public final class InfoPlusParser {
+
+    /**
+     * Default number of idle Unmarshallers kept per message type.
+     */
+    public static final int DEFAULT_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final UnmarshallerPool ritPool;
+    private final UnmarshallerPool dvsPool;
+    private final UnmarshallerPool dasPool;
+    private final Projection projection;
+    private final ParseListener listener;
+    private final boolean measureAllocation;
+    private final boolean validateSchema;
+
+    private InfoPlusParser(Builder builder) {
+        StationListener stations = builder.stationDictionary == null ? null : new StationListener(builder.stationDictionary);
+        this.ritPool = new UnmarshallerPool(MessageType.RIT, builder.poolSize, stations);
+        this.dvsPool = new UnmarshallerPool(MessageType.DVS, builder.poolSize, stations);
+        this.dasPool = new UnmarshallerPool(MessageType.DAS, builder.poolSize, stations);
+        this.projection = builder.projection;
+        this.listener = builder.listener;
+        this.measureAllocation = builder.listener != null && builder.listener.measureAllocation();
+        this.validateSchema = builder.validateSchema;
+    }
+
+    /**
+     * @return A new builder with default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Build the JAXBContexts of all message types concurrently and prime this parser by
+     * parsing an embedded sample message of each type, so the first real message does not
+     * pay for context creation and runs through code the JIT has already seen.
+     * @param iterations Number of times each sample message is parsed
+     * @return Timing of the warm-up
+     * @throws InfoPlusParseException if a context cannot be created or a sample fails to parse
+     */
+    public WarmUpReport warmUp(int iterations) throws InfoPlusParseException {
+        long start = System.nanoTime();
+        Map<MessageType, Duration> contexts = new EnumMap<>(MessageType.class);
+        try (ExecutorService executor = Executors.newFixedThreadPool(MessageType.values().length)) {
+            Map<MessageType, Future<Duration>> pending = new EnumMap<>(MessageType.class);
+            for (MessageType type : MessageType.values()) {
+                pending.put(type, executor.submit(() -> {
+                    type.context();
+                    return Duration.ofNanos(System.nanoTime() - start);
+                }));
+            }
+            for (Map.Entry<MessageType, Future<Duration>> entry : pending.entrySet()) {
+                contexts.put(entry.getKey(), await(entry.getKey(), entry.getValue()));
+            }
+
+            long primingStart = System.nanoTime();
+            Map<MessageType, Future<?>> primed = new EnumMap<>(MessageType.class);
+            for (MessageType type : MessageType.values()) {
+                byte[] sample = sample(type);
+                primed.put(type, executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        parse(type, new ByteArrayInputStream(sample));
+                    }
+                    return null;
+                }));
+            }
+            for (Map.Entry<MessageType, Future<?>> entry : primed.entrySet()) {
+                await(entry.getKey(), entry.getValue());
+            }
+            long end = System.nanoTime();
+
+            return new WarmUpReport(
+                contexts.get(MessageType.RIT),
+                contexts.get(MessageType.DVS),
+                contexts.get(MessageType.DAS),
+                Duration.ofNanos(end - primingStart),
+                Duration.ofNanos(end - start)
+            );
+        }
+    }
+
+    /**
+     * Parse a RIT message from an XML string.
+     * @param xml XML string containing the RIT message
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductRitInfoType parseRIT(String xml) throws InfoPlusParseException {
+        return parsing(MessageType.RIT, xml, this::parseRIT);
+    }
+
+    /**
+     * Parse a RIT message from an InputStream. Gzip and zlib compressed messages are
+     * detected from their first bytes and inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) RIT message
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductRitInfoType parseRIT(InputStream inputStream) throws InfoPlusParseException {
+        return decompressing(MessageType.RIT, inputStream, input -> parseRIT(new StreamSource(input)));
+    }
+
+    /**
+     * Parse a RIT message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) RIT message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductRitInfoType parseRIT(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return parseRIT(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Parse a RIT message from the remaining bytes of a (heap or direct) ByteBuffer, without
+     * copying it. The position of the buffer is not changed.
+     * @param buffer Buffer containing the (possibly compressed) RIT message
+     * @return Parsed RIT message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductRitInfoType parseRIT(ByteBuffer buffer) throws InfoPlusParseException {
+        return parseRIT(ByteBufferInputStream.of(buffer));
+    }
+
+    private ReisInformatieProductRitInfoType parseRIT(Source source) throws InfoPlusParseException {
+        return parseRIT(source, null);
+    }
+
+    private ReisInformatieProductRitInfoType parseRIT(Source source, ProblemCollector problems) throws InfoPlusParseException {
+        Object result = unmarshal(ritPool, source, problems);
+        return ((ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn) result).getReisInformatieProductRitInfo();
+    }
+
+    /**
+     * Stream the stations of a RIT message to a visitor instead of building the whole
+     * message. Every LogischeRitDeelStation is unmarshalled on its own and passed to the
+     * visitor, so memory use is bounded by a single station rather than the whole trip.
+     * Gzip and zlib compressed messages are inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) RIT message
+     * @param visitor Visitor invoked for every station, in document order
+     * @throws InfoPlusParseException if parsing fails, or the visitor throws a RuntimeException
+     */
+    public void streamRIT(InputStream inputStream, RitStationVisitor visitor) throws InfoPlusParseException {
+        decompressing(MessageType.RIT, inputStream, input -> {
+            try {
+                return withUnmarshaller(ritPool, pooled -> {
+                    XMLStreamReader reader = StaxSupport.createReader(input);
+                    if (projection != Projection.ALL) {
+                        reader = new ProjectingStreamReader(reader, projection);
+                    }
+                    try {
+                        RitStationStreamer.stream(pooled.unmarshaller(), reader, visitor);
+                    } finally {
+                        reader.close();
+                    }
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Malformed TreinNummer, TreinDatum or LogischeRitDeelNummer values surface as
+                // NumberFormatException or DateTimeParseException
+                throw new InfoPlusParseException("Failed to parse RIT message", e);
+            }
+        });
+    }
+
+    /**
+     * Parse a DVS message from an XML string.
+     * @param xml XML string containing the DVS message
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDVSType parseDVS(String xml) throws InfoPlusParseException {
+        return parsing(MessageType.DVS, xml, this::parseDVS);
+    }
+
+    /**
+     * Parse a DVS message from an InputStream. Gzip and zlib compressed messages are
+     * detected from their first bytes and inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) DVS message
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDVSType parseDVS(InputStream inputStream) throws InfoPlusParseException {
+        return decompressing(MessageType.DVS, inputStream, input -> parseDVS(new StreamSource(input)));
+    }
+
+    /**
+     * Parse a DVS message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) DVS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDVSType parseDVS(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return parseDVS(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Parse a DVS message from the remaining bytes of a (heap or direct) ByteBuffer, without
+     * copying it. The position of the buffer is not changed.
+     * @param buffer Buffer containing the (possibly compressed) DVS message
+     * @return Parsed DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDVSType parseDVS(ByteBuffer buffer) throws InfoPlusParseException {
+        return parseDVS(ByteBufferInputStream.of(buffer));
+    }
+
+    private ReisInformatieProductDVSType parseDVS(Source source) throws InfoPlusParseException {
+        return parseDVS(source, null);
+    }
+
+    private ReisInformatieProductDVSType parseDVS(Source source, ProblemCollector problems) throws InfoPlusParseException {
+        Object result = unmarshal(dvsPool, source, problems);
+        if (!(result instanceof ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn message)) {
+            // DVS and DAS share a context, so a DAS message unmarshals without error
+            throw new InfoPlusParseException("Not a DVS message: " + result.getClass().getName(), null);
+        }
+        return message.getReisInformatieProductDVS();
+    }
+
+    /**
+     * Decode only the departure board fields of a DVS message, reading them straight from
+     * the XML instead of unmarshalling the whole message. The result equals
+     * {@link DvsDeparture#from(ReisInformatieProductDVSType)} applied to {@link #parseDVS(InputStream)}.
+     * Gzip and zlib compressed messages are inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) DVS message
+     * @return Departure of the DVS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public DvsDeparture decodeDVS(InputStream inputStream) throws InfoPlusParseException {
+        return decompressing(MessageType.DVS, inputStream, input -> {
+            try {
+                XMLStreamReader reader = StaxSupport.createReader(input);
+                try {
+                    return DvsDecoder.decode(reader);
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException | RuntimeException e) {
+                // Malformed values surface as NumberFormatException or DateTimeParseException
+                throw new InfoPlusParseException("Failed to decode DVS message", e);
+            }
+        });
+    }
+
+    /**
+     * Decode only the departure board fields of a DVS message from a region of a byte array.
+     * @param bytes Array containing the (possibly compressed) DVS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Departure of the DVS message
+     * @throws InfoPlusParseException if parsing fails
+     * @see #decodeDVS(InputStream)
+     */
+    public DvsDeparture decodeDVS(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return decodeDVS(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Decode only the departure board fields of a DVS message from the remaining bytes of a
+     * ByteBuffer. The position of the buffer is not changed.
+     * @param buffer Buffer containing the (possibly compressed) DVS message
+     * @return Departure of the DVS message
+     * @throws InfoPlusParseException if parsing fails
+     * @see #decodeDVS(InputStream)
+     */
+    public DvsDeparture decodeDVS(ByteBuffer buffer) throws InfoPlusParseException {
+        return decodeDVS(ByteBufferInputStream.of(buffer));
+    }
+
+    /**
+     * Parse a DAS message from an XML string.
+     * @param xml XML string containing the DAS message
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDASType parseDAS(String xml) throws InfoPlusParseException {
+        return parsing(MessageType.DAS, xml, this::parseDAS);
+    }
+
+    /**
+     * Parse a DAS message from an InputStream. Gzip and zlib compressed messages are
+     * detected from their first bytes and inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) DAS message
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDASType parseDAS(InputStream inputStream) throws InfoPlusParseException {
+        return decompressing(MessageType.DAS, inputStream, input -> parseDAS(new StreamSource(input)));
+    }
+
+    /**
+     * Parse a DAS message from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) DAS message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDASType parseDAS(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return parseDAS(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Parse a DAS message from the remaining bytes of a (heap or direct) ByteBuffer, without
+     * copying it. The position of the buffer is not changed.
+     * @param buffer Buffer containing the (possibly compressed) DAS message
+     * @return Parsed DAS message
+     * @throws InfoPlusParseException if parsing fails
+     */
+    public ReisInformatieProductDASType parseDAS(ByteBuffer buffer) throws InfoPlusParseException {
+        return parseDAS(ByteBufferInputStream.of(buffer));
+    }
+
+    private ReisInformatieProductDASType parseDAS(Source source) throws InfoPlusParseException {
+        return parseDAS(source, null);
+    }
+
+    private ReisInformatieProductDASType parseDAS(Source source, ProblemCollector problems) throws InfoPlusParseException {
+        Object result = unmarshal(dasPool, source, problems);
+        if (!(result instanceof ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn message)) {
+            // DVS and DAS share a context, so a DVS message unmarshals without error
+            throw new InfoPlusParseException("Not a DAS message: " + result.getClass().getName(), null);
+        }
+        return message.getReisInformatieProductDAS();
+    }
+
+    /**
+     * Parse a message of any supported type from an InputStream. The type is taken from
+     * the namespace of the root element, found by scanning only the first bytes of the
+     * message, after which it is parsed once by the unmarshaller of that type.
+     * Gzip and zlib compressed messages are inflated while parsing.
+     * @param inputStream InputStream containing the (possibly compressed) message
+     * @return Parsed message
+     * @throws InfoPlusParseException if the message type is not supported or parsing fails
+     */
+    public InfoPlusProduct parse(InputStream inputStream) throws InfoPlusParseException {
+        return decompressing(null, "InfoPlus message", inputStream, input -> route(input, null));
+    }
+
+    /**
+     * Parse a message of any supported type from a region of a byte array, without copying it.
+     * @param bytes Array containing the (possibly compressed) message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Parsed message
+     * @throws InfoPlusParseException if the message type is not supported or parsing fails
+     * @see #parse(InputStream)
+     */
+    public InfoPlusProduct parse(byte[] bytes, int offset, int length) throws InfoPlusParseException {
+        return parse(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Parse a message of any supported type from the remaining bytes of a ByteBuffer,
+     * without copying it. The position of the buffer is not changed.
+     * @param buffer Buffer containing the (possibly compressed) message
+     * @return Parsed message
+     * @throws InfoPlusParseException if the message type is not supported or parsing fails
+     * @see #parse(InputStream)
+     */
+    public InfoPlusProduct parse(ByteBuffer buffer) throws InfoPlusParseException {
+        return parse(ByteBufferInputStream.of(buffer));
+    }
+
+    /**
+     * Parse a RIT message leniently: unknown elements, values that cannot be converted and,
+     * when the parser validates against the schema, schema violations are returned as
+     * problems instead of failing the parse. Only XML that is not well-formed still fails.
+     * @param inputStream InputStream containing the (possibly compressed) RIT message
+     * @return Parsed RIT message with the problems found in it
+     * @throws InfoPlusParseException if the message cannot be read at all
+     * @see Builder#validateSchema(boolean)
+     */
+    public ParseResult<ReisInformatieProductRitInfoType> parseRITLenient(InputStream inputStream)
+            throws InfoPlusParseException {
+        ProblemCollector problems = new ProblemCollector();
+        var value = decompressing(MessageType.RIT, inputStream, input -> parseRIT(new StreamSource(input), problems));
+        return new ParseResult<>(value, problems.problems);
+    }
+
+    /**
+     * Parse a DVS message leniently.
+     * @param inputStream InputStream containing the (possibly compressed) DVS message
+     * @return Parsed DVS message with the problems found in it
+     * @throws InfoPlusParseException if the message cannot be read at all
+     * @see #parseRITLenient(InputStream)
+     */
+    public ParseResult<ReisInformatieProductDVSType> parseDVSLenient(InputStream inputStream)
+            throws InfoPlusParseException {
+        ProblemCollector problems = new ProblemCollector();
+        var value = decompressing(MessageType.DVS, inputStream, input -> parseDVS(new StreamSource(input), problems));
+        return new ParseResult<>(value, problems.problems);
+    }
+
+    /**
+     * Parse a DAS message leniently.
+     * @param inputStream InputStream containing the (possibly compressed) DAS message
+     * @return Parsed DAS message with the problems found in it
+     * @throws InfoPlusParseException if the message cannot be read at all
+     * @see #parseRITLenient(InputStream)
+     */
+    public ParseResult<ReisInformatieProductDASType> parseDASLenient(InputStream inputStream)
+            throws InfoPlusParseException {
+        ProblemCollector problems = new ProblemCollector();
+        var value = decompressing(MessageType.DAS, inputStream, input -> parseDAS(new StreamSource(input), problems));
+        return new ParseResult<>(value, problems.problems);
+    }
+
+    /**
+     * Parse a message of any supported type leniently.
+     * @param inputStream InputStream containing the (possibly compressed) message
+     * @return Parsed message with the problems found in it
+     * @throws InfoPlusParseException if the message type is not supported or the message
+     *                                cannot be read at all
+     * @see #parse(InputStream)
+     * @see #parseRITLenient(InputStream)
+     */
+    public ParseResult<InfoPlusProduct> parseLenient(InputStream inputStream) throws InfoPlusParseException {
+        ProblemCollector problems = new ProblemCollector();
+        var value = decompressing(null, "InfoPlus message", inputStream, input -> route(input, problems));
+        return new ParseResult<>(value, problems.problems);
+    }
+
+    private InfoPlusProduct route(InputStream input, ProblemCollector problems) throws InfoPlusParseException {
+        InputStream marked = input.markSupported() ? input : new BufferedInputStream(input, MessageTypeDetector.LIMIT);
+        MessageType type;
+        try {
+            type = MessageTypeDetector.detect(marked);
+        } catch (IOException e) {
+            throw new InfoPlusParseException("Failed to read InfoPlus message", e);
+        }
+        if (type == null) {
+            throw new InfoPlusParseException("Unsupported message: no RIT, DVS or DAS root element", null);
+        }
+        Source source = new StreamSource(marked);
+        return switch (type) {
+            case RIT -> new InfoPlusProduct.Rit(parseRIT(source, problems));
+            case DVS -> new InfoPlusProduct.Dvs(parseDVS(source, problems));
+            case DAS -> new InfoPlusProduct.Das(parseDAS(source, problems));
+        };
+    }
+
+    /**
+     * Parse a message of the given type from an InputStream.
+     * @return The product contained in the message
+     */
+    Object parse(MessageType type, InputStream inputStream) throws InfoPlusParseException {
+        return switch (type) {
+            case RIT -> parseRIT(inputStream);
+            case DVS -> parseDVS(inputStream);
+            case DAS -> parseDAS(inputStream);
+        };
+    }
+
+    private static byte[] sample(MessageType type) throws InfoPlusParseException {
+        String resource = "samples/" + type.name().toLowerCase() + ".xml";
+        try (InputStream in = InfoPlusParser.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new InfoPlusParseException("Missing sample " + type + " message " + resource, null);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new InfoPlusParseException("Failed to read sample " + type + " message", e);
+        }
+    }
+
+    private static <T> T await(MessageType type, Future<T> future) throws InfoPlusParseException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InfoPlusParseException parseException) {
+                throw parseException;
+            }
+            throw new InfoPlusParseException("Failed to warm up " + type + " parsing", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InfoPlusParseException("Interrupted while warming up " + type + " parsing", e);
+        }
+    }
+
+    private <T> T decompressing(MessageType type, InputStream inputStream, StreamParser<T> parser)
+            throws InfoPlusParseException {
+        return decompressing(type, type + " message", inputStream, parser);
+    }
+
+    /**
+     * @param type Type of the message, or null if it is detected while parsing
+     */
+    private <T> T decompressing(MessageType type, String description, InputStream inputStream,
+            StreamParser<T> parser) throws InfoPlusParseException {
+        if (listener == null) {
+            return inflating(description, inputStream, parser);
+        }
+        CountingInputStream counting = new CountingInputStream(inputStream);
+        return measured(type, counting::count, () -> inflating(description, counting, parser));
+    }
+
+    private <T> T parsing(MessageType type, String xml, SourceParser<T> parser) throws InfoPlusParseException {
+        Source source = new StreamSource(new StringReader(xml));
+        if (listener == null) {
+            return parser.parse(source);
+        }
+        return measured(type, xml::length, () -> parser.parse(source));
+    }
+
+    /**
+     * Report the time, size and allocation of a parse to the listener.
+     * @param bytes Size of the message, read after parsing
+     */
+    private <T> T measured(MessageType type, LongSupplier bytes, MeasuredParse<T> parse) throws InfoPlusParseException {
+        long allocated = measureAllocation ? ThreadAllocation.current() : -1;
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = parse.run();
+        } catch (InfoPlusParseException e) {
+            listener.failed(type, bytes.getAsLong(), System.nanoTime() - start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            // Counted as a failure, but thrown unchanged so a listener does not alter what callers see
+            listener.failed(type, bytes.getAsLong(), System.nanoTime() - start,
+                new InfoPlusParseException("Failed to parse " + (type == null ? "" : type + " ") + "message", e));
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        MessageType parsedType = result instanceof InfoPlusProduct product ? product.type() : type;
+        listener.parsed(parsedType, bytes.getAsLong(), nanos, ThreadAllocation.since(allocated));
+        return result;
+    }
+
+    private static <T> T inflating(String description, InputStream inputStream, StreamParser<T> parser)
+            throws InfoPlusParseException {
+        InputStream input;
+        try {
+            input = Decompression.decompress(inputStream);
+        } catch (IOException e) {
+            throw new InfoPlusParseException("Failed to read " + description, e);
+        }
+        try {
+            return parser.parse(input);
+        } finally {
+            Decompression.release(input);
+        }
+    }
+
+    /**
+     * @param problems Collector of the problems of a lenient parse, or null to fail on the first
+     */
+    private Object unmarshal(UnmarshallerPool pool, Source source, ProblemCollector problems)
+            throws InfoPlusParseException {
+        Schema schema = validateSchema ? schema(pool.type()) : null;
+        if (schema == null && problems == null) {
+            return unmarshal(pool, source);
+        }
+        // Pooled unmarshallers are only returned after a successful parse, so they are always reset
+        return withUnmarshaller(pool, pooled -> {
+            Unmarshaller unmarshaller = pooled.unmarshaller();
+            unmarshaller.setSchema(schema);
+            unmarshaller.setEventHandler(problems);
+            Object result = unmarshal(pooled, source);
+            unmarshaller.setSchema(null);
+            unmarshaller.setEventHandler(null);
+            return result;
+        });
+    }
+
+    private Object unmarshal(UnmarshallerPool pool, Source source) throws InfoPlusParseException {
+        return withUnmarshaller(pool, pooled -> unmarshal(pooled, source));
+    }
+
+    private Object unmarshal(PooledUnmarshaller pooled, Source source) throws JAXBException, SAXException, IOException {
+        if (projection == Projection.ALL) {
+            return pooled.unmarshaller().unmarshal(source);
+        }
+        XMLReader reader = pooled.projectingReader(projection);
+        reader.parse(SAXSource.sourceToInputSource(source));
+        return pooled.unmarshaller().getUnmarshallerHandler().getResult();
+    }
+
+    private static Schema schema(MessageType type) throws InfoPlusParseException {
+        try {
+            return InfoPlusSchemas.schema(type);
+        } catch (SAXException e) {
+            throw new InfoPlusParseException("Failed to load schema of " + type + " messages", e);
+        }
+    }
+
+    private <T> T withUnmarshaller(UnmarshallerPool pool, UnmarshallerAction<T> action)
+            throws InfoPlusParseException {
+        PooledUnmarshaller unmarshaller;
+        long start = listener == null ? 0 : System.nanoTime();
+        try {
+            unmarshaller = pool.acquire();
+        } catch (JAXBException e) {
+            throw new InfoPlusParseException("Failed to create unmarshaller for " + pool.type() + " message", e);
+        }
+        if (listener != null) {
+            listener.unmarshallerAcquired(pool.type(), System.nanoTime() - start, !unmarshaller.reused());
+        }
+        // Do not return an unmarshaller in an unknown state to the pool on failure
+        try {
+            T result = action.apply(unmarshaller);
+            pool.release(unmarshaller);
+            return result;
+        } catch (JAXBException | XMLStreamException | SAXException | IOException e) {
+            throw new InfoPlusParseException("Failed to parse " + pool.type() + " message", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamParser<T> {
+        T parse(InputStream input) throws InfoPlusParseException;
+    }
+
+    /**
+     * Collects the events of a lenient parse and always continues. Schema violations are
+     * reported as fatal errors, but the unmarshaller recovers from them; XML that is not
+     * well-formed stops the parse regardless.
+     */
+    private static final class ProblemCollector implements ValidationEventHandler {
+
+        private final List<ParseProblem> problems = new ArrayList<>();
+
+        @Override
+        public boolean handleEvent(ValidationEvent event) {
+            problems.add(ParseProblem.of(event));
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SourceParser<T> {
+        T parse(Source source) throws InfoPlusParseException;
+    }
+
+    @FunctionalInterface
+    private interface MeasuredParse<T> {
+        T run() throws InfoPlusParseException;
+    }
+
+    @FunctionalInterface
+    private interface UnmarshallerAction<T> {
+        T apply(PooledUnmarshaller unmarshaller) throws JAXBException, XMLStreamException, SAXException, IOException;
+    }
+
+    /**
+     * Builder for {@link InfoPlusParser} instances.
+     */
+    public static final class Builder {
+
+        private int poolSize = DEFAULT_POOL_SIZE;
+        private Projection projection = Projection.ALL;
+        private StationDictionary stationDictionary;
+        private ParseListener listener;
+        private boolean validateSchema;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of idle Unmarshallers kept per message type. Callers are
+         * never blocked when more are in use; extra Unmarshallers are simply not retained.
+         * @param poolSize Maximum number of idle Unmarshallers, 0 disables pooling
+         * @return This builder
+         */
+        public Builder poolSize(int poolSize) {
+            if (poolSize < 0) {
+                throw new IllegalArgumentException("poolSize must not be negative");
+            }
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * Skip elements while parsing, before any objects are created for them.
+         * @param projection Elements to skip, {@link Projection#ALL} to parse everything
+         * @return This builder
+         */
+        public Builder projection(Projection projection) {
+            this.projection = Objects.requireNonNull(projection, "projection");
+            return this;
+        }
+
+        /**
+         * Replace the code and names of every unmarshalled StationType with canonical
+         * instances from the dictionary, so retained messages share them. The dictionary
+         * may be shared between parsers.
+         * @param stationDictionary Dictionary to use, or null to keep the values as parsed
+         * @return This builder
+         * @see StationDictionary#bounded(int)
+         */
+        public Builder stationDictionary(StationDictionary stationDictionary) {
+            this.stationDictionary = stationDictionary;
+            return this;
+        }
+
+        /**
+         * Report the time, size and outcome of every message to a listener, such as
+         * {@link ParseMetrics}. The listener may be shared between parsers.
+         * @param listener Listener to report to, or null to measure nothing
+         * @return This builder
+         */
+        public Builder listener(ParseListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Validate messages against the bundled XSDs while parsing. The schemas are compiled
+         * once, on first use, and shared by all parsers. Strict parse methods then fail on
+         * the first violation; lenient ones return the violations as problems. Streaming and
+         * decoding are not validated.
+         * @param validateSchema Whether to validate against the schema
+         * @return This builder
+         * @see InfoPlusParser#parseRITLenient(InputStream)
+         */
+        public Builder validateSchema(boolean validateSchema) {
+            this.validateSchema = validateSchema;
+            return this;
+        }
+
+        /**
+         * @return A new parser with the configured settings
+         * @throws IllegalStateException if schema validation is combined with a projection,
+         *                               as skipped elements would be reported as missing
+         */
+        public InfoPlusParser build() {
+            if (validateSchema && projection != Projection.ALL) {
+                throw new IllegalStateException("Schema validation cannot be combined with a projection");
+            }
+            return new InfoPlusParser(this);
+        }
+    }
+}
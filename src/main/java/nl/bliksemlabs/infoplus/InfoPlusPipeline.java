@@ -0,0 +1,489 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses a feed of raw payloads in parallel and publishes the parsed messages per type,
+ * with bounded memory under burst load.
+ *
+ * The pipeline subscribes to a {@link Flow.Publisher} of (possibly compressed) payloads,
+ * such as a {@link SubmissionPublisher} fed by a socket reader. The type of each payload is
+ * detected from its root element on arrival, and the payload is queued for the workers of
+ * its type. Each type has its own bounded queue and worker threads, so a burst of DVS
+ * messages does not delay RIT and DAS messages. Parsed messages are published to the
+ * subscribers of {@link #rit()}, {@link #dvs()} and {@link #das()}; slow subscribers in turn
+ * hold up the workers of their type once their buffer is full.
+ *
+ * When a queue is full the {@link Backpressure} policy decides between waiting, which holds
+ * up the upstream publisher, and dropping payloads. Compressed payloads are inflated on
+ * arrival, and payloads that fail to parse are passed to the failure handler. Messages of a
+ * type with more than one worker may be published out of order; compare their
+ * {@link MessageVersion} downstream where that matters, as {@link BoardStore} does.
+ *
+ * <pre>{@code
+ * InfoPlusPipeline pipeline = InfoPlusPipeline.builder(parser)
+ *     .backpressure(InfoPlusPipeline.Backpressure.COALESCE_LATEST)
+ *     .workers(MessageType.DVS, 4)
+ *     .build();
+ * pipeline.dvs().subscribe(dvsSubscriber);
+ * feed.subscribe(pipeline);
+ * }</pre>
+ */
+public final class InfoPlusPipeline implements Flow.Subscriber<byte[]>, AutoCloseable {
+
+    /**
+     * What to do with a payload when the queue of its type is full. The key of a payload is
+     * that of {@link DuplicateFilter}: RitId, RitDatum and station for DVS and DAS messages,
+     * TreinNummer and TreinDatum for RIT messages.
+     */
+    public enum Backpressure {
+        /**
+         * Wait for space, holding up the upstream publisher. Nothing is dropped.
+         */
+        BLOCK,
+
+        /**
+         * Drop the oldest pending payload with the same key, or the oldest pending payload
+         * of the type when there is none. Never waits.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Replace a pending payload with the same key by the newer one, in its place in the
+         * queue, whether the queue is full or not. Waits when the queue is full of other
+         * keys, so only superseded payloads are dropped.
+         */
+        COALESCE_LATEST
+    }
+
+    /**
+     * Default capacity of the queue of each type.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final int REQUEST_BATCH = 64;
+
+    private final InfoPlusParser parser;
+    private final Backpressure backpressure;
+    private final BiConsumer<MessageType, InfoPlusParseException> failureHandler;
+    private final Lane<ReisInformatieProductRitInfoType> rit;
+    private final Lane<ReisInformatieProductDVSType> dvs;
+    private final Lane<ReisInformatieProductDASType> das;
+    private final Lane<?>[] lanes;
+    private final LongAdder failedUnknownType = new LongAdder();
+
+    private volatile Flow.Subscription subscription;
+    private int unrequested;
+    private volatile Throwable error;
+
+    private InfoPlusPipeline(Builder builder) {
+        this.parser = builder.parser;
+        this.backpressure = builder.backpressure;
+        this.failureHandler = builder.failureHandler;
+        this.rit = new Lane<>(MessageType.RIT, builder, bytes -> parser.parseRIT(bytes, 0, bytes.length));
+        this.dvs = new Lane<>(MessageType.DVS, builder, bytes -> parser.parseDVS(bytes, 0, bytes.length));
+        this.das = new Lane<>(MessageType.DAS, builder, bytes -> parser.parseDAS(bytes, 0, bytes.length));
+        this.lanes = new Lane<?>[]{rit, dvs, das};
+        for (Lane<?> lane : lanes) {
+            lane.start();
+        }
+    }
+
+    /**
+     * @param parser Parser used by the workers of all types, whose pool size should be at
+     *               least the total number of workers
+     * @return A new builder that blocks on full queues and runs one worker per type by default
+     */
+    public static Builder builder(InfoPlusParser parser) {
+        return new Builder(parser);
+    }
+
+    /**
+     * @return Publisher of the parsed RIT messages
+     */
+    public Flow.Publisher<ReisInformatieProductRitInfoType> rit() {
+        return rit.publisher;
+    }
+
+    /**
+     * @return Publisher of the parsed DVS messages
+     */
+    public Flow.Publisher<ReisInformatieProductDVSType> dvs() {
+        return dvs.publisher;
+    }
+
+    /**
+     * @return Publisher of the parsed DAS messages
+     */
+    public Flow.Publisher<ReisInformatieProductDASType> das() {
+        return das.publisher;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        if (this.subscription != null) {
+            // A pipeline consumes a single feed
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        unrequested = REQUEST_BATCH;
+        subscription.request(REQUEST_BATCH);
+    }
+
+    /**
+     * Queue a payload for the workers of its type. Depending on the backpressure policy this
+     * waits for space in the queue. The payload must not be modified afterwards.
+     * @param payload (Possibly compressed) RIT, DVS or DAS message
+     */
+    @Override
+    public void onNext(byte[] payload) {
+        Objects.requireNonNull(payload, "payload");
+        try {
+            enqueue(payload);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            return;
+        }
+        // Keep at least half a batch of payloads requested from the feed
+        if (subscription != null && --unrequested <= REQUEST_BATCH / 2) {
+            unrequested += REQUEST_BATCH / 2;
+            subscription.request(REQUEST_BATCH / 2);
+        }
+    }
+
+    /**
+     * Stop accepting payloads. Queued payloads are still parsed, after which the typed
+     * publishers complete exceptionally with the error of the feed.
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "throwable");
+        closeLanes();
+    }
+
+    /**
+     * Stop accepting payloads. Queued payloads are still parsed, after which the typed
+     * publishers complete.
+     */
+    @Override
+    public void onComplete() {
+        closeLanes();
+    }
+
+    /**
+     * Cancel the subscription to the feed and stop accepting payloads, as if the feed
+     * completed.
+     */
+    @Override
+    public void close() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        closeLanes();
+    }
+
+    /**
+     * @param type Message type
+     * @return Snapshot of the counters of the type
+     */
+    public Stats stats(MessageType type) {
+        Lane<?> lane = lanes[type.ordinal()];
+        return new Stats(
+            lane.received.sum(),
+            lane.dropped.sum(),
+            lane.coalesced.sum(),
+            lane.parsed.sum(),
+            lane.failed.sum(),
+            lane.queue.size()
+        );
+    }
+
+    /**
+     * @return Number of payloads that could not be read or were not a RIT, DVS or DAS message
+     */
+    public long failedUnknownType() {
+        return failedUnknownType.sum();
+    }
+
+    private void enqueue(byte[] payload) throws InterruptedException {
+        byte[] message;
+        MessageType type;
+        try {
+            message = inflate(payload);
+            type = MessageTypeDetector.detect(new ByteArrayInputStream(message));
+        } catch (IOException e) {
+            failedUnknownType(new InfoPlusParseException("Failed to read InfoPlus message", e));
+            return;
+        }
+        if (type == null) {
+            failedUnknownType(new InfoPlusParseException("Unsupported message type", null));
+            return;
+        }
+        String key = null;
+        if (backpressure != Backpressure.BLOCK) {
+            MessageFingerprint fingerprint = MessageFingerprint.of(message, 0, message.length);
+            key = fingerprint == null ? null : fingerprint.key();
+        }
+        Lane<?> lane = lanes[type.ordinal()];
+        lane.received.increment();
+        switch (lane.queue.offer(key, message, backpressure)) {
+            case DROPPED, REJECTED -> lane.dropped.increment();
+            case COALESCED -> lane.coalesced.increment();
+            case ADDED -> {
+            }
+        }
+    }
+
+    private void failedUnknownType(InfoPlusParseException exception) {
+        failedUnknownType.increment();
+        failureHandler.accept(null, exception);
+    }
+
+    private void closeLanes() {
+        for (Lane<?> lane : lanes) {
+            lane.queue.close();
+        }
+    }
+
+    /**
+     * Compressed payloads are inflated once, for detection and for parsing.
+     */
+    private static byte[] inflate(byte[] payload) throws IOException {
+        InputStream input = new ByteArrayInputStream(payload);
+        InputStream inflated = Decompression.decompress(input);
+        try {
+            return inflated == input ? payload : inflated.readAllBytes();
+        } finally {
+            Decompression.release(inflated);
+        }
+    }
+
+    /**
+     * Counters of a single message type.
+     *
+     * @param received Payloads of the type that arrived
+     * @param dropped Payloads dropped because the queue was full, or arrived after closing
+     * @param coalesced Payloads replaced by a newer one with the same key before parsing
+     * @param parsed Messages parsed and published
+     * @param failed Messages that failed to parse
+     * @param queued Payloads currently waiting for a worker
+     */
+    public record Stats(long received, long dropped, long coalesced, long parsed, long failed, int queued) {
+    }
+
+    @FunctionalInterface
+    private interface PayloadParser<T> {
+        T parse(byte[] payload) throws InfoPlusParseException;
+    }
+
+    /**
+     * Queue, workers and publisher of a single message type.
+     */
+    private final class Lane<T> {
+
+        private final MessageType type;
+        private final PayloadParser<T> payloadParser;
+        private final PendingQueue queue;
+        private final SubmissionPublisher<T> publisher;
+        private final Thread[] workers;
+        private final AtomicInteger running;
+
+        private final LongAdder received = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder parsed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        Lane(MessageType type, Builder builder, PayloadParser<T> payloadParser) {
+            this.type = type;
+            this.payloadParser = payloadParser;
+            this.queue = new PendingQueue(builder.queueCapacity.getOrDefault(type, DEFAULT_QUEUE_CAPACITY));
+            this.publisher = new SubmissionPublisher<>(builder.executor, builder.bufferCapacity);
+            this.workers = new Thread[builder.workers.getOrDefault(type, 1)];
+            this.running = new AtomicInteger(workers.length);
+            ThreadFactory threadFactory = builder.threadFactory != null
+                ? builder.threadFactory
+                : Thread.ofPlatform().name("infoplus-" + type.name().toLowerCase() + "-", 0).daemon().factory();
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = threadFactory.newThread(this::work);
+            }
+        }
+
+        void start() {
+            for (Thread worker : workers) {
+                worker.start();
+            }
+        }
+
+        private void work() {
+            try {
+                byte[] payload;
+                while ((payload = queue.take()) != null) {
+                    T value;
+                    try {
+                        value = payloadParser.parse(payload);
+                    } catch (InfoPlusParseException e) {
+                        failed(e);
+                        continue;
+                    } catch (RuntimeException e) {
+                        failed(new InfoPlusParseException("Failed to parse " + type + " message", e));
+                        continue;
+                    }
+                    parsed.increment();
+                    // Waits while a subscriber's buffer is full
+                    publisher.submit(value);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (running.decrementAndGet() == 0) {
+                    Throwable cause = error;
+                    if (cause == null) {
+                        publisher.close();
+                    } else {
+                        publisher.closeExceptionally(cause);
+                    }
+                }
+            }
+        }
+
+        private void failed(InfoPlusParseException exception) {
+            failed.increment();
+            failureHandler.accept(type, exception);
+        }
+    }
+
+    /**
+     * Builder for {@link InfoPlusPipeline} instances.
+     */
+    public static final class Builder {
+
+        private final InfoPlusParser parser;
+        private Backpressure backpressure = Backpressure.BLOCK;
+        private final Map<MessageType, Integer> workers = new EnumMap<>(MessageType.class);
+        private final Map<MessageType, Integer> queueCapacity = new EnumMap<>(MessageType.class);
+        private ThreadFactory threadFactory;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int bufferCapacity = Flow.defaultBufferSize();
+        private BiConsumer<MessageType, InfoPlusParseException> failureHandler = (type, exception) -> {
+        };
+
+        private Builder(InfoPlusParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+        }
+
+        /**
+         * @param backpressure What to do with a payload when the queue of its type is full
+         * @return This builder
+         */
+        public Builder backpressure(Backpressure backpressure) {
+            this.backpressure = Objects.requireNonNull(backpressure, "backpressure");
+            return this;
+        }
+
+        /**
+         * @param type Message type
+         * @param workers Number of threads parsing messages of the type, 1 by default
+         * @return This builder
+         */
+        public Builder workers(MessageType type, int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("workers must be at least 1");
+            }
+            this.workers.put(Objects.requireNonNull(type, "type"), workers);
+            return this;
+        }
+
+        /**
+         * @param type Message type
+         * @param capacity Maximum number of payloads of the type waiting for a worker,
+         *                 {@link #DEFAULT_QUEUE_CAPACITY} by default
+         * @return This builder
+         */
+        public Builder queueCapacity(MessageType type, int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be at least 1");
+            }
+            this.queueCapacity.put(Objects.requireNonNull(type, "type"), capacity);
+            return this;
+        }
+
+        /**
+         * Set the factory of the worker threads, for example to run them on virtual threads.
+         * Defaults to daemon platform threads named after their type.
+         * @param threadFactory Factory of the worker threads
+         * @return This builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+            return this;
+        }
+
+        /**
+         * Set the executor that delivers parsed messages to the subscribers, the common
+         * ForkJoinPool by default. The executor is not shut down by the pipeline.
+         * @param executor Executor delivering to the subscribers
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * @param bufferCapacity Maximum number of parsed messages buffered per subscriber
+         *                       before the workers wait, {@link Flow#defaultBufferSize()} by
+         *                       default
+         * @return This builder
+         */
+        public Builder bufferCapacity(int bufferCapacity) {
+            if (bufferCapacity < 1) {
+                throw new IllegalArgumentException("bufferCapacity must be at least 1");
+            }
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        /**
+         * Set the handler of payloads that fail to parse, called on the thread that found
+         * the failure, so it must be thread-safe. Failures are ignored by default, but
+         * always counted in the {@link Stats}.
+         * @param failureHandler Receives the message type, or null when the type could not
+         *                       be detected, and the failure
+         * @return This builder
+         */
+        public Builder onFailure(BiConsumer<MessageType, InfoPlusParseException> failureHandler) {
+            this.failureHandler = Objects.requireNonNull(failureHandler, "failureHandler");
+            return this;
+        }
+
+        /**
+         * @return A new pipeline with the configured settings, whose workers are started
+         */
+        public InfoPlusPipeline build() {
+            return new InfoPlusPipeline(this);
+        }
+    }
+}
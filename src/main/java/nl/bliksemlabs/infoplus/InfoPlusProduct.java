@@ -0,0 +1,55 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+/**
+ * A parsed message of any of the supported types, as returned by
+ * {@link InfoPlusParser#parse(java.io.InputStream)}.
+ *
+ * <pre>{@code
+ * switch (InfoPlusMessage.parse(inputStream)) {
+ *     case InfoPlusProduct.Rit rit -> handle(rit.product());
+ *     case InfoPlusProduct.Dvs dvs -> handle(dvs.product());
+ *     case InfoPlusProduct.Das das -> handle(das.product());
+ * }
+ * }</pre>
+ */
+public sealed interface InfoPlusProduct {
+
+    /**
+     * @return Type of the message
+     */
+    MessageType type();
+
+    /**
+     * @param product Parsed RIT message
+     */
+    record Rit(ReisInformatieProductRitInfoType product) implements InfoPlusProduct {
+        @Override
+        public MessageType type() {
+            return MessageType.RIT;
+        }
+    }
+
+    /**
+     * @param product Parsed DVS message
+     */
+    record Dvs(ReisInformatieProductDVSType product) implements InfoPlusProduct {
+        @Override
+        public MessageType type() {
+            return MessageType.DVS;
+        }
+    }
+
+    /**
+     * @param product Parsed DAS message
+     */
+    record Das(ReisInformatieProductDASType product) implements InfoPlusProduct {
+        @Override
+        public MessageType type() {
+            return MessageType.DAS;
+        }
+    }
+}
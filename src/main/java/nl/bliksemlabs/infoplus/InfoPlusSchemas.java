@@ -0,0 +1,153 @@
+package nl.bliksemlabs.infoplus;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the lazily compiled Schemas of the message types, shared by all parsers.
+ *
+ * The RIT root element is declared in an XSD, the DVS and DAS root elements only in the
+ * types section of their WSDL. Those inline schemas are read into a DOM and compiled with
+ * the WSDL as system id, so their relative imports resolve against the bundled XSDs. DVS
+ * and DAS each get a Schema of their own, as both define the same data namespace in a
+ * different XSD.
+ *
+ * Like {@link InfoPlusContexts}, creation is guarded by a ReentrantLock so virtual threads
+ * waiting for a Schema do not pin their carrier thread.
+ */
+final class InfoPlusSchemas {
+
+    private static final String WSDL_NS = "http://schemas.xmlsoap.org/wsdl/";
+    private static final String XMLNS_NS = XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+
+    private static final LazySchema RIT = new LazySchema("/infoplus/rit/RIT-service-definities-v5.xsd");
+    private static final LazySchema DVS = new LazySchema("/infoplus/dvs/NDOV_Med_DVSPush_DVSPushExport-v5.0.0.wsdl");
+    private static final LazySchema DAS = new LazySchema("/infoplus/das/NDOV_Med_DASPush_DASPushExport-v1.0.0.wsdl");
+
+    private InfoPlusSchemas() {
+    }
+
+    /**
+     * @return The compiled Schema of the PutReisInformatieBoodschapIn message of the type
+     * @throws SAXException if the schema cannot be read or compiled
+     */
+    static Schema schema(MessageType type) throws SAXException {
+        return switch (type) {
+            case RIT -> RIT.get();
+            case DVS -> DVS.get();
+            case DAS -> DAS.get();
+        };
+    }
+
+    private static Schema compile(String resource) throws SAXException {
+        URL url = InfoPlusSchemas.class.getResource(resource);
+        if (url == null) {
+            throw new SAXException("Missing schema " + resource);
+        }
+        String systemId = url.toExternalForm();
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        // Only the bundled schemas are read, from the file system or a jar
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file,jar");
+        if (resource.endsWith(".xsd")) {
+            return factory.newSchema(new StreamSource(systemId));
+        }
+        return factory.newSchema(inlineSchemas(url, systemId));
+    }
+
+    /**
+     * @return The xs:schema elements in the types section of a WSDL
+     */
+    private static Source[] inlineSchemas(URL url, String systemId) throws SAXException {
+        Document wsdl;
+        try (InputStream in = url.openStream()) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            wsdl = factory.newDocumentBuilder().parse(in, systemId);
+        } catch (IOException | ParserConfigurationException e) {
+            throw new SAXException("Failed to read " + systemId, e);
+        }
+
+        List<Source> sources = new ArrayList<>();
+        NodeList types = wsdl.getElementsByTagNameNS(WSDL_NS, "types");
+        for (int i = 0; i < types.getLength(); i++) {
+            for (Node child = types.item(i).getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element schema && XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(schema.getNamespaceURI())
+                        && "schema".equals(schema.getLocalName())) {
+                    inheritNamespaces(schema);
+                    sources.add(new DOMSource(schema, systemId));
+                }
+            }
+        }
+        if (sources.isEmpty()) {
+            throw new SAXException("No inline schema in " + systemId);
+        }
+        return sources.toArray(Source[]::new);
+    }
+
+    /**
+     * Declare the namespace prefixes of the enclosing WSDL elements on the schema, as
+     * references inside the schema may use them.
+     */
+    private static void inheritNamespaces(Element schema) {
+        for (Node parent = schema.getParentNode(); parent instanceof Element element; parent = parent.getParentNode()) {
+            NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                if (XMLNS_NS.equals(attribute.getNamespaceURI()) && !schema.hasAttributeNS(XMLNS_NS, attribute.getLocalName())) {
+                    schema.setAttributeNS(XMLNS_NS, attribute.getName(), attribute.getValue());
+                }
+            }
+        }
+    }
+
+    private static final class LazySchema {
+
+        private final String resource;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Schema schema;
+
+        LazySchema(String resource) {
+            this.resource = resource;
+        }
+
+        Schema get() throws SAXException {
+            Schema result = schema;
+            if (result == null) {
+                lock.lock();
+                try {
+                    result = schema;
+                    if (result == null) {
+                        result = compile(resource);
+                        schema = result;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return result;
+        }
+    }
+}
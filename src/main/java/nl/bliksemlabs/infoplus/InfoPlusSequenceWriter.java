@@ -0,0 +1,133 @@
+package nl.bliksemlabs.infoplus;
+
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusWriteException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a sequence of messages to a single stream, one message per line.
+ *
+ * Messages are written without XML declaration, which makes each line a complete UTF-8
+ * document that the parse methods accept on its own. Line breaks inside text and
+ * attribute values are written as character references, so a message never spans more
+ * than one line. Created through {@link InfoPlusWriter#sequence(OutputStream)}; not
+ * thread-safe.
+ *
+ * <pre>{@code
+ * try (InfoPlusSequenceWriter sequence = writer.sequence(Files.newOutputStream(path))) {
+ *     sequence.writeRIT(rit);
+ *     sequence.writeDVS(dvs);
+ * }
+ * }</pre>
+ */
+public final class InfoPlusSequenceWriter implements Closeable {
+
+    private static final byte[] LINE_FEED = "&#10;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CARRIAGE_RETURN = "&#13;".getBytes(StandardCharsets.US_ASCII);
+
+    private final InfoPlusWriter writer;
+    private final OutputStream outputStream;
+    private final MessageBuffer buffer = new MessageBuffer();
+
+    InfoPlusSequenceWriter(InfoPlusWriter writer, OutputStream outputStream) {
+        this.writer = writer;
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * @param product RIT message to write as the next line
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeRIT(ReisInformatieProductRitInfoType product) throws InfoPlusWriteException {
+        write(MessageType.RIT, product);
+    }
+
+    /**
+     * @param product DVS message to write as the next line
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeDVS(ReisInformatieProductDVSType product) throws InfoPlusWriteException {
+        write(MessageType.DVS, product);
+    }
+
+    /**
+     * @param product DAS message to write as the next line
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeDAS(ReisInformatieProductDASType product) throws InfoPlusWriteException {
+        write(MessageType.DAS, product);
+    }
+
+    /**
+     * @param product Message of any type to write as the next line
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void write(InfoPlusProduct product) throws InfoPlusWriteException {
+        switch (product) {
+            case InfoPlusProduct.Rit rit -> writeRIT(rit.product());
+            case InfoPlusProduct.Dvs dvs -> writeDVS(dvs.product());
+            case InfoPlusProduct.Das das -> writeDAS(das.product());
+        }
+    }
+
+    /**
+     * Flush the underlying stream.
+     * @throws IOException if flushing fails
+     */
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    /**
+     * Close the underlying stream.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+
+    private void write(MessageType type, Object product) throws InfoPlusWriteException {
+        // Marshal completely before writing, so a failure never leaves half a line behind
+        buffer.reset();
+        writer.write(type, product, buffer, true);
+        try {
+            buffer.writeLineTo(outputStream);
+        } catch (IOException e) {
+            throw new InfoPlusWriteException("Failed to write " + type + " message", e);
+        }
+    }
+
+    /**
+     * Reusable buffer holding one marshalled message.
+     */
+    private static final class MessageBuffer extends ByteArrayOutputStream {
+
+        MessageBuffer() {
+            super(16 * 1024);
+        }
+
+        /**
+         * Write the message with its line breaks escaped, followed by a line feed.
+         */
+        void writeLineTo(OutputStream out) throws IOException {
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                if (buf[i] == '\n' || buf[i] == '\r') {
+                    out.write(buf, start, i - start);
+                    out.write(buf[i] == '\n' ? LINE_FEED : CARRIAGE_RETURN);
+                    start = i + 1;
+                }
+            }
+            out.write(buf, start, count - start);
+            out.write('\n');
+        }
+    }
+}
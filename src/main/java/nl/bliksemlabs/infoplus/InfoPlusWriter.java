@@ -0,0 +1,223 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusWriteException;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Thread-safe writer of InfoPlus messages as XML, using a bounded pool of Marshallers per
+ * message type from the same JAXBContexts as {@link InfoPlusParser}.
+ *
+ * Each product is wrapped in the PutReisInformatieBoodschapIn root element of its type,
+ * so the output is parsed back to an equal product by the parse methods. Output is UTF-8
+ * without indentation. Write many messages to one stream with {@link #sequence(OutputStream)}.
+ *
+ * <pre>{@code
+ * InfoPlusWriter writer = InfoPlusWriter.builder().poolSize(32).build();
+ * writer.writeDVS(dvs, outputStream);
+ * }</pre>
+ */
+public final class InfoPlusWriter {
+
+    /**
+     * Default number of idle Marshallers kept per message type.
+     */
+    public static final int DEFAULT_POOL_SIZE = InfoPlusParser.DEFAULT_POOL_SIZE;
+
+    private final MarshallerPool ritPool;
+    private final MarshallerPool dvsPool;
+    private final MarshallerPool dasPool;
+
+    private InfoPlusWriter(Builder builder) {
+        this.ritPool = new MarshallerPool(MessageType.RIT, builder.poolSize);
+        this.dvsPool = new MarshallerPool(MessageType.DVS, builder.poolSize);
+        this.dasPool = new MarshallerPool(MessageType.DAS, builder.poolSize);
+    }
+
+    /**
+     * @return A new builder with default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Write a RIT message, including the XML declaration. The stream is not closed.
+     * @param product RIT message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeRIT(ReisInformatieProductRitInfoType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        write(MessageType.RIT, product, outputStream, false);
+    }
+
+    /**
+     * Write a RIT message into a ByteBuffer, from its position. The position is advanced
+     * past the message, or left unchanged if writing fails.
+     * @param product RIT message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if marshalling fails or the message does not fit
+     */
+    public void writeRIT(ReisInformatieProductRitInfoType product, ByteBuffer buffer) throws InfoPlusWriteException {
+        write(MessageType.RIT, product, buffer);
+    }
+
+    /**
+     * Write a DVS message, including the XML declaration. The stream is not closed.
+     * @param product DVS message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeDVS(ReisInformatieProductDVSType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        write(MessageType.DVS, product, outputStream, false);
+    }
+
+    /**
+     * Write a DVS message into a ByteBuffer, from its position. The position is advanced
+     * past the message, or left unchanged if writing fails.
+     * @param product DVS message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if marshalling fails or the message does not fit
+     */
+    public void writeDVS(ReisInformatieProductDVSType product, ByteBuffer buffer) throws InfoPlusWriteException {
+        write(MessageType.DVS, product, buffer);
+    }
+
+    /**
+     * Write a DAS message, including the XML declaration. The stream is not closed.
+     * @param product DAS message to write
+     * @param outputStream Stream to write to
+     * @throws InfoPlusWriteException if marshalling or writing fails
+     */
+    public void writeDAS(ReisInformatieProductDASType product, OutputStream outputStream)
+            throws InfoPlusWriteException {
+        write(MessageType.DAS, product, outputStream, false);
+    }
+
+    /**
+     * Write a DAS message into a ByteBuffer, from its position. The position is advanced
+     * past the message, or left unchanged if writing fails.
+     * @param product DAS message to write
+     * @param buffer Buffer to write to
+     * @throws InfoPlusWriteException if marshalling fails or the message does not fit
+     */
+    public void writeDAS(ReisInformatieProductDASType product, ByteBuffer buffer) throws InfoPlusWriteException {
+        write(MessageType.DAS, product, buffer);
+    }
+
+    /**
+     * Start writing a sequence of messages of any type to a stream, one message per line
+     * and without XML declarations.
+     * @param outputStream Stream to write to, closed when the sequence writer is closed
+     * @return Writer for the sequence, to be used by a single thread
+     */
+    public InfoPlusSequenceWriter sequence(OutputStream outputStream) {
+        return new InfoPlusSequenceWriter(this, Objects.requireNonNull(outputStream, "outputStream"));
+    }
+
+    MarshallerPool pool(MessageType type) {
+        return switch (type) {
+            case RIT -> ritPool;
+            case DVS -> dvsPool;
+            case DAS -> dasPool;
+        };
+    }
+
+    /**
+     * Marshal a product in its root element with a Marshaller from the pool.
+     * @param fragment Whether to leave out the XML declaration
+     */
+    void write(MessageType type, Object product, OutputStream outputStream, boolean fragment)
+            throws InfoPlusWriteException {
+        Objects.requireNonNull(product, "product");
+        MarshallerPool pool = pool(type);
+        Marshaller marshaller;
+        try {
+            marshaller = pool.acquire();
+        } catch (JAXBException e) {
+            throw new InfoPlusWriteException("Failed to create marshaller for " + type + " message", e);
+        }
+        // Do not return a marshaller in an unknown state to the pool on failure
+        try {
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+            marshaller.marshal(wrap(type, product), outputStream);
+            pool.release(marshaller);
+        } catch (JAXBException e) {
+            throw new InfoPlusWriteException("Failed to write " + type + " message", e);
+        }
+    }
+
+    private void write(MessageType type, Object product, ByteBuffer buffer) throws InfoPlusWriteException {
+        int position = buffer.position();
+        try {
+            write(type, product, new ByteBufferOutputStream(buffer), false);
+        } catch (InfoPlusWriteException | RuntimeException e) {
+            buffer.position(position);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The PutReisInformatieBoodschapIn root element of the type, holding the product
+     */
+    static Object wrap(MessageType type, Object product) {
+        return switch (type) {
+            case RIT -> {
+                var message = new ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn();
+                message.setReisInformatieProductRitInfo((ReisInformatieProductRitInfoType) product);
+                yield message;
+            }
+            case DVS -> {
+                var message = new ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn();
+                message.setReisInformatieProductDVS((ReisInformatieProductDVSType) product);
+                yield message;
+            }
+            case DAS -> {
+                var message = new ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn();
+                message.setReisInformatieProductDAS((ReisInformatieProductDASType) product);
+                yield message;
+            }
+        };
+    }
+
+    /**
+     * Builder for {@link InfoPlusWriter} instances.
+     */
+    public static final class Builder {
+
+        private int poolSize = DEFAULT_POOL_SIZE;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of idle Marshallers kept per message type. Writes beyond
+         * this concurrency still succeed, but create a new Marshaller.
+         * @param poolSize Maximum number of pooled Marshallers per type
+         * @return This builder
+         */
+        public Builder poolSize(int poolSize) {
+            if (poolSize < 0) {
+                throw new IllegalArgumentException("poolSize must not be negative");
+            }
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * @return A new writer with the configured settings
+         */
+        public InfoPlusWriter build() {
+            return new InfoPlusWriter(this);
+        }
+    }
+}
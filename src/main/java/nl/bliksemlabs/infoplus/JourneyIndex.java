@@ -0,0 +1,362 @@
+package nl.bliksemlabs.infoplus;
+
+import ns.cdm.reisinformatie.data.rit._5.AankomstOfVertrekTijdType;
+import ns.cdm.reisinformatie.data.rit._5.Indicatie;
+import ns.cdm.reisinformatie.data.rit._5.InfoStatus;
+import ns.cdm.reisinformatie.data.rit._5.LogischeRitDeelType;
+import ns.cdm.reisinformatie.data.rit._5.LogischeRitType;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import ns.cdm.reisinformatie.data.rit._5.RitStationsType;
+import ns.cdm.reisinformatie.data.rit._5.SpoorPlannedActueelType;
+import ns.cdm.reisinformatie.data.rit._5.StoptType;
+import ns.cdm.reisinformatie.data.rit._5.TreinRitType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stop-level times and tracks of trains, built from RIT messages, for constant time
+ * lookups by train number, date and station.
+ *
+ * Every LogischeRitDeel is stored as a set of primitive and String arrays with a small
+ * hash table over its station codes, so the JAXB graph of the message can be discarded
+ * once it has been applied. A newer version of a trip replaces all of its train parts;
+ * parts that no longer occur in the trip are removed. A train part that occurs in more
+ * than one trip holds the values of the newest message of the trips that still contain
+ * it, and is only removed once none of them does.
+ *
+ * The index is thread-safe. Train parts are immutable and replaced as a whole, so a
+ * lookup never sees a partially applied message.
+ */
+public final class JourneyIndex {
+
+    /**
+     * Value of a time that is not present in the message.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final byte PLANNED_STOP = 1;
+    private static final byte ACTUAL_STOP = 2;
+    private static final byte ACTUAL_STOP_KNOWN = 4;
+
+    private final ConcurrentHashMap<TripKey, Trip> trips = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, SharedPart> parts = new ConcurrentHashMap<>();
+
+    /**
+     * Index the trip of a RIT message, unless a message with the same or a newer
+     * {@link MessageVersion} was applied for it before.
+     * @param product Parsed RIT message
+     * @return Whether the index was changed
+     */
+    public boolean apply(ReisInformatieProductRitInfoType product) {
+        TreinRitType ritInfo = product.getRitInfo();
+        if (ritInfo == null || ritInfo.getTreinDatum() == null) {
+            throw new IllegalArgumentException("RIT message without RitInfo or TreinDatum");
+        }
+        TripKey key = new TripKey(ritInfo.getTreinNummer(), ritInfo.getTreinDatum());
+        MessageVersion version = MessageVersion.of(product.getRIPAdministratie());
+        boolean[] changed = new boolean[1];
+        trips.compute(key, (tripKey, stored) -> {
+            if (stored != null && version.compareTo(stored.version()) <= 0) {
+                return stored;
+            }
+            Trip trip = new Trip(version, build(ritInfo, version));
+            for (Part part : trip.parts()) {
+                parts.compute(part.key, (partKey, shared) -> SharedPart.with(shared, tripKey, part));
+            }
+            if (stored != null) {
+                Set<Long> current = new HashSet<>();
+                for (Part part : trip.parts()) {
+                    current.add(part.key);
+                }
+                for (Part part : stored.parts()) {
+                    if (!current.contains(part.key)) {
+                        parts.computeIfPresent(part.key, (partKey, shared) -> shared.without(tripKey));
+                    }
+                }
+            }
+            changed[0] = true;
+            return trip;
+        });
+        return changed[0];
+    }
+
+    /**
+     * @param treinNummer LogischeRitDeelNummer of the train
+     * @param treinDatum TreinDatum of the trip
+     * @param stationCode StationCode of the station
+     * @return Times and tracks of the train at the station
+     */
+    public Optional<JourneyStop> stop(int treinNummer, LocalDate treinDatum, String stationCode) {
+        SharedPart shared = parts.get(partKey(treinNummer, treinDatum));
+        if (shared == null) {
+            return Optional.empty();
+        }
+        Part part = shared.newest();
+        int index = part.indexOf(stationCode);
+        return index < 0 ? Optional.empty() : Optional.of(part.stop(index));
+    }
+
+    /**
+     * @param treinNummer LogischeRitDeelNummer of the train
+     * @param treinDatum TreinDatum of the trip
+     * @return All stations of the train in route order
+     */
+    public List<JourneyStop> stops(int treinNummer, LocalDate treinDatum) {
+        SharedPart shared = parts.get(partKey(treinNummer, treinDatum));
+        if (shared == null) {
+            return List.of();
+        }
+        Part part = shared.newest();
+        List<JourneyStop> stops = new ArrayList<>(part.stationCodes.length);
+        for (int i = 0; i < part.stationCodes.length; i++) {
+            stops.add(part.stop(i));
+        }
+        return stops;
+    }
+
+    /**
+     * Remove all trips with a TreinDatum before the given date.
+     * @param date First date to keep
+     * @return Number of removed trips
+     */
+    public int expire(LocalDate date) {
+        int[] removed = new int[1];
+        for (TripKey key : trips.keySet()) {
+            if (!key.treinDatum().isBefore(date)) {
+                continue;
+            }
+            // Release the parts under the lock of the trip, so a concurrent apply cannot interleave
+            trips.computeIfPresent(key, (tripKey, trip) -> {
+                for (Part part : trip.parts()) {
+                    parts.computeIfPresent(part.key, (partKey, shared) -> shared.without(tripKey));
+                }
+                removed[0]++;
+                return null;
+            });
+        }
+        return removed[0];
+    }
+
+    /**
+     * @return Number of indexed trips
+     */
+    public int size() {
+        return trips.size();
+    }
+
+    private static long partKey(int treinNummer, LocalDate treinDatum) {
+        return (treinDatum.toEpochDay() << 32) | (treinNummer & 0xffffffffL);
+    }
+
+    private static List<Part> build(TreinRitType ritInfo, MessageVersion version) {
+        // A train number may occur in more than one LogischeRit, its stations are combined
+        Map<Integer, List<RitStationsType>> stationsPerPart = new LinkedHashMap<>();
+        for (LogischeRitType logischeRit : ritInfo.getLogischeRit()) {
+            for (LogischeRitDeelType deel : logischeRit.getLogischeRitDeel()) {
+                stationsPerPart.computeIfAbsent(deel.getLogischeRitDeelNummer(), nummer -> new ArrayList<>())
+                    .addAll(deel.getLogischeRitDeelStation());
+            }
+        }
+        List<Part> result = new ArrayList<>(stationsPerPart.size());
+        for (Map.Entry<Integer, List<RitStationsType>> entry : stationsPerPart.entrySet()) {
+            result.add(new Part(entry.getKey(), ritInfo.getTreinDatum(), version, entry.getValue()));
+        }
+        return result;
+    }
+
+    private record TripKey(int treinNummer, LocalDate treinDatum) {
+    }
+
+    private record Trip(MessageVersion version, List<Part> parts) {
+    }
+
+    /**
+     * The copies of a train part held by the trips that contain it, and the newest of them.
+     * Immutable, so it is replaced within a compute of the part key.
+     */
+    private record SharedPart(Part newest, Map<TripKey, Part> owners) {
+
+        static SharedPart with(SharedPart shared, TripKey trip, Part part) {
+            if (shared == null) {
+                return new SharedPart(part, Map.of(trip, part));
+            }
+            Map<TripKey, Part> owners = new HashMap<>(shared.owners);
+            owners.put(trip, part);
+            return of(owners);
+        }
+
+        /**
+         * @return The part without the copy of the trip, or null if no other trip contains it
+         */
+        SharedPart without(TripKey trip) {
+            if (!owners.containsKey(trip)) {
+                return this;
+            }
+            Map<TripKey, Part> remaining = new HashMap<>(owners);
+            remaining.remove(trip);
+            return remaining.isEmpty() ? null : of(remaining);
+        }
+
+        private static SharedPart of(Map<TripKey, Part> owners) {
+            Part newest = null;
+            for (Part part : owners.values()) {
+                if (newest == null || part.version.compareTo(newest.version) > 0) {
+                    newest = part;
+                }
+            }
+            return new SharedPart(newest, owners);
+        }
+    }
+
+    /**
+     * The stations of a single LogischeRitDeel in column form.
+     */
+    private static final class Part {
+
+        final long key;
+        final int treinNummer;
+        final LocalDate treinDatum;
+        final MessageVersion version;
+        final String[] stationCodes;
+        final long[] plannedArrival;
+        final long[] actualArrival;
+        final int[] arrivalDelay;
+        final String[] plannedArrivalTrack;
+        final String[] actualArrivalTrack;
+        final long[] plannedDeparture;
+        final long[] actualDeparture;
+        final int[] departureDelay;
+        final String[] plannedDepartureTrack;
+        final String[] actualDepartureTrack;
+        final byte[] stopt;
+        // Open addressing table of station index + 1, 0 marks an empty slot
+        final int[] slots;
+
+        Part(int treinNummer, LocalDate treinDatum, MessageVersion version, List<RitStationsType> stations) {
+            int size = stations.size();
+            this.key = partKey(treinNummer, treinDatum);
+            this.treinNummer = treinNummer;
+            this.treinDatum = treinDatum;
+            this.version = version;
+            stationCodes = new String[size];
+            plannedArrival = new long[size];
+            actualArrival = new long[size];
+            arrivalDelay = new int[size];
+            plannedArrivalTrack = new String[size];
+            actualArrivalTrack = new String[size];
+            plannedDeparture = new long[size];
+            actualDeparture = new long[size];
+            departureDelay = new int[size];
+            plannedDepartureTrack = new String[size];
+            actualDepartureTrack = new String[size];
+            stopt = new byte[size];
+            slots = new int[Integer.highestOneBit(Math.max(1, size) * 2) * 2];
+
+            for (int i = 0; i < size; i++) {
+                RitStationsType station = stations.get(i);
+                stationCodes[i] = station.getStation() == null ? null : station.getStation().getStationCode();
+                plannedArrival[i] = time(station.getAankomstTijd(), InfoStatus.GEPLAND);
+                actualArrival[i] = time(station.getAankomstTijd(), InfoStatus.ACTUEEL);
+                arrivalDelay[i] = seconds(station.getExacteAankomstVertraging());
+                plannedArrivalTrack[i] = track(station.getTreinAankomstSpoor(), InfoStatus.GEPLAND);
+                actualArrivalTrack[i] = track(station.getTreinAankomstSpoor(), InfoStatus.ACTUEEL);
+                plannedDeparture[i] = time(station.getVertrekTijd(), InfoStatus.GEPLAND);
+                actualDeparture[i] = time(station.getVertrekTijd(), InfoStatus.ACTUEEL);
+                departureDelay[i] = seconds(station.getExacteVertrekVertraging());
+                plannedDepartureTrack[i] = track(station.getTreinVertrekSpoor(), InfoStatus.GEPLAND);
+                actualDepartureTrack[i] = track(station.getTreinVertrekSpoor(), InfoStatus.ACTUEEL);
+                stopt[i] = stopt(station.getStopt());
+                if (stationCodes[i] != null && indexOf(stationCodes[i]) < 0) {
+                    insert(stationCodes[i], i);
+                }
+            }
+        }
+
+        int indexOf(String stationCode) {
+            int mask = slots.length - 1;
+            for (int slot = hash(stationCode) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int index = slots[slot] - 1;
+                if (stationCodes[index].equals(stationCode)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        JourneyStop stop(int i) {
+            boolean planned = (stopt[i] & PLANNED_STOP) != 0;
+            boolean actual = (stopt[i] & ACTUAL_STOP_KNOWN) != 0 ? (stopt[i] & ACTUAL_STOP) != 0 : planned;
+            return new JourneyStop(
+                treinNummer, treinDatum, stationCodes[i],
+                plannedArrival[i], actualArrival[i], arrivalDelay[i], plannedArrivalTrack[i], actualArrivalTrack[i],
+                plannedDeparture[i], actualDeparture[i], departureDelay[i], plannedDepartureTrack[i], actualDepartureTrack[i],
+                planned, actual
+            );
+        }
+
+        private void insert(String stationCode, int index) {
+            int mask = slots.length - 1;
+            int slot = hash(stationCode) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+
+        private static int hash(String stationCode) {
+            int h = stationCode.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private static long time(List<AankomstOfVertrekTijdType> times, InfoStatus status) {
+        for (AankomstOfVertrekTijdType time : times) {
+            if (time.getInfoStatus() == status) {
+                LocalDateTime value = time.getValue();
+                return value == null ? NO_TIME : value.toEpochSecond(ZoneOffset.UTC);
+            }
+        }
+        return NO_TIME;
+    }
+
+    private static String track(List<SpoorPlannedActueelType> sporen, InfoStatus status) {
+        for (SpoorPlannedActueelType spoor : sporen) {
+            if (spoor.getInfoStatus() == status) {
+                return DvsDeparture.track(spoor.getSpoorNummer(), spoor.getSpoorFase());
+            }
+        }
+        return null;
+    }
+
+    private static int seconds(Duration duration) {
+        return duration == null ? 0 : Math.toIntExact(duration.getSeconds());
+    }
+
+    private static byte stopt(List<StoptType> stopt) {
+        byte flags = 0;
+        for (StoptType value : stopt) {
+            boolean stops = value.getValue() == Indicatie.J;
+            if (value.getInfoStatus() == InfoStatus.GEPLAND && stops) {
+                flags |= PLANNED_STOP;
+            } else if (value.getInfoStatus() == InfoStatus.ACTUEEL) {
+                flags |= ACTUAL_STOP_KNOWN;
+                if (stops) {
+                    flags |= ACTUAL_STOP;
+                }
+            }
+        }
+        return flags;
+    }
+}
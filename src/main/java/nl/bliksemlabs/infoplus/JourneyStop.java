@@ -0,0 +1,44 @@
+package nl.bliksemlabs.infoplus;
+
+import java.time.LocalDate;
+
+/**
+ * Times and tracks of a train at a single station, as held by a {@link JourneyIndex}.
+ *
+ * Times are UTC epoch seconds, or {@link JourneyIndex#NO_TIME} when absent. Tracks
+ * combine the SpoorNummer and SpoorFase (e.g. {@code 5b}) and are null when absent.
+ *
+ * @param treinNummer LogischeRitDeelNummer of the train
+ * @param treinDatum TreinDatum of the trip
+ * @param stationCode StationCode of the station
+ * @param plannedArrival Planned AankomstTijd
+ * @param actualArrival Actual AankomstTijd
+ * @param arrivalDelaySeconds ExacteAankomstVertraging in seconds, 0 when absent
+ * @param plannedArrivalTrack Planned TreinAankomstSpoor
+ * @param actualArrivalTrack Actual TreinAankomstSpoor
+ * @param plannedDeparture Planned VertrekTijd
+ * @param actualDeparture Actual VertrekTijd
+ * @param departureDelaySeconds ExacteVertrekVertraging in seconds, 0 when absent
+ * @param plannedDepartureTrack Planned TreinVertrekSpoor
+ * @param actualDepartureTrack Actual TreinVertrekSpoor
+ * @param plannedStop Whether the train is planned to stop (Stopt)
+ * @param actualStop Whether the train actually stops, the planned value when unknown
+ */
+public record JourneyStop(
+    int treinNummer,
+    LocalDate treinDatum,
+    String stationCode,
+    long plannedArrival,
+    long actualArrival,
+    int arrivalDelaySeconds,
+    String plannedArrivalTrack,
+    String actualArrivalTrack,
+    long plannedDeparture,
+    long actualDeparture,
+    int departureDelaySeconds,
+    String plannedDepartureTrack,
+    String actualDepartureTrack,
+    boolean plannedStop,
+    boolean actualStop
+) {
+}
@@ -0,0 +1,50 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of Marshallers for a single message type, created from the same shared
+ * JAXBContexts as the Unmarshallers.
+ *
+ * Acquisition never blocks: when the pool is empty a new Marshaller is created, and on
+ * release it is only kept when fewer than {@code capacity} are idle. Callers set the
+ * JAXB_FRAGMENT property on every use, as writers with and without XML declaration
+ * share the pool.
+ */
+final class MarshallerPool {
+
+    private final MessageType type;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Marshaller> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    MarshallerPool(MessageType type, int capacity) {
+        this.type = type;
+        this.capacity = capacity;
+    }
+
+    MessageType type() {
+        return type;
+    }
+
+    Marshaller acquire() throws JAXBException {
+        Marshaller marshaller = idle.poll();
+        if (marshaller != null) {
+            idleCount.decrementAndGet();
+            return marshaller;
+        }
+        return type.context().createMarshaller();
+    }
+
+    void release(Marshaller marshaller) {
+        if (idleCount.incrementAndGet() <= capacity) {
+            idle.offer(marshaller);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package nl.bliksemlabs.infoplus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Key and content hash of an uncompressed message, computed in a single scan over its
+ * bytes without parsing it.
+ *
+ * The hash covers every byte of the message except the TimeStamp attribute and the
+ * ReisInformatieTijdstip and ReisInformatieProductID elements, which change with every
+ * resend. The key identifies the service the message is about: RitId, RitDatum and the
+ * StationCode of the RitStation for DVS and DAS messages, TreinNummer and TreinDatum of
+ * the RitInfo for RIT messages. InfoPlus messages are UTF-8 (or ASCII) encoded, in which
+ * markup characters are single bytes.
+ *
+ * The hash folds in eight bytes at a time with a multiply and rotate, both of which are
+ * invertible, so two messages that differ within a single eight byte word always have
+ * different hashes.
+ *
+ * @param key Product element name followed by the identifying values
+ * @param hash Hash of the content
+ */
+record MessageFingerprint(String key, long hash) {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long SEED = 0x243F6A8885A308D3L;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final String DVS = "ReisInformatieProductDVS";
+    private static final String DAS = "ReisInformatieProductDAS";
+    private static final String RIT = "ReisInformatieProductRitInfo";
+
+    /**
+     * @param bytes Array containing the uncompressed message
+     * @param offset Offset of the message in the array
+     * @param length Length of the message in bytes
+     * @return Fingerprint of the message, or null if it is not a RIT, DVS or DAS message
+     *         with all of its key values
+     */
+    static MessageFingerprint of(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        long hash = SEED;
+        int unhashed = offset;
+
+        String product = null;
+        String ritId = null;
+        String ritDatum = null;
+        String stationCode = null;
+        String treinNummer = null;
+        String treinDatum = null;
+        boolean inRitStation = false;
+
+        int position = offset;
+        while (true) {
+            position = indexOf(bytes, position, end, (byte) '<');
+            if (position < 0 || position + 1 >= end) {
+                break;
+            }
+            byte next = bytes[position + 1];
+            if (next == '/' || next == '?' || next == '!') {
+                // End tags, the prolog and comments are hashed as they are
+                position += 2;
+                continue;
+            }
+
+            // Element name, without its prefix
+            int localStart = position + 1;
+            int nameEnd = localStart;
+            while (nameEnd < end && !isNameEnd(bytes[nameEnd])) {
+                if (bytes[nameEnd] == ':') {
+                    localStart = nameEnd + 1;
+                }
+                nameEnd++;
+            }
+
+            // Attributes, leaving out the value of TimeStamp
+            int tagEnd = nameEnd;
+            while (tagEnd < end && bytes[tagEnd] != '>') {
+                if (isWhitespace(bytes[tagEnd]) || bytes[tagEnd] == '/') {
+                    tagEnd++;
+                    continue;
+                }
+                int attributeStart = tagEnd;
+                while (tagEnd < end && bytes[tagEnd] != '=' && bytes[tagEnd] != '>' && !isWhitespace(bytes[tagEnd])) {
+                    if (bytes[tagEnd] == ':') {
+                        attributeStart = tagEnd + 1;
+                    }
+                    tagEnd++;
+                }
+                int attributeEnd = tagEnd;
+                while (tagEnd < end && bytes[tagEnd] != '"' && bytes[tagEnd] != '\'' && bytes[tagEnd] != '>') {
+                    tagEnd++;
+                }
+                if (tagEnd >= end || bytes[tagEnd] == '>') {
+                    break;
+                }
+                byte quote = bytes[tagEnd++];
+                int valueStart = tagEnd;
+                while (tagEnd < end && bytes[tagEnd] != quote) {
+                    tagEnd++;
+                }
+                if (matches(bytes, attributeStart, attributeEnd, "TimeStamp")) {
+                    hash = hash(hash, bytes, unhashed, valueStart);
+                    unhashed = Math.min(tagEnd, end);
+                }
+                tagEnd++;
+            }
+            if (tagEnd >= end) {
+                break;
+            }
+            position = tagEnd + 1;
+            if (bytes[tagEnd - 1] == '/') {
+                continue;
+            }
+
+            // Element content
+            if (matches(bytes, localStart, nameEnd, "ReisInformatieTijdstip")
+                    || matches(bytes, localStart, nameEnd, "ReisInformatieProductID")) {
+                hash = hash(hash, bytes, unhashed, position);
+                int contentEnd = indexOf(bytes, position, end, (byte) '<');
+                unhashed = contentEnd < 0 ? end : contentEnd;
+                position = unhashed;
+            } else if (product == null) {
+                product = matches(bytes, localStart, nameEnd, DVS) ? DVS
+                    : matches(bytes, localStart, nameEnd, DAS) ? DAS
+                    : matches(bytes, localStart, nameEnd, RIT) ? RIT
+                    : null;
+            } else if (ritId == null && matches(bytes, localStart, nameEnd, "RitId")) {
+                ritId = text(bytes, position, end);
+            } else if (ritDatum == null && matches(bytes, localStart, nameEnd, "RitDatum")) {
+                ritDatum = text(bytes, position, end);
+            } else if (stationCode == null && matches(bytes, localStart, nameEnd, "RitStation")) {
+                inRitStation = true;
+            } else if (inRitStation && matches(bytes, localStart, nameEnd, "StationCode")) {
+                stationCode = text(bytes, position, end);
+                inRitStation = false;
+            } else if (treinNummer == null && matches(bytes, localStart, nameEnd, "TreinNummer")) {
+                treinNummer = text(bytes, position, end);
+            } else if (treinDatum == null && matches(bytes, localStart, nameEnd, "TreinDatum")) {
+                treinDatum = text(bytes, position, end);
+            }
+        }
+        hash = hash(hash, bytes, unhashed, end);
+
+        if (RIT.equals(product)) {
+            return treinNummer == null || treinDatum == null
+                ? null
+                : new MessageFingerprint(product + '/' + treinNummer + '/' + treinDatum, hash);
+        }
+        if (product == null || ritId == null || ritDatum == null || stationCode == null) {
+            return null;
+        }
+        return new MessageFingerprint(product + '/' + ritId + '/' + ritDatum + '/' + stationCode, hash);
+    }
+
+    /**
+     * @return RitId of a DVS or DAS message, or TreinNummer of a RIT message
+     */
+    String ritId() {
+        int start = key.indexOf('/') + 1;
+        return key.substring(start, key.indexOf('/', start));
+    }
+
+    private static long hash(long hash, byte[] bytes, int from, int to) {
+        hash = mix(hash, to - from);
+        int position = from;
+        for (; position + Long.BYTES <= to; position += Long.BYTES) {
+            hash = mix(hash, (long) LONGS.get(bytes, position));
+        }
+        long tail = 0;
+        for (int shift = 0; position < to; position++, shift += Byte.SIZE) {
+            tail |= (bytes[position] & 0xFFL) << shift;
+        }
+        return mix(hash, tail);
+    }
+
+    private static long mix(long hash, long word) {
+        return Long.rotateLeft((hash ^ word) * MULTIPLIER, 29);
+    }
+
+    private static String text(byte[] bytes, int from, int end) {
+        int to = indexOf(bytes, from, end, (byte) '<');
+        return new String(bytes, from, (to < 0 ? end : to) - from, StandardCharsets.UTF_8).trim();
+    }
+
+    private static boolean matches(byte[] bytes, int from, int to, String name) {
+        if (to - from != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (bytes[from + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int end, byte b) {
+        for (int position = from; position < end; position++) {
+            if (bytes[position] == b) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return isWhitespace(b) || b == '>' || b == '/';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,62 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * The InfoPlus message types supported by this library.
+ */
+public enum MessageType {
+
+    /**
+     * RitInfo: journey/trip information messages
+     */
+    RIT("urn:ns:cdm:reisinformatie:message:ritinfo:5"),
+
+    /**
+     * Dynamische Vertrek Staat: dynamic departure board messages
+     */
+    DVS("urn:ndov:cdm:trein:reisinformatie:messages:5"),
+
+    /**
+     * Dynamische Aankomst Staat: dynamic arrival board messages
+     */
+    DAS("urn:ndov:cdm:trein:reisinformatie:messages:dynamischeaankomststaat:1");
+
+    private final String namespace;
+
+    MessageType(String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return Namespace of the PutReisInformatieBoodschapIn root element of this type
+     */
+    String namespace() {
+        return namespace;
+    }
+
+    /**
+     * @param namespace Namespace of a root element
+     * @return The message type with this root namespace, or null if there is none
+     */
+    static MessageType fromNamespace(String namespace) {
+        for (MessageType type : values()) {
+            if (type.namespace.equals(namespace)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The JAXBContext that unmarshals messages of this type
+     */
+    JAXBContext context() throws JAXBException {
+        return switch (this) {
+            case RIT -> InfoPlusContexts.rit();
+            case DVS -> InfoPlusContexts.dvs();
+            case DAS -> InfoPlusContexts.das();
+        };
+    }
+}
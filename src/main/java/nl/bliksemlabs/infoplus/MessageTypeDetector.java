@@ -0,0 +1,191 @@
+package nl.bliksemlabs.infoplus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Determines the type of a message from the namespace of its root element, by scanning
+ * the first bytes of the stream and resetting it afterwards.
+ *
+ * Only the prolog and the root start tag are read, so the message itself is parsed once,
+ * by the unmarshaller of the detected type. InfoPlus messages are UTF-8 (or ASCII)
+ * encoded, in which markup characters are single bytes.
+ */
+final class MessageTypeDetector {
+
+    /**
+     * Maximum number of bytes read to find the root start tag.
+     */
+    static final int LIMIT = 8192;
+
+    private static final int INITIAL_SIZE = 512;
+
+    private MessageTypeDetector() {
+    }
+
+    /**
+     * @param in Stream positioned at the start of the message, which must support mark
+     * @return The message type, or null if the root element is not a supported message
+     * @throws IOException if the stream cannot be read or reset
+     */
+    static MessageType detect(InputStream in) throws IOException {
+        in.mark(LIMIT);
+        byte[] buffer = new byte[INITIAL_SIZE];
+        int length = 0;
+        try {
+            while (true) {
+                int count = in.read(buffer, length, buffer.length - length);
+                if (count == -1) {
+                    return typeOf(buffer, length);
+                }
+                length += count;
+                if (rootTagEnd(buffer, length) >= 0) {
+                    return typeOf(buffer, length);
+                }
+                if (length == buffer.length) {
+                    if (length == LIMIT) {
+                        return null;
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(LIMIT, length * 2));
+                }
+            }
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static MessageType typeOf(byte[] buffer, int length) {
+        int start = rootTagStart(buffer, length);
+        if (start < 0 || rootTagEnd(buffer, length) < 0) {
+            return null;
+        }
+
+        // Element name and its prefix
+        int position = start + 1;
+        int nameStart = position;
+        int colon = -1;
+        while (position < length && !isNameEnd(buffer[position])) {
+            if (buffer[position] == ':') {
+                colon = position;
+            }
+            position++;
+        }
+        String declaration = colon < 0
+            ? "xmlns"
+            : "xmlns:" + new String(buffer, nameStart, colon - nameStart, StandardCharsets.UTF_8);
+
+        // Attributes, looking for the declaration of the element namespace
+        while (position < length) {
+            while (position < length && isWhitespace(buffer[position])) {
+                position++;
+            }
+            if (position >= length || buffer[position] == '>' || buffer[position] == '/') {
+                return null;
+            }
+            int attributeStart = position;
+            while (position < length && buffer[position] != '=' && !isWhitespace(buffer[position])) {
+                position++;
+            }
+            String attribute = new String(buffer, attributeStart, position - attributeStart, StandardCharsets.UTF_8);
+            while (position < length && buffer[position] != '\'' && buffer[position] != '"') {
+                position++;
+            }
+            if (position >= length) {
+                return null;
+            }
+            byte quote = buffer[position++];
+            int valueStart = position;
+            while (position < length && buffer[position] != quote) {
+                position++;
+            }
+            if (attribute.equals(declaration)) {
+                return MessageType.fromNamespace(new String(buffer, valueStart, position - valueStart, StandardCharsets.UTF_8));
+            }
+            position++;
+        }
+        return null;
+    }
+
+    /**
+     * @return Offset of the '<' of the root start tag, or -1 if it was not read yet
+     */
+    private static int rootTagStart(byte[] buffer, int length) {
+        int position = 0;
+        while (position < length) {
+            if (buffer[position] != '<') {
+                position++;
+            } else if (startsWith(buffer, length, position, "<?")) {
+                position = indexOf(buffer, length, position, "?>");
+            } else if (startsWith(buffer, length, position, "<!--")) {
+                position = indexOf(buffer, length, position, "-->");
+            } else if (startsWith(buffer, length, position, "<!")) {
+                // A DOCTYPE without internal subset; DTDs are not supported by the parsers
+                position = indexOf(buffer, length, position, ">");
+            } else {
+                return position + 1 < length ? position : -1;
+            }
+            if (position < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Offset of the '>' closing the root start tag, or -1 if it was not read yet
+     */
+    private static int rootTagEnd(byte[] buffer, int length) {
+        int start = rootTagStart(buffer, length);
+        if (start < 0) {
+            return -1;
+        }
+        byte quote = 0;
+        for (int position = start; position < length; position++) {
+            byte b = buffer[position];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] buffer, int length, int position, String prefix) {
+        if (position + prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Offset just after {@code marker}, or -1 if it was not read yet
+     */
+    private static int indexOf(byte[] buffer, int length, int from, String marker) {
+        for (int position = from; position + marker.length() <= length; position++) {
+            if (startsWith(buffer, length, position, marker)) {
+                return position + marker.length();
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return isWhitespace(b) || b == '>' || b == '/';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,38 @@
+package nl.bliksemlabs.infoplus;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Version of a message, ordered by the ReisInformatieTijdstip and then the
+ * ReisInformatieProductID of its RIPAdministratie. Missing values order before any
+ * present value.
+ *
+ * @param reisInformatieTijdstip ReisInformatieTijdstip of the RIPAdministratie, or null
+ * @param reisInformatieProductId ReisInformatieProductID of the RIPAdministratie, or null
+ */
+public record MessageVersion(LocalDateTime reisInformatieTijdstip, BigInteger reisInformatieProductId)
+        implements Comparable<MessageVersion> {
+
+    private static final Comparator<MessageVersion> ORDER = Comparator
+        .comparing(MessageVersion::reisInformatieTijdstip, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(MessageVersion::reisInformatieProductId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    static MessageVersion of(ndov.cdm.trein.reisinformatie.data._4.RIPAdministratieType administratie) {
+        return administratie == null
+            ? new MessageVersion(null, null)
+            : new MessageVersion(administratie.getReisInformatieTijdstip(), administratie.getReisInformatieProductID());
+    }
+
+    static MessageVersion of(ns.cdm.reisinformatie.data.rit._5.RIPAdministratieType administratie) {
+        return administratie == null
+            ? new MessageVersion(null, null)
+            : new MessageVersion(administratie.getReisInformatieTijdstip(), administratie.getReisInformatieProductID());
+    }
+
+    @Override
+    public int compareTo(MessageVersion other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,56 @@
+package nl.bliksemlabs.infoplus;
+
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+
+/**
+ * Receives the cost and outcome of every message handled by an {@link InfoPlusParser},
+ * for metrics. {@link ParseMetrics} is a ready-made implementation.
+ *
+ * A listener is installed with {@link InfoPlusParser.Builder#listener(ParseListener)}.
+ * Without one, the parser takes no timings and does not count bytes. Methods are called
+ * on the parsing thread after each message, so implementations must be thread-safe and
+ * cheap. All methods do nothing by default.
+ */
+public interface ParseListener {
+
+    /**
+     * A message was parsed, decoded or streamed.
+     * @param type Type of the message
+     * @param bytes Size of the message as passed to the parser, compressed or not; the
+     *              number of characters for messages passed as a String
+     * @param nanos Time spent, including inflating and acquiring an Unmarshaller
+     * @param allocatedBytes Bytes allocated by the parsing thread, or -1 when allocation is
+     *                       not measured or the thread is virtual
+     */
+    default void parsed(MessageType type, long bytes, long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * Parsing a message failed.
+     * @param type Type of the message, or null when parsing a message of any type failed
+     *             before its type was known
+     * @param bytes Part of the message read before the failure
+     * @param nanos Time spent until the failure
+     * @param exception The exception thrown to the caller, or one wrapping the RuntimeException
+     *                  thrown to the caller
+     */
+    default void failed(MessageType type, long bytes, long nanos, InfoPlusParseException exception) {
+    }
+
+    /**
+     * An Unmarshaller was taken from the pool of the parser, or created when none was idle.
+     * @param type Type of the Unmarshaller
+     * @param nanos Time spent acquiring it
+     * @param created Whether a new Unmarshaller had to be created
+     */
+    default void unmarshallerAcquired(MessageType type, long nanos, boolean created) {
+    }
+
+    /**
+     * Read once when the parser is built.
+     * @return Whether the parser should measure the bytes allocated per message
+     */
+    default boolean measureAllocation() {
+        return false;
+    }
+}
@@ -0,0 +1,239 @@
+package nl.bliksemlabs.infoplus;
+
+import nl.bliksemlabs.infoplus.InfoPlusMessage.InfoPlusParseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link ParseListener}, keeping lock-free counters and histograms per message
+ * type: parse latency, message size, bytes allocated, Unmarshaller acquisition time and
+ * failures by cause.
+ *
+ * A single instance may be shared by several parsers. Read the values with
+ * {@link #stats(MessageType)} and {@link #failureCauses()}, for example to export them to a
+ * metrics system on a schedule.
+ *
+ * <pre>{@code
+ * ParseMetrics metrics = ParseMetrics.builder().measureAllocation(true).build();
+ * InfoPlusParser parser = InfoPlusParser.builder().listener(metrics).build();
+ * long p99 = metrics.stats(MessageType.DVS).latencyNanos().percentile(0.99);
+ * }</pre>
+ */
+public final class ParseMetrics implements ParseListener {
+
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final boolean measureAllocation;
+    private final TypeMetrics[] types = new TypeMetrics[TYPES.length];
+    private final LongAdder failedUnknownType = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> failureCauses = new ConcurrentHashMap<>();
+
+    private ParseMetrics(Builder builder) {
+        this.measureAllocation = builder.measureAllocation;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = new TypeMetrics();
+        }
+    }
+
+    /**
+     * @return A new builder with default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void parsed(MessageType type, long bytes, long nanos, long allocatedBytes) {
+        TypeMetrics metrics = types[type.ordinal()];
+        metrics.parsed.increment();
+        metrics.latency.record(nanos);
+        metrics.bytes.record(bytes);
+        if (allocatedBytes >= 0) {
+            metrics.allocated.record(allocatedBytes);
+        }
+    }
+
+    @Override
+    public void failed(MessageType type, long bytes, long nanos, InfoPlusParseException exception) {
+        if (type == null) {
+            failedUnknownType.increment();
+        } else {
+            types[type.ordinal()].failed.increment();
+        }
+        failureCauses.computeIfAbsent(causeOf(exception), cause -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void unmarshallerAcquired(MessageType type, long nanos, boolean created) {
+        TypeMetrics metrics = types[type.ordinal()];
+        metrics.acquire.record(nanos);
+        if (created) {
+            metrics.created.increment();
+        }
+    }
+
+    @Override
+    public boolean measureAllocation() {
+        return measureAllocation;
+    }
+
+    /**
+     * @param type Message type
+     * @return Snapshot of the counters and histograms of the type
+     */
+    public Stats stats(MessageType type) {
+        TypeMetrics metrics = types[type.ordinal()];
+        return new Stats(
+            metrics.parsed.sum(),
+            metrics.failed.sum(),
+            metrics.latency.snapshot(),
+            metrics.bytes.snapshot(),
+            metrics.allocated.snapshot(),
+            metrics.acquire.snapshot(),
+            metrics.created.sum(),
+            InfoPlusContexts.creationTime(type)
+        );
+    }
+
+    /**
+     * @return Number of messages of any type that failed before their type was known
+     */
+    public long failedUnknownType() {
+        return failedUnknownType.sum();
+    }
+
+    /**
+     * Failures are counted by the class of the innermost cause of the exception, such as
+     * SAXParseException for malformed XML or ZipException for corrupt compressed input,
+     * or InfoPlusParseException when there is no cause.
+     * @return Number of failures by simple class name of their cause
+     */
+    public Map<String, Long> failureCauses() {
+        Map<String, Long> causes = new TreeMap<>();
+        failureCauses.forEach((cause, count) -> causes.put(cause, count.sum()));
+        return causes;
+    }
+
+    /**
+     * Reset all counters and histograms.
+     */
+    public void reset() {
+        for (TypeMetrics metrics : types) {
+            metrics.reset();
+        }
+        failedUnknownType.reset();
+        failureCauses.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ParseMetrics[");
+        for (MessageType type : TYPES) {
+            Stats stats = stats(type);
+            builder.append(type).append("=[parsed=").append(stats.parsed())
+                .append(", failed=").append(stats.failed())
+                .append(", latencyNanos=").append(stats.latencyNanos())
+                .append("], ");
+        }
+        return builder.append("failureCauses=").append(failureCauses()).append(']').toString();
+    }
+
+    private static String causeOf(InfoPlusParseException exception) {
+        Throwable cause = exception;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Snapshot of the metrics of a single message type.
+     *
+     * @param parsed Messages parsed successfully
+     * @param failed Messages that failed to parse
+     * @param latencyNanos Time per parsed message
+     * @param bytes Size per parsed message
+     * @param allocatedBytes Bytes allocated per parsed message, empty unless measured
+     * @param acquireNanos Time per Unmarshaller acquisition
+     * @param unmarshallersCreated Acquisitions that created a new Unmarshaller
+     * @param contextCreation Time taken to create the shared JAXBContext of the type, or
+     *                        null when it has not been created yet
+     */
+    public record Stats(
+        long parsed,
+        long failed,
+        LogLinearHistogram.Snapshot latencyNanos,
+        LogLinearHistogram.Snapshot bytes,
+        LogLinearHistogram.Snapshot allocatedBytes,
+        LogLinearHistogram.Snapshot acquireNanos,
+        long unmarshallersCreated,
+        Duration contextCreation
+    ) {
+
+        /**
+         * @return Fraction of messages that failed, or 0 when there were none
+         */
+        public double failureRatio() {
+            long messages = parsed + failed;
+            return messages == 0 ? 0 : (double) failed / messages;
+        }
+    }
+
+    /**
+     * Counters and histograms of a single message type.
+     */
+    private static final class TypeMetrics {
+
+        private final LongAdder parsed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LogLinearHistogram latency = new LogLinearHistogram();
+        private final LogLinearHistogram bytes = new LogLinearHistogram();
+        private final LogLinearHistogram allocated = new LogLinearHistogram();
+        private final LogLinearHistogram acquire = new LogLinearHistogram();
+        private final LongAdder created = new LongAdder();
+
+        void reset() {
+            parsed.reset();
+            failed.reset();
+            latency.reset();
+            bytes.reset();
+            allocated.reset();
+            acquire.reset();
+            created.reset();
+        }
+    }
+
+    /**
+     * Builder for {@link ParseMetrics} instances.
+     */
+    public static final class Builder {
+
+        private boolean measureAllocation;
+
+        private Builder() {
+        }
+
+        /**
+         * Measure the bytes allocated per message with the thread allocation counter of the
+         * JVM. This costs two reads of the counter per message and is not available on
+         * virtual threads.
+         * @param measureAllocation Whether to measure allocation
+         * @return This builder
+         */
+        public Builder measureAllocation(boolean measureAllocation) {
+            this.measureAllocation = measureAllocation;
+            return this;
+        }
+
+        /**
+         * @return New metrics with the configured settings
+         */
+        public ParseMetrics build() {
+            return new ParseMetrics(this);
+        }
+    }
+}
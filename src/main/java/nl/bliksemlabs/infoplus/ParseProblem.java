@@ -0,0 +1,41 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventLocator;
+
+/**
+ * A problem found while parsing a message leniently, which did not stop the parse.
+ *
+ * @param severity How serious the problem is
+ * @param message Description of the problem, as reported by JAXB or the schema validator
+ * @param line Line of the message where the problem was found, or -1 if unknown
+ * @param column Column of the message where the problem was found, or -1 if unknown
+ */
+public record ParseProblem(Severity severity, String message, int line, int column) {
+
+    /**
+     * Severity of a problem, following {@link ValidationEvent}.
+     */
+    public enum Severity {
+        /**
+         * A warning of the parser or schema validator; the message was read as it is
+         */
+        WARNING,
+
+        /**
+         * An unknown element, a value that could not be converted or content that is not
+         * valid according to the schema; the affected part may be missing or empty
+         */
+        ERROR
+    }
+
+    static ParseProblem of(ValidationEvent event) {
+        ValidationEventLocator locator = event.getLocator();
+        return new ParseProblem(
+            event.getSeverity() == ValidationEvent.WARNING ? Severity.WARNING : Severity.ERROR,
+            event.getMessage(),
+            locator == null ? -1 : locator.getLineNumber(),
+            locator == null ? -1 : locator.getColumnNumber()
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package nl.bliksemlabs.infoplus;
+
+import java.util.List;
+
+/**
+ * Outcome of a lenient parse: the message as far as it could be read, together with the
+ * problems that were found in it.
+ *
+ * @param value Parsed message, in which elements with problems may be missing or empty
+ * @param problems Problems in the order in which they were found, empty for a clean message
+ * @param <T> Type of the parsed message
+ */
+public record ParseResult<T>(T value, List<ParseProblem> problems) {
+
+    public ParseResult {
+        problems = List.copyOf(problems);
+    }
+
+    /**
+     * @return Whether the message was parsed without problems
+     */
+    public boolean isClean() {
+        return problems.isEmpty();
+    }
+}
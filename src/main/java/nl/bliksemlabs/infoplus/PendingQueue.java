@@ -0,0 +1,200 @@
+package nl.bliksemlabs.infoplus;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded FIFO queue of payloads waiting to be parsed, which can find the pending payloads
+ * of a service by their key, for the backpressure policies of {@link InfoPlusPipeline}.
+ *
+ * Payloads are kept in a doubly linked list, so one in the middle of the queue is removed
+ * or replaced in constant time. The pending payloads of each key are indexed oldest first.
+ * All access is guarded by a single ReentrantLock.
+ */
+final class PendingQueue {
+
+    /**
+     * Outcome of {@link #offer(String, byte[], InfoPlusPipeline.Backpressure)}.
+     */
+    enum Offer {
+        /**
+         * The payload was added without dropping another one
+         */
+        ADDED,
+
+        /**
+         * The payload was added after dropping the oldest pending payload
+         */
+        DROPPED,
+
+        /**
+         * The payload replaced the pending payload with the same key
+         */
+        COALESCED,
+
+        /**
+         * The queue was closed, so the payload was not added
+         */
+        REJECTED
+    }
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final HashMap<String, ArrayDeque<Node>> byKey = new HashMap<>();
+    private Node head;
+    private Node tail;
+    private int size;
+    private boolean closed;
+
+    PendingQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param key Key of the service the payload is about, or null if it has none
+     * @param payload Payload to add
+     * @param policy What to do when the queue is full, or a payload with the key is pending
+     * @return How the payload was added
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    Offer offer(String key, byte[] payload, InfoPlusPipeline.Backpressure policy) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Offer offer = Offer.ADDED;
+            while (!closed) {
+                if (policy == InfoPlusPipeline.Backpressure.COALESCE_LATEST && key != null) {
+                    ArrayDeque<Node> pending = byKey.get(key);
+                    if (pending != null) {
+                        pending.getLast().payload = payload;
+                        return Offer.COALESCED;
+                    }
+                }
+                if (size < capacity) {
+                    break;
+                }
+                if (policy == InfoPlusPipeline.Backpressure.DROP_OLDEST) {
+                    ArrayDeque<Node> pending = key == null ? null : byKey.get(key);
+                    unlink(pending == null ? head : pending.getFirst());
+                    offer = Offer.DROPPED;
+                    break;
+                }
+                notFull.await();
+            }
+            if (closed) {
+                return Offer.REJECTED;
+            }
+            link(new Node(key, payload));
+            notEmpty.signal();
+            return offer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The oldest pending payload, waiting for one if the queue is empty, or null
+     *         once the queue is closed and empty
+     * @throws InterruptedException if interrupted while waiting
+     */
+    byte[] take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            Node node = head;
+            unlink(node);
+            notFull.signal();
+            return node.payload;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting payloads. Pending payloads can still be taken, and offers waiting for
+     * space are rejected.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of pending payloads
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(Node node) {
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.prev = tail;
+        }
+        tail = node;
+        size++;
+        if (node.key != null) {
+            byKey.computeIfAbsent(node.key, key -> new ArrayDeque<>(2)).addLast(node);
+        }
+    }
+
+    /**
+     * Remove a node, which is always the oldest pending node of its key.
+     */
+    private void unlink(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        size--;
+        if (node.key != null) {
+            ArrayDeque<Node> pending = byKey.get(node.key);
+            pending.removeFirst();
+            if (pending.isEmpty()) {
+                byKey.remove(node.key);
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final String key;
+        private byte[] payload;
+        private Node prev;
+        private Node next;
+
+        Node(String key, byte[] payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+}
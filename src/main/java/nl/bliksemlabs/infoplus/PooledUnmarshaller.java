@@ -0,0 +1,70 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.Unmarshaller;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * An Unmarshaller together with the SAX reader used to feed it when elements are skipped
+ * by a {@link Projection}. Both are reused for as long as the pool keeps them.
+ */
+final class PooledUnmarshaller {
+
+    private static final SAXParserFactory SAX_PARSER_FACTORY = createSaxParserFactory();
+
+    private final Unmarshaller unmarshaller;
+    private ProjectingFilter filter;
+    private boolean reused;
+
+    PooledUnmarshaller(Unmarshaller unmarshaller) {
+        this.unmarshaller = unmarshaller;
+    }
+
+    Unmarshaller unmarshaller() {
+        return unmarshaller;
+    }
+
+    /**
+     * @return Whether this Unmarshaller was taken from the pool rather than just created
+     */
+    boolean reused() {
+        return reused;
+    }
+
+    void markReused() {
+        reused = true;
+    }
+
+    /**
+     * @param projection Projection of the owning parser, which never changes
+     * @return A reader that skips the projected elements and reports to the unmarshaller
+     */
+    XMLReader projectingReader(Projection projection) throws SAXException {
+        if (filter == null) {
+            XMLReader reader;
+            try {
+                reader = SAX_PARSER_FACTORY.newSAXParser().getXMLReader();
+            } catch (ParserConfigurationException e) {
+                throw new SAXException(e);
+            }
+            filter = new ProjectingFilter(reader, projection);
+        }
+        filter.setContentHandler(unmarshaller.getUnmarshallerHandler());
+        return filter;
+    }
+
+    private static SAXParserFactory createSaxParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (ParserConfigurationException | SAXException e) {
+            // Keep the parser defaults
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,68 @@
+package nl.bliksemlabs.infoplus;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * SAX filter that drops the elements skipped by a {@link Projection}, so their events
+ * never reach the unmarshaller.
+ */
+final class ProjectingFilter extends XMLFilterImpl {
+
+    private final Projection projection;
+    private int skipDepth;
+
+    ProjectingFilter(XMLReader parent, Projection projection) {
+        super(parent);
+        this.projection = projection;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        skipDepth = 0;
+        super.startDocument();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (skipDepth > 0) {
+            skipDepth++;
+        } else if (projection.skips(localName)) {
+            skipDepth = 1;
+        } else {
+            super.startElement(uri, localName, qName, attributes);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (skipDepth > 0) {
+            skipDepth--;
+        } else {
+            super.endElement(uri, localName, qName);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (skipDepth == 0) {
+            super.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (skipDepth == 0) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        if (skipDepth == 0) {
+            super.processingInstruction(target, data);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package nl.bliksemlabs.infoplus;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Selects elements that are skipped while parsing, before JAXB creates any objects for them.
+ *
+ * Elements are matched on their local name, in any namespace, and are skipped together
+ * with their whole subtree. The corresponding properties of the parsed model stay null or
+ * empty.
+ *
+ * <pre>{@code
+ * InfoPlusParser parser = InfoPlusParser.builder()
+ *     .projection(Projection.WITHOUT_PRESENTATIE.and(Projection.WITHOUT_WIJZIGING))
+ *     .build();
+ * }</pre>
+ */
+public final class Projection {
+
+    /**
+     * Skips nothing: the whole message is parsed.
+     */
+    public static final Projection ALL = new Projection(name -> false);
+
+    /**
+     * Skips all multilingual presentation texts, i.e. every element whose name starts
+     * with Presentatie, such as PresentatieVerkorteRoute and PresentatieTreinEindBestemming.
+     */
+    public static final Projection WITHOUT_PRESENTATIE = new Projection(name -> name.startsWith("Presentatie"));
+
+    /**
+     * Skips the Wijziging lists.
+     */
+    public static final Projection WITHOUT_WIJZIGING = skipping("Wijziging");
+
+    private final Predicate<String> skipped;
+
+    private Projection(Predicate<String> skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @param localNames Local names of the elements to skip
+     * @return A projection skipping the given elements
+     */
+    public static Projection skipping(String... localNames) {
+        Set<String> names = Set.of(localNames);
+        return new Projection(names::contains);
+    }
+
+    /**
+     * @param other Another projection
+     * @return A projection skipping the elements skipped by this or the other projection
+     */
+    public Projection and(Projection other) {
+        if (this == ALL) {
+            return other;
+        }
+        if (other == ALL) {
+            return this;
+        }
+        return new Projection(skipped.or(other.skipped));
+    }
+
+    boolean skips(String localName) {
+        return skipped.test(localName);
+    }
+}
@@ -0,0 +1,21 @@
+package nl.bliksemlabs.infoplus;
+
+import java.time.LocalDate;
+
+/**
+ * Position of a LogischeRitDeelStation within a streamed RIT message.
+ *
+ * @param treinNummer TreinNummer of the RitInfo
+ * @param treinDatum TreinDatum of the RitInfo
+ * @param logischeRitNummer LogischeRitNummer of the enclosing LogischeRit
+ * @param logischeRitDeelNummer LogischeRitDeelNummer of the enclosing LogischeRitDeel
+ * @param stationIndex Index of the station within its LogischeRitDeel, starting at 0
+ */
+public record RitStationContext(
+    int treinNummer,
+    LocalDate treinDatum,
+    String logischeRitNummer,
+    int logischeRitDeelNummer,
+    int stationIndex
+) {
+}
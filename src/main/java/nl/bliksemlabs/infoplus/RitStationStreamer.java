@@ -0,0 +1,113 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import ns.cdm.reisinformatie.data.rit._5.RitStationsType;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.time.LocalDate;
+
+/**
+ * Walks the RitInfo/LogischeRit/LogischeRitDeel/LogischeRitDeelStation hierarchy of a RIT
+ * message and unmarshals one station at a time.
+ */
+final class RitStationStreamer {
+
+    private static final int NONE = -1;
+
+    private final Unmarshaller unmarshaller;
+    private final RitStationVisitor visitor;
+
+    private int treinNummer;
+    private LocalDate treinDatum;
+    private String logischeRitNummer;
+    private int logischeRitDeelNummer;
+    private int stationIndex;
+
+    private int ritInfoDepth = NONE;
+    private int logischeRitDepth = NONE;
+    private int logischeRitDeelDepth = NONE;
+
+    private RitStationStreamer(Unmarshaller unmarshaller, RitStationVisitor visitor) {
+        this.unmarshaller = unmarshaller;
+        this.visitor = visitor;
+    }
+
+    /**
+     * Stream all stations of the RIT message to the visitor.
+     * @param unmarshaller Unmarshaller of the RIT context
+     * @param reader Reader positioned at the start of the document
+     * @param visitor Visitor receiving the stations
+     */
+    static void stream(Unmarshaller unmarshaller, XMLStreamReader reader, RitStationVisitor visitor)
+            throws JAXBException, XMLStreamException {
+        new RitStationStreamer(unmarshaller, visitor).stream(reader);
+    }
+
+    private void stream(XMLStreamReader reader) throws JAXBException, XMLStreamException {
+        int depth = 0;
+        int event = reader.getEventType();
+        while (event != XMLStreamConstants.END_DOCUMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = reader.getLocalName();
+                if (depth == 1 && !MessageType.RIT.namespace().equals(reader.getNamespaceURI())) {
+                    throw new XMLStreamException("Not a RIT message: " + reader.getName(), reader.getLocation());
+                } else if (depth == logischeRitDeelDepth + 1 && "LogischeRitDeelStation".equals(name)) {
+                    // Unmarshals the whole element and leaves the reader after its end tag
+                    RitStationsType station = unmarshaller.unmarshal(reader, RitStationsType.class).getValue();
+                    depth--;
+                    visitor.visitStation(
+                        new RitStationContext(treinNummer, treinDatum, logischeRitNummer, logischeRitDeelNummer, stationIndex++),
+                        station
+                    );
+                    event = reader.getEventType();
+                    continue;
+                } else if ("RitInfo".equals(name) && depth == 3) {
+                    ritInfoDepth = depth;
+                } else if (depth == ritInfoDepth + 1) {
+                    switch (name) {
+                        case "TreinNummer" -> {
+                            treinNummer = Integer.parseInt(reader.getElementText().trim());
+                            depth--;
+                        }
+                        case "TreinDatum" -> {
+                            treinDatum = LocalDate.parse(reader.getElementText().trim());
+                            depth--;
+                        }
+                        case "LogischeRit" -> {
+                            logischeRitDepth = depth;
+                            logischeRitNummer = null;
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (depth == logischeRitDepth + 1) {
+                    if ("LogischeRitNummer".equals(name)) {
+                        logischeRitNummer = reader.getElementText().trim();
+                        depth--;
+                    } else if ("LogischeRitDeel".equals(name)) {
+                        logischeRitDeelDepth = depth;
+                        logischeRitDeelNummer = 0;
+                        stationIndex = 0;
+                    }
+                } else if (depth == logischeRitDeelDepth + 1 && "LogischeRitDeelNummer".equals(name)) {
+                    logischeRitDeelNummer = Integer.parseInt(reader.getElementText().trim());
+                    depth--;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == logischeRitDeelDepth) {
+                    logischeRitDeelDepth = NONE;
+                } else if (depth == logischeRitDepth) {
+                    logischeRitDepth = NONE;
+                } else if (depth == ritInfoDepth) {
+                    ritInfoDepth = NONE;
+                }
+                depth--;
+            }
+            event = reader.next();
+        }
+    }
+}
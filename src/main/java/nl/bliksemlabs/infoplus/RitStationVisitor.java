@@ -0,0 +1,22 @@
+package nl.bliksemlabs.infoplus;
+
+import ns.cdm.reisinformatie.data.rit._5.RitStationsType;
+
+/**
+ * Callback for streaming RIT parsing, invoked once for every LogischeRitDeelStation.
+ *
+ * Only the station being visited is held in memory, so the station object can be kept
+ * or discarded by the visitor as needed.
+ *
+ * @see InfoPlusParser#streamRIT(java.io.InputStream, RitStationVisitor)
+ */
+@FunctionalInterface
+public interface RitStationVisitor {
+
+    /**
+     * Visit a single station of the trip.
+     * @param context Position of the station within the trip
+     * @param station The unmarshalled LogischeRitDeelStation
+     */
+    void visitStation(RitStationContext context, RitStationsType station);
+}
@@ -0,0 +1,50 @@
+package nl.bliksemlabs.infoplus;
+
+/**
+ * Source of canonical station names, shared by every message a parser unmarshals.
+ *
+ * Every StationType in a message carries its own copies of the station code and names,
+ * while only a few hundred distinct stations exist. A dictionary lets all parsed messages
+ * refer to the same String instances, which matters when many messages are retained.
+ *
+ * @see InfoPlusParser.Builder#stationDictionary(StationDictionary)
+ */
+@FunctionalInterface
+public interface StationDictionary {
+
+    /**
+     * Code and names of a station as they appear in a StationType. Any value may be null.
+     *
+     * @param stationCode StationCode
+     * @param type Type of the station
+     * @param korteNaam KorteNaam
+     * @param middelNaam MiddelNaam
+     * @param langeNaam LangeNaam
+     * @param uicCode UICCode
+     */
+    record Station(
+        String stationCode,
+        String type,
+        String korteNaam,
+        String middelNaam,
+        String langeNaam,
+        String uicCode
+    ) {
+    }
+
+    /**
+     * Return a station with equal values whose Strings may be shared with other messages.
+     * Must be thread-safe, as it is called while unmarshalling on any thread.
+     * @param station Station as read from a message
+     * @return Canonical station with values equal to {@code station}
+     */
+    Station canonical(Station station);
+
+    /**
+     * @param maxStations Maximum number of stations to keep
+     * @return A new thread-safe dictionary holding at most {@code maxStations} stations
+     */
+    static BoundedStationDictionary bounded(int maxStations) {
+        return new BoundedStationDictionary(maxStations);
+    }
+}
@@ -0,0 +1,79 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.Unmarshaller;
+import nl.bliksemlabs.infoplus.StationDictionary.Station;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Replaces the values of every unmarshalled StationType, in both the RIT and the DVS/DAS
+ * model, with the canonical ones from a {@link StationDictionary}.
+ */
+final class StationListener extends Unmarshaller.Listener {
+
+    private static final Fields<ndov.cdm.trein.reisinformatie.data._4.StationType> DVS_FIELDS = new Fields<>(
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getStationCode, ndov.cdm.trein.reisinformatie.data._4.StationType::setStationCode),
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getType, ndov.cdm.trein.reisinformatie.data._4.StationType::setType),
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getKorteNaam, ndov.cdm.trein.reisinformatie.data._4.StationType::setKorteNaam),
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getMiddelNaam, ndov.cdm.trein.reisinformatie.data._4.StationType::setMiddelNaam),
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getLangeNaam, ndov.cdm.trein.reisinformatie.data._4.StationType::setLangeNaam),
+        new Field<>(ndov.cdm.trein.reisinformatie.data._4.StationType::getUICCode, ndov.cdm.trein.reisinformatie.data._4.StationType::setUICCode)
+    );
+
+    private static final Fields<ns.cdm.reisinformatie.data.rit._5.StationType> RIT_FIELDS = new Fields<>(
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getStationCode, ns.cdm.reisinformatie.data.rit._5.StationType::setStationCode),
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getType, ns.cdm.reisinformatie.data.rit._5.StationType::setType),
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getKorteNaam, ns.cdm.reisinformatie.data.rit._5.StationType::setKorteNaam),
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getMiddelNaam, ns.cdm.reisinformatie.data.rit._5.StationType::setMiddelNaam),
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getLangeNaam, ns.cdm.reisinformatie.data.rit._5.StationType::setLangeNaam),
+        new Field<>(ns.cdm.reisinformatie.data.rit._5.StationType::getUICCode, ns.cdm.reisinformatie.data.rit._5.StationType::setUICCode)
+    );
+
+    private final StationDictionary dictionary;
+
+    StationListener(StationDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void afterUnmarshal(Object target, Object parent) {
+        if (target instanceof ndov.cdm.trein.reisinformatie.data._4.StationType station) {
+            DVS_FIELDS.canonicalize(station, dictionary);
+        } else if (target instanceof ns.cdm.reisinformatie.data.rit._5.StationType station) {
+            RIT_FIELDS.canonicalize(station, dictionary);
+        }
+    }
+
+    /**
+     * Accessors of one String property of a generated StationType.
+     */
+    private record Field<T>(Function<T, String> getter, BiConsumer<T, String> setter) {
+    }
+
+    /**
+     * Accessors of the properties of a generated StationType, in the order of {@link Station}.
+     */
+    private record Fields<T>(
+        Field<T> stationCode,
+        Field<T> type,
+        Field<T> korteNaam,
+        Field<T> middelNaam,
+        Field<T> langeNaam,
+        Field<T> uicCode
+    ) {
+
+        void canonicalize(T station, StationDictionary dictionary) {
+            Station canonical = dictionary.canonical(new Station(
+                stationCode.getter.apply(station), type.getter.apply(station), korteNaam.getter.apply(station),
+                middelNaam.getter.apply(station), langeNaam.getter.apply(station), uicCode.getter.apply(station)
+            ));
+            stationCode.setter.accept(station, canonical.stationCode());
+            type.setter.accept(station, canonical.type());
+            korteNaam.setter.accept(station, canonical.korteNaam());
+            middelNaam.setter.accept(station, canonical.middelNaam());
+            langeNaam.setter.accept(station, canonical.langeNaam());
+            uicCode.setter.accept(station, canonical.uicCode());
+        }
+    }
+}
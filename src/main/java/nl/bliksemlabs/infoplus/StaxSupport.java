@@ -0,0 +1,31 @@
+package nl.bliksemlabs.infoplus;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Shared StAX configuration for the streaming parsers.
+ */
+final class StaxSupport {
+
+    // XMLInputFactory is thread-safe once configured
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private StaxSupport() {
+    }
+
+    static XMLStreamReader createReader(InputStream inputStream) throws XMLStreamException {
+        return FACTORY.createXMLStreamReader(inputStream);
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
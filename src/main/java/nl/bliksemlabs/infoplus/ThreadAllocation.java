@@ -0,0 +1,43 @@
+package nl.bliksemlabs.infoplus;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the allocation counter of the current thread. Kept apart from the parser, so the
+ * management classes are only loaded when allocation is measured.
+ */
+final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * @return Bytes allocated by the current thread so far, or -1 if this is not supported,
+     *         as on virtual threads
+     */
+    static long current() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * @param start Value of {@link #current()} before the measured work
+     * @return Bytes allocated since, or -1 if not measured
+     */
+    static long since(long start) {
+        if (start < 0) {
+            return -1;
+        }
+        long end = current();
+        return end < 0 ? -1 : end - start;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
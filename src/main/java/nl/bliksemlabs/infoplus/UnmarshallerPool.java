@@ -0,0 +1,58 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of Unmarshallers for a single message type.
+ *
+ * An Unmarshaller is not thread-safe, so each one is handed to exactly one caller at a
+ * time. Acquisition never blocks: when the pool is empty a new Unmarshaller is created,
+ * and on release it is only kept when fewer than {@code capacity} are idle.
+ */
+final class UnmarshallerPool {
+
+    private final MessageType type;
+    private final int capacity;
+    private final Unmarshaller.Listener listener;
+    private final ConcurrentLinkedQueue<PooledUnmarshaller> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * @param listener Listener installed on every Unmarshaller, or null
+     */
+    UnmarshallerPool(MessageType type, int capacity, Unmarshaller.Listener listener) {
+        this.type = type;
+        this.capacity = capacity;
+        this.listener = listener;
+    }
+
+    MessageType type() {
+        return type;
+    }
+
+    PooledUnmarshaller acquire() throws JAXBException {
+        PooledUnmarshaller unmarshaller = idle.poll();
+        if (unmarshaller != null) {
+            idleCount.decrementAndGet();
+            unmarshaller.markReused();
+            return unmarshaller;
+        }
+        Unmarshaller created = type.context().createUnmarshaller();
+        if (listener != null) {
+            created.setListener(listener);
+        }
+        return new PooledUnmarshaller(created);
+    }
+
+    void release(PooledUnmarshaller unmarshaller) {
+        if (idleCount.incrementAndGet() <= capacity) {
+            idle.offer(unmarshaller);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package nl.bliksemlabs.infoplus;
+
+import jakarta.xml.bind.annotation.adapters.XmlAdapter;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Maps xs:dateTime to a LocalDateTime in UTC.
+ *
+ * InfoPlus timestamps carry a UTC designator (e.g. {@code 2025-12-21T23:10:00.000Z}), which
+ * a plain ISO local date-time adapter rejects. Values with an offset are converted to UTC;
+ * values without one are taken to be in UTC already. Values are written in the same form
+ * as the feed uses.
+ */
+public class UtcLocalDateTimeXmlAdapter extends XmlAdapter<String, LocalDateTime> {
+
+    private static final DateTimeFormatter OUTPUT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+    @Override
+    public LocalDateTime unmarshal(String value) {
+        if (value == null) {
+            return null;
+        }
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(value.trim());
+        LocalDateTime dateTime = LocalDateTime.from(parsed);
+        if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds(parsed.get(ChronoField.OFFSET_SECONDS));
+            return OffsetDateTime.of(dateTime, offset).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        }
+        return dateTime;
+    }
+
+    @Override
+    public String marshal(LocalDateTime value) {
+        return value == null ? null : OUTPUT.format(value);
+    }
+}
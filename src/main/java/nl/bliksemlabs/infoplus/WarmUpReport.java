@@ -0,0 +1,24 @@
+package nl.bliksemlabs.infoplus;
+
+import java.time.Duration;
+
+/**
+ * Startup timing reported by {@link InfoPlusParser#warmUp(int)}.
+ *
+ * The context durations are measured concurrently, so they overlap; DVS and DAS share a
+ * single JAXBContext and therefore report (nearly) the same duration.
+ *
+ * @param ritContext Time until the RIT JAXBContext was available
+ * @param dvsContext Time until the DVS JAXBContext was available
+ * @param dasContext Time until the DAS JAXBContext was available
+ * @param priming Time spent parsing the embedded sample messages
+ * @param total Wall clock time of the whole warm-up
+ */
+public record WarmUpReport(
+    Duration ritContext,
+    Duration dvsContext,
+    Duration dasContext,
+    Duration priming,
+    Duration total
+) {
+}
@@ -0,0 +1,130 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.ArchiveRecord;
+import nl.bliksemlabs.infoplus.InfoPlusArchive;
+import nl.bliksemlabs.infoplus.InfoPlusArchiveWriter;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.InfoPlusProduct;
+import nl.bliksemlabs.infoplus.MessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveTest {
+
+    private static final Instant START = Instant.parse("2024-05-01T06:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test that recorded messages are indexed by position, time and RitId and parse to
+     * the same messages as the original bytes.
+     */
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        byte[] rit = TestFixtures.bytes("/test-rit-message.xml");
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        byte[] das = TestFixtures.bytes("/test-das-message.xml");
+        byte[] compressedDvs = TestFixtures.gzip(dvs);
+
+        Path path = directory.resolve("archive.ipa");
+        try (InfoPlusArchiveWriter writer = InfoPlusArchiveWriter.open(path)) {
+            writer.append(START, rit, 0, rit.length);
+            writer.append(START.plusSeconds(10), dvs, 0, dvs.length);
+            writer.append(START.plusSeconds(20), das, 0, das.length);
+        }
+        // Verify appending continues an existing archive
+        try (InfoPlusArchiveWriter writer = InfoPlusArchiveWriter.open(path)) {
+            writer.append(START.plusSeconds(30), compressedDvs, 0, compressedDvs.length);
+            assertThrows(IllegalArgumentException.class,
+                () -> writer.append(START, "<foo/>".getBytes(StandardCharsets.UTF_8), 0, 6));
+        }
+
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+        try (InfoPlusArchive archive = InfoPlusArchive.open(path)) {
+            assertEquals(4, archive.size());
+            assertEquals(List.of(MessageType.RIT, MessageType.DVS, MessageType.DAS, MessageType.DVS),
+                archive.records().stream().map(ArchiveRecord::type).toList());
+            assertEquals(List.of("2992", "6789", "2889", "6789"),
+                archive.records().stream().map(ArchiveRecord::ritId).toList());
+            assertEquals(START.plusSeconds(20), archive.get(2).time());
+
+            // Verify payloads are the recorded bytes and parse like the original message
+            ArchiveRecord record = archive.get(1);
+            assertEquals(ByteBuffer.wrap(dvs), record.payload());
+            assertTrue(record.payload().isReadOnly());
+            ReisInformatieProductDVSType expected = InfoPlusMessage.parseDVS(new String(dvs, StandardCharsets.UTF_8));
+            ReisInformatieProductDVSType parsed = assertInstanceOf(InfoPlusProduct.Dvs.class, record.parse(parser)).product();
+            assertEquals(expected.getDynamischeVertrekStaat().getRitId(), parsed.getDynamischeVertrekStaat().getRitId());
+            assertEquals(ByteBuffer.wrap(compressedDvs), archive.get(3).payload());
+            assertInstanceOf(InfoPlusProduct.Dvs.class, archive.get(3).parse(parser));
+            assertInstanceOf(InfoPlusProduct.Rit.class, parser.parse(archive.get(0).payload()));
+
+            // Verify lookups by time range and RitId
+            assertEquals(List.of(1, 2), archive.between(START.plusSeconds(5), START.plusSeconds(30)).stream()
+                .map(ArchiveRecord::index).toList());
+            assertTrue(archive.between(START.plusSeconds(40), START.plusSeconds(50)).isEmpty());
+            assertEquals(List.of(1, 3), archive.byRitId("6789").stream().map(ArchiveRecord::index).toList());
+            assertTrue(archive.byRitId("1234").isEmpty());
+        }
+    }
+
+    /**
+     * Test that messages recorded out of order are returned by time, and that a message
+     * that was only partially written is ignored and overwritten by later appends.
+     */
+    @Test
+    public void testUnorderedAndTruncated() throws Exception {
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        Path path = directory.resolve("archive.ipa");
+        try (InfoPlusArchiveWriter writer = InfoPlusArchiveWriter.open(path)) {
+            writer.append(START.plusSeconds(30), dvs, 0, dvs.length);
+            writer.append(START.plusSeconds(10), dvs, 0, dvs.length);
+            writer.append(START.plusSeconds(20), dvs, 0, dvs.length);
+            writer.append(START.plusSeconds(40), dvs, 0, dvs.length);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 100);
+        }
+
+        try (InfoPlusArchive archive = InfoPlusArchive.open(path)) {
+            assertEquals(3, archive.size());
+            assertEquals(List.of(1, 2, 0), archive.between(START, START.plusSeconds(60)).stream()
+                .map(ArchiveRecord::index).toList());
+            assertEquals(List.of(1, 2), archive.between(START.plusSeconds(10), START.plusSeconds(30)).stream()
+                .map(ArchiveRecord::index).toList());
+        }
+
+        // Verify appending after a partial message discards it, so the appended messages can be read
+        try (InfoPlusArchiveWriter writer = InfoPlusArchiveWriter.open(path)) {
+            for (int i = 0; i < 3; i++) {
+                writer.append(START.plusSeconds(50 + i), dvs, 0, dvs.length);
+            }
+        }
+        try (InfoPlusArchive archive = InfoPlusArchive.open(path)) {
+            assertEquals(6, archive.size());
+            assertEquals(List.of(START.plusSeconds(30), START.plusSeconds(10), START.plusSeconds(20),
+                    START.plusSeconds(50), START.plusSeconds(51), START.plusSeconds(52)),
+                archive.records().stream().map(ArchiveRecord::time).toList());
+            assertEquals(ByteBuffer.wrap(dvs), archive.get(5).payload());
+        }
+
+        // Verify other files are rejected
+        Path other = directory.resolve("other.xml");
+        Files.write(other, dvs);
+        assertThrows(IOException.class, () -> InfoPlusArchive.open(other));
+        assertThrows(IOException.class, () -> InfoPlusArchiveWriter.open(other));
+    }
+}
@@ -0,0 +1,75 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.BatchParser;
+import nl.bliksemlabs.infoplus.BatchResult;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchParserTest {
+
+    /**
+     * Test that results keep the input order and that failed payloads are reported
+     * without aborting the batch.
+     */
+    @Test
+    public void testBatchWithFailures() throws Exception {
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        byte[] das = TestFixtures.bytes("/test-das-message.xml");
+        byte[] broken = "<not-closed>".getBytes(StandardCharsets.UTF_8);
+
+        BatchParser batch = BatchParser.builder(InfoPlusParser.builder().build()).build();
+        List<BatchResult<ReisInformatieProductDVSType>> results = batch.parseDVS(List.of(dvs, broken, dvs, das, dvs));
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+        }
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("UTLN", results.get(0).get().getDynamischeVertrekStaat().getRitStation().getStationCode());
+
+        // Verify malformed XML and a message of another type both fail on their own
+        assertFalse(results.get(1).isSuccess());
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> results.get(1).get());
+        assertFalse(results.get(3).isSuccess());
+        assertNull(results.get(3).value());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(results.get(4).isSuccess());
+    }
+
+    /**
+     * Test streaming a larger batch through a small window on virtual threads.
+     */
+    @Test
+    public void testStreamingBatch() throws Exception {
+        byte[] rit = TestFixtures.bytes("/test-rit-message.xml");
+        AtomicBoolean closed = new AtomicBoolean();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            BatchParser batch = BatchParser.builder(InfoPlusParser.builder().build())
+                .executor(executor)
+                .window(4)
+                .build();
+            Stream<byte[]> payloads = IntStream.range(0, 200).mapToObj(i -> rit).onClose(() -> closed.set(true));
+            try (Stream<BatchResult<ReisInformatieProductRitInfoType>> results = batch.parseRIT(payloads)) {
+                List<BatchResult<ReisInformatieProductRitInfoType>> parsed = results.toList();
+                assertEquals(200, parsed.size());
+                for (int i = 0; i < parsed.size(); i++) {
+                    assertEquals(i, parsed.get(i).index());
+                    assertTrue(parsed.get(i).isSuccess());
+                }
+            }
+        }
+        assertTrue(closed.get(), "Closing the results should close the payloads");
+    }
+}
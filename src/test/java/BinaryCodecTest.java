@@ -0,0 +1,111 @@
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.BinaryCodec;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCodecTest {
+
+    /**
+     * Test that every fixture survives an encode and decode unchanged, compared through
+     * the XML that JAXB marshals from the original and the decoded message.
+     */
+    @Test
+    public void testRoundTripFixtures() throws Exception {
+        String ritXml = TestFixtures.string("/test-rit-message.xml");
+        ReisInformatieProductRitInfoType rit = InfoPlusMessage.parseRIT(ritXml);
+        byte[] ritBytes = BinaryCodec.rit().encode(rit);
+        assertEquals(marshal(rit), marshal(BinaryCodec.rit().decode(ritBytes)));
+
+        String dvsXml = TestFixtures.string("/test-dvs-message.xml");
+        ReisInformatieProductDVSType dvs = InfoPlusMessage.parseDVS(dvsXml);
+        byte[] dvsBytes = BinaryCodec.dvs().encode(dvs);
+        ReisInformatieProductDVSType decodedDvs = BinaryCodec.dvs().decode(dvsBytes);
+        assertEquals(marshal(dvs), marshal(decodedDvs));
+
+        String dasXml = TestFixtures.string("/test-das-message.xml");
+        ReisInformatieProductDASType das = InfoPlusMessage.parseDAS(dasXml);
+        byte[] dasBytes = BinaryCodec.das().encode(das);
+        assertEquals(marshal(das), marshal(BinaryCodec.das().decode(dasBytes)));
+
+        // Verify a few decoded values and that the encoding is much smaller than the XML
+        assertEquals(dvs.getDynamischeVertrekStaat().getRitId(), decodedDvs.getDynamischeVertrekStaat().getRitId());
+        assertEquals(dvs.getDynamischeVertrekStaat().getTrein().getExacteVertrekVertraging(),
+            decodedDvs.getDynamischeVertrekStaat().getTrein().getExacteVertrekVertraging());
+        assertEquals(dvs.getRIPAdministratie().getReisInformatieTijdstip(),
+            decodedDvs.getRIPAdministratie().getReisInformatieTijdstip());
+        assertTrue(ritBytes.length * 5 < ritXml.length(), "RIT encoded in " + ritBytes.length + " bytes");
+        assertTrue(dvsBytes.length * 5 < dvsXml.length(), "DVS encoded in " + dvsBytes.length + " bytes");
+        assertTrue(dasBytes.length * 5 < dasXml.length(), "DAS encoded in " + dasBytes.length + " bytes");
+    }
+
+    /**
+     * Test wildcard content, and that messages of another layout or corrupt messages are
+     * rejected.
+     */
+    @Test
+    public void testWildcardsAndInvalidMessages() throws Exception {
+        ReisInformatieProductDVSType dvs = InfoPlusMessage.parseDVS(TestFixtures.string("/test-dvs-message.xml"));
+        Document document = DocumentBuilderFactory.newDefaultNSInstance().newDocumentBuilder().newDocument();
+        Element extension = document.createElementNS("urn:example:extension", "ext:Bron");
+        extension.setAttribute("Versie", "2");
+        extension.setTextContent("InfoPlus");
+        dvs.getRIPAdministratie().getAny().add(extension);
+
+        // Verify the wildcard element is decoded with its namespace, attributes and content
+        byte[] bytes = BinaryCodec.dvs().encode(dvs);
+        Element decoded = BinaryCodec.dvs().decode(bytes).getRIPAdministratie().getAny().getFirst();
+        assertEquals("urn:example:extension", decoded.getNamespaceURI());
+        assertEquals("Bron", decoded.getLocalName());
+        assertEquals("2", decoded.getAttribute("Versie"));
+        assertEquals("InfoPlus", decoded.getTextContent());
+
+        // Verify a message of another type, a truncated message and trailing bytes are rejected
+        assertNotEquals(BinaryCodec.dvs().fingerprint(), BinaryCodec.das().fingerprint());
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> BinaryCodec.das().decode(bytes));
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class,
+            () -> BinaryCodec.dvs().decode(bytes, 0, bytes.length - 1));
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class,
+            () -> BinaryCodec.dvs().decode(Arrays.copyOf(bytes, bytes.length + 1)));
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class,
+            () -> BinaryCodec.dvs().decode("<xml/>".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String marshal(ReisInformatieProductRitInfoType product) throws Exception {
+        var message = new ns.cdm.reisinformatie.message.ritinfo._5.PutReisInformatieBoodschapIn();
+        message.setReisInformatieProductRitInfo(product);
+        return marshal(message);
+    }
+
+    private static String marshal(ReisInformatieProductDVSType product) throws Exception {
+        var message = new ndov.cdm.trein.reisinformatie.messages._5.PutReisInformatieBoodschapIn();
+        message.setReisInformatieProductDVS(product);
+        return marshal(message);
+    }
+
+    private static String marshal(ReisInformatieProductDASType product) throws Exception {
+        var message = new ndov.cdm.trein.reisinformatie.messages.dynamischeaankomststaat._1.PutReisInformatieBoodschapIn();
+        message.setReisInformatieProductDAS(product);
+        return marshal(message);
+    }
+
+    private static String marshal(Object message) throws Exception {
+        Marshaller marshaller = JAXBContext.newInstance(message.getClass()).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        StringWriter xml = new StringWriter();
+        marshaller.marshal(message, xml);
+        return xml.toString();
+    }
+}
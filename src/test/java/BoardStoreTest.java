@@ -0,0 +1,125 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.BoardKey;
+import nl.bliksemlabs.infoplus.BoardStore;
+import nl.bliksemlabs.infoplus.BoardStore.ApplyResult;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardStoreTest {
+
+    /**
+     * Test that newer versions replace older ones and that repeated or out of order
+     * messages are ignored.
+     */
+    @Test
+    public void testApplyVersions() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        ReisInformatieProductDVSType first = InfoPlusMessage.parseDVS(xml);
+        ReisInformatieProductDVSType second = InfoPlusMessage.parseDVS(
+            xml.replace("<ns2:ReisInformatieProductID>5355006789623005<", "<ns2:ReisInformatieProductID>5355006789623006<"));
+        ReisInformatieProductDVSType later = InfoPlusMessage.parseDVS(
+            xml.replace("<ns2:ReisInformatieTijdstip>2025-12-21T23:10:00.000Z<", "<ns2:ReisInformatieTijdstip>2025-12-21T23:12:00.000Z<"));
+
+        BoardStore<ReisInformatieProductDVSType> store = BoardStore.departures(Duration.ofMinutes(5));
+        assertEquals(ApplyResult.ADDED, store.apply(first));
+        assertEquals(ApplyResult.DUPLICATE, store.apply(first));
+        assertEquals(ApplyResult.REPLACED, store.apply(later));
+        assertEquals(ApplyResult.STALE, store.apply(second));
+        assertEquals(ApplyResult.STALE, store.apply(first));
+
+        BoardKey key = new BoardKey(6789, LocalDate.of(2025, 12, 21), "UTLN");
+        assertSame(later, store.get(key).orElseThrow().product());
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * Test that a station board is ordered by time and that departed services expire.
+     */
+    @Test
+    public void testBoardAndExpiry() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        BoardStore<ReisInformatieProductDVSType> store = BoardStore.departures(Duration.ofMinutes(5));
+
+        // The actual departure of the fixture is 23:10:23, move the second service to 23:30
+        store.apply(InfoPlusMessage.parseDVS(xml.replace("<ns2:RitId>6789<", "<ns2:RitId>6791<")
+            .replace("2025-12-21T23:10:23.000Z</ns2:VertrekTijd>", "2025-12-21T23:30:00.000Z</ns2:VertrekTijd>")));
+        store.apply(InfoPlusMessage.parseDVS(xml));
+
+        List<BoardStore.Entry<ReisInformatieProductDVSType>> board = store.board("UTLN");
+        assertEquals(List.of(6789L, 6791L), board.stream().map(entry -> entry.key().ritId()).toList());
+        assertEquals(Instant.parse("2025-12-21T23:10:23Z"), board.getFirst().time());
+        assertTrue(store.board("UT").isEmpty());
+
+        // Verify only services departed more than the retention period ago are removed
+        assertEquals(0, store.expire(Instant.parse("2025-12-21T23:15:00Z")));
+        assertEquals(1, store.expire(Instant.parse("2025-12-21T23:20:00Z")));
+        assertEquals(1, store.board("UTLN").size());
+
+        // Verify a late message for an expired service is not stored again
+        assertEquals(ApplyResult.EXPIRED, store.apply(InfoPlusMessage.parseDVS(xml)));
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * Test that no expired service remains stored when messages are applied while the
+     * store expires them.
+     */
+    @Test
+    public void testConcurrentApplyAndExpire() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        List<ReisInformatieProductDVSType> messages = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            messages.add(InfoPlusMessage.parseDVS(xml.replace("<ns2:ReisInformatieProductID>5355006789623005<",
+                "<ns2:ReisInformatieProductID>535500678962300" + i + "<")));
+        }
+
+        for (int round = 0; round < 200; round++) {
+            BoardStore<ReisInformatieProductDVSType> store = BoardStore.departures(Duration.ZERO);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread writer = Thread.ofPlatform().start(() -> {
+                awaitUninterruptibly(start);
+                for (ReisInformatieProductDVSType message : messages) {
+                    store.apply(message);
+                }
+            });
+            start.countDown();
+            store.expire(Instant.parse("2025-12-21T23:20:00Z"));
+            writer.join();
+
+            // Verify the departure at 23:10:23 was either rejected or removed
+            assertEquals(0, store.size());
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Test arrival boards from DAS messages.
+     */
+    @Test
+    public void testArrivals() throws Exception {
+        ReisInformatieProductDASType das = InfoPlusMessage.parseDAS(TestFixtures.string("/test-das-message.xml"));
+        BoardStore<ReisInformatieProductDASType> store = BoardStore.arrivals(Duration.ZERO);
+
+        assertEquals(ApplyResult.ADDED, store.apply(das));
+        BoardStore.Entry<ReisInformatieProductDASType> entry = store.board("GD").getFirst();
+        assertEquals(new BoardKey(2889, LocalDate.of(2025, 12, 23), "GD"), entry.key());
+        assertEquals(Instant.parse("2025-12-23T23:09:04Z"), entry.time());
+    }
+}
@@ -0,0 +1,91 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.DvsDeparture;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecodeDVSTest {
+
+    /**
+     * Test that the fast decoder produces the same departure as summarizing the fully
+     * unmarshalled DVS message.
+     */
+    @Test
+    public void testDecodeDVSMessage() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+
+        DvsDeparture decoded = InfoPlusMessage.decodeDVS(stream(xml));
+        assertEquals(DvsDeparture.from(InfoPlusMessage.parseDVS(xml)), decoded);
+
+        // Verify the decoded fields
+        assertEquals(6789, decoded.ritId());
+        assertEquals(LocalDate.of(2025, 12, 21), decoded.ritDate());
+        assertEquals("UTLN", decoded.stationCode());
+        assertEquals(6789, decoded.treinNummer());
+        assertEquals(epochSecond(LocalDateTime.of(2025, 12, 21, 23, 10)), decoded.plannedDeparture());
+        assertEquals(epochSecond(LocalDateTime.of(2025, 12, 21, 23, 10, 23)), decoded.actualDeparture());
+        assertEquals(23, decoded.delaySeconds());
+        assertEquals("2", decoded.plannedTrack());
+        assertEquals("2", decoded.actualTrack());
+        assertEquals("TL", decoded.plannedDestination());
+        assertEquals("TL", decoded.actualDestination());
+        assertFalse(decoded.cancelled());
+        assertEquals(0, decoded.wijzigingenLow());
+        assertEquals(0, decoded.wijzigingenHigh());
+    }
+
+    /**
+     * Test a cancelled departure with a track change, an offset timestamp and no actual
+     * departure time.
+     */
+    @Test
+    public void testDecodeCancelledDeparture() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml")
+            .replace("<ns2:VertrekTijd InfoStatus=\"Actueel\">2025-12-21T23:10:23.000Z</ns2:VertrekTijd>", "")
+            .replace("2025-12-21T23:10:00.000Z</ns2:VertrekTijd>", "2025-12-22T00:10:00+01:00</ns2:VertrekTijd>")
+            .replaceFirst("(<ns2:TreinVertrekSpoor InfoStatus=\"Actueel\">\\s*)<ns2:SpoorNummer>2</ns2:SpoorNummer>",
+                "$1<ns2:SpoorNummer>5</ns2:SpoorNummer><ns2:SpoorFase>b</ns2:SpoorFase>")
+            .replace("</ns2:Trein>",
+                "<ns2:Wijziging><ns2:WijzigingType>20</ns2:WijzigingType></ns2:Wijziging>"
+                    + "<ns2:Wijziging><ns2:WijzigingType>32</ns2:WijzigingType></ns2:Wijziging>"
+                    + "<ns2:Wijziging><ns2:WijzigingType>84</ns2:WijzigingType></ns2:Wijziging>"
+                    + "</ns2:Trein>");
+
+        DvsDeparture decoded = InfoPlusMessage.decodeDVS(stream(xml));
+        assertEquals(DvsDeparture.from(InfoPlusMessage.parseDVS(xml)), decoded);
+
+        // Verify the changed fields
+        assertEquals(epochSecond(LocalDateTime.of(2025, 12, 21, 23, 10)), decoded.plannedDeparture());
+        assertEquals(DvsDeparture.NO_TIME, decoded.actualDeparture());
+        assertEquals("5b", decoded.actualTrack());
+        assertTrue(decoded.cancelled());
+        assertTrue(decoded.hasWijziging(20));
+        assertTrue(decoded.hasWijziging(84));
+        assertFalse(decoded.hasWijziging(10));
+    }
+
+    /**
+     * Test that a message of another type is rejected.
+     */
+    @Test
+    public void testDecodeWrongMessageType() throws Exception {
+        String xml = TestFixtures.string("/test-das-message.xml");
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> InfoPlusMessage.decodeDVS(stream(xml)));
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
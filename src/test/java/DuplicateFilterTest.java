@@ -0,0 +1,89 @@
+import nl.bliksemlabs.infoplus.DuplicateFilter;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateFilterTest {
+
+    /**
+     * Test that resent messages are skipped when only their administrative fields
+     * changed, and parsed when their content changed.
+     */
+    @Test
+    public void testSkipUnchangedMessages() throws Exception {
+        DuplicateFilter filter = DuplicateFilter.builder(InfoPlusParser.builder().build()).build();
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        String resent = xml
+            .replace("TimeStamp=\"2025-12-21T22:59:59.922Z\"", "TimeStamp=\"2025-12-21T23:00:30.100Z\"")
+            .replace(">5355006789623005<", ">5355006789623006<")
+            .replace("<ns2:ReisInformatieTijdstip>2025-12-21T23:10:00.000Z<", "<ns2:ReisInformatieTijdstip>2025-12-21T23:10:30.000Z<");
+        String delayed = resent.replace(">PT23S<", ">PT2M<");
+
+        // Verify the first message is parsed and identical or resent ones are skipped
+        assertTrue(parseDVS(filter, bytes(xml)));
+        assertFalse(parseDVS(filter, bytes(xml)));
+        assertFalse(parseDVS(filter, bytes(resent)));
+        assertFalse(parseDVS(filter, TestFixtures.gzip(bytes(resent))));
+
+        // Verify a changed delay is parsed, and becomes the version to compare with
+        assertTrue(parseDVS(filter, bytes(delayed)));
+        assertFalse(parseDVS(filter, bytes(delayed)));
+        assertTrue(parseDVS(filter, bytes(xml)));
+
+        // Verify the counters
+        DuplicateFilter.Stats stats = filter.stats();
+        assertEquals(7, stats.messages());
+        assertEquals(4, stats.skipped());
+        assertEquals(4.0 / 7, stats.skipRatio(), 1e-9);
+        assertEquals(1, stats.size());
+        assertTrue(stats.parseNanos() > 0);
+        assertTrue(stats.savedParseNanos() > 0);
+    }
+
+    /**
+     * Test that messages about different services or of different types do not suppress
+     * each other, and that keys are evicted least recently used first.
+     */
+    @Test
+    public void testKeysAndEviction() throws Exception {
+        DuplicateFilter filter = DuplicateFilter.builder(InfoPlusParser.builder().build()).maxEntries(2).build();
+        byte[] dvs = bytes(TestFixtures.string("/test-dvs-message.xml"));
+        byte[] otherStation = bytes(TestFixtures.string("/test-dvs-message.xml")
+            .replace("<ns2:StationCode>UTLN</ns2:StationCode>", "<ns2:StationCode>UT</ns2:StationCode>"));
+        byte[] das = bytes(TestFixtures.string("/test-das-message.xml"));
+        byte[] rit = bytes(TestFixtures.string("/test-rit-message.xml"));
+
+        // Verify a message that fails to parse is not remembered
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> filter.parseDVS(das, 0, das.length));
+        assertTrue(filter.parseDAS(das, 0, das.length).isPresent());
+
+        // Verify keys of other stations and types are separate
+        assertTrue(parseDVS(filter, dvs));
+        assertTrue(parseDVS(filter, otherStation));
+        assertFalse(parseDVS(filter, dvs));
+        assertTrue(filter.parse(rit, 0, rit.length).isPresent());
+        assertTrue(filter.parse(rit, 0, rit.length).isEmpty());
+
+        // Verify the least recently used keys were evicted
+        assertEquals(2, filter.stats().size());
+        assertTrue(parseDVS(filter, otherStation));
+        assertTrue(filter.parseDAS(das, 0, das.length).isPresent());
+
+        // Verify clearing forgets all hashes
+        filter.clear();
+        assertEquals(0, filter.stats().messages());
+        assertTrue(parseDVS(filter, dvs));
+    }
+
+    private static boolean parseDVS(DuplicateFilter filter, byte[] bytes) throws InfoPlusMessage.InfoPlusParseException {
+        return filter.parseDVS(bytes, 0, bytes.length).isPresent();
+    }
+
+    private static byte[] bytes(String xml) {
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+}
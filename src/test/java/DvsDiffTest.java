@@ -0,0 +1,75 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import nl.bliksemlabs.infoplus.DvsChange;
+import nl.bliksemlabs.infoplus.DvsDeparture;
+import nl.bliksemlabs.infoplus.DvsDiff;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DvsDiffTest {
+
+    /**
+     * Test that a track change, a new delay, a cancellation and a shortened route are
+     * reported as typed changes.
+     */
+    @Test
+    public void testDiffChangedDeparture() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        String changedXml = xml
+            .replace("<ns2:ExacteVertrekVertraging>PT23S</ns2:ExacteVertrekVertraging>",
+                "<ns2:ExacteVertrekVertraging>PT5M</ns2:ExacteVertrekVertraging>")
+            .replaceFirst("(<ns2:TreinVertrekSpoor InfoStatus=\"Actueel\">\\s*)<ns2:SpoorNummer>2</ns2:SpoorNummer>",
+                "$1<ns2:SpoorNummer>5</ns2:SpoorNummer><ns2:SpoorFase>b</ns2:SpoorFase>")
+            .replaceFirst("(<ns2:TreinEindBestemming InfoStatus=\"Actueel\">\\s*)<ns2:StationCode>TL</ns2:StationCode>",
+                "$1<ns2:StationCode>GDM</ns2:StationCode>")
+            .replace("</ns2:Trein>",
+                "<ns2:Wijziging><ns2:WijzigingType>20</ns2:WijzigingType></ns2:Wijziging>"
+                    + "<ns2:Wijziging><ns2:WijzigingType>32</ns2:WijzigingType></ns2:Wijziging>"
+                    + "</ns2:Trein>");
+
+        ReisInformatieProductDVSType previous = InfoPlusMessage.parseDVS(xml);
+        ReisInformatieProductDVSType current = InfoPlusMessage.parseDVS(changedXml);
+        List<DvsChange> changes = DvsDiff.diff(previous, current);
+
+        // Verify one change of every kind, in a fixed order
+        assertEquals(5, changes.size());
+        assertEquals(new DvsChange.DelayChanged(DvsDeparture.from(current), 23, 300), changes.get(0));
+        assertEquals(new DvsChange.TrackChanged(DvsDeparture.from(current), "2", "5b"), changes.get(1));
+        assertEquals(new DvsChange.DestinationChanged(DvsDeparture.from(current), "TL", "GDM"), changes.get(2));
+        assertEquals(new DvsChange.CancellationChanged(DvsDeparture.from(current), true), changes.get(3));
+        DvsChange.WijzigingenChanged wijzigingen = assertInstanceOf(DvsChange.WijzigingenChanged.class, changes.get(4));
+        assertTrue(wijzigingen.added(20));
+        assertFalse(wijzigingen.added(DvsDeparture.VERTREK_VERVALLEN));
+        assertFalse(wijzigingen.removed(20));
+
+        // Verify the reverse direction withdraws the cancellation and removes the code
+        List<DvsChange> reverse = DvsDiff.diff(current, previous);
+        assertEquals(new DvsChange.CancellationChanged(DvsDeparture.from(previous), false), reverse.get(3));
+        assertTrue(((DvsChange.WijzigingenChanged) reverse.get(4)).removed(20));
+    }
+
+    /**
+     * Test that an unchanged departure, a first version and a different departure are
+     * handled.
+     */
+    @Test
+    public void testDiffWithoutChanges() throws Exception {
+        String xml = TestFixtures.string("/test-dvs-message.xml");
+        DvsDeparture departure = DvsDeparture.from(InfoPlusMessage.parseDVS(xml));
+        DvsDeparture resent = DvsDeparture.from(InfoPlusMessage.parseDVS(xml));
+
+        // Verify a resent message and a first version have no changes
+        assertEquals(List.of(), DvsDiff.diff(departure, resent));
+        assertEquals(List.of(), DvsDiff.diff((DvsDeparture) null, departure));
+
+        // Verify versions of different departures are rejected
+        DvsDeparture other = new DvsDeparture(departure.ritId(), departure.ritDatum(), "UT", departure.treinNummer(),
+            departure.plannedDeparture(), departure.actualDeparture(), departure.delaySeconds(),
+            departure.plannedTrack(), departure.actualTrack(), departure.plannedDestination(),
+            departure.actualDestination(), departure.cancelled(), departure.wijzigingenLow(), departure.wijzigingenHigh());
+        assertThrows(IllegalArgumentException.class, () -> DvsDiff.diff(departure, other));
+    }
+}
@@ -0,0 +1,160 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.WarmUpReport;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InfoPlusParserTest {
+
+    /**
+     * Test that a single parser instance can be shared by many threads, each getting
+     * its own pooled unmarshaller.
+     */
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        byte[] xml;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-dvs-message.xml")) {
+            assertNotNull(xmlStream, "Test XML file should be found in resources");
+            xml = xmlStream.readAllBytes();
+        }
+
+        InfoPlusParser parser = InfoPlusParser.builder().poolSize(2).build();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ReisInformatieProductDVSType>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> parser.parseDVS(new ByteArrayInputStream(xml))));
+            }
+            for (Future<ReisInformatieProductDVSType> result : results) {
+                ReisInformatieProductDVSType dvs = result.get();
+                assertEquals(6789, dvs.getDynamischeVertrekStaat().getRitId().intValue());
+                assertEquals("UTLN", dvs.getDynamischeVertrekStaat().getRitStation().getStationCode());
+            }
+        }
+    }
+
+    /**
+     * Test that a failed parse is reported and does not affect later messages.
+     */
+    @Test
+    public void testInvalidMessage() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().poolSize(1).build();
+        assertThrows(Exception.class, () -> parser.parseDVS("<not-closed>"));
+
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-dvs-message.xml")) {
+            assertNotNull(parser.parseDVS(xmlStream));
+        }
+    }
+
+    /**
+     * Test that a DVS message passed as DAS, or the reverse, fails with a parse exception
+     * although both share a context.
+     */
+    @Test
+    public void testWrongType() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-dvs-message.xml")) {
+            assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> parser.parseDAS(xmlStream));
+        }
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-das-message.xml")) {
+            assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> parser.parseDVS(xmlStream));
+        }
+    }
+
+    /**
+     * Test that warming up builds all contexts and reports its timing.
+     */
+    @Test
+    public void testWarmUp() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+        WarmUpReport report = parser.warmUp(2);
+
+        assertNotNull(report.ritContext());
+        assertNotNull(report.dvsContext());
+        assertNotNull(report.dasContext());
+        assertFalse(report.total().isNegative());
+        assertTrue(report.total().compareTo(report.priming()) >= 0);
+    }
+
+    /**
+     * Test parsing from a region of a byte array and from heap and direct ByteBuffers.
+     */
+    @Test
+    public void testParseBytes() throws Exception {
+        byte[] xml;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-das-message.xml")) {
+            assertNotNull(xmlStream, "Test XML file should be found in resources");
+            xml = xmlStream.readAllBytes();
+        }
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+
+        // Message embedded in a larger array
+        byte[] framed = new byte[xml.length + 8];
+        System.arraycopy(xml, 0, framed, 4, xml.length);
+        ReisInformatieProductDASType fromArray = parser.parseDAS(framed, 4, xml.length);
+        assertEquals(2889, fromArray.getDynamischeAankomstStaat().getRitId().intValue());
+
+        // Direct buffer positioned at the message
+        ByteBuffer direct = ByteBuffer.allocateDirect(framed.length);
+        direct.put(framed).position(4).limit(4 + xml.length);
+        ReisInformatieProductDASType fromDirect = parser.parseDAS(direct);
+        assertEquals("GD", fromDirect.getDynamischeAankomstStaat().getRitStation().getStationCode());
+        assertEquals(4, direct.position(), "Parsing should not move the buffer position");
+
+        ReisInformatieProductDASType fromHeap = parser.parseDAS(ByteBuffer.wrap(framed, 4, xml.length));
+        assertEquals("GD", fromHeap.getDynamischeAankomstStaat().getRitStation().getStationCode());
+    }
+
+    /**
+     * Test that gzip and zlib compressed messages are detected and inflated.
+     */
+    @Test
+    public void testParseCompressed() throws Exception {
+        byte[] xml;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-rit-message.xml")) {
+            assertNotNull(xmlStream, "Test XML file should be found in resources");
+            xml = xmlStream.readAllBytes();
+        }
+        InfoPlusParser parser = InfoPlusParser.builder().build();
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(xml);
+        }
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(zlib)) {
+            out.write(xml);
+        }
+
+        // Repeat to reuse pooled inflaters
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2992, parser.parseRIT(gzip.toByteArray(), 0, gzip.size()).getRitInfo().getTreinNummer());
+            assertEquals(2992, parser.parseRIT(ByteBuffer.wrap(zlib.toByteArray())).getRitInfo().getTreinNummer());
+
+            // A stream without mark support
+            InputStream stream = new SequenceInputStream(new ByteArrayInputStream(gzip.toByteArray()), InputStream.nullInputStream());
+            assertEquals(2992, parser.parseRIT(stream).getRitInfo().getTreinNummer());
+        }
+
+        // Corrupt the CRC in the gzip trailer
+        byte[] corrupt = gzip.toByteArray();
+        corrupt[corrupt.length - 8] ^= 0x01;
+        assertThrows(Exception.class, () -> parser.parseRIT(new ByteArrayInputStream(corrupt)));
+    }
+}
@@ -0,0 +1,136 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.JourneyIndex;
+import nl.bliksemlabs.infoplus.JourneyStop;
+import ns.cdm.reisinformatie.data.rit._5.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JourneyIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 12, 25);
+
+    /**
+     * Test that every station of the RIT message can be looked up with the same values as
+     * found by walking the parsed message.
+     */
+    @Test
+    public void testLookupMatchesMessage() throws Exception {
+        ReisInformatieProductRitInfoType ritInfo = InfoPlusMessage.parseRIT(TestFixtures.string("/test-rit-message.xml"));
+        JourneyIndex index = new JourneyIndex();
+        assertTrue(index.apply(ritInfo));
+
+        List<RitStationsType> stations = ritInfo.getRitInfo().getLogischeRit().getFirst()
+            .getLogischeRitDeel().getFirst().getLogischeRitDeelStation();
+        assertEquals(stations.size(), index.stops(2992, DATE).size());
+        for (RitStationsType station : stations) {
+            JourneyStop stop = index.stop(2992, DATE, station.getStation().getStationCode()).orElseThrow();
+            assertEquals(station.getStation().getStationCode(), stop.stationCode());
+            assertEquals(time(station.getVertrekTijd(), InfoStatus.GEPLAND), stop.plannedDeparture());
+            assertEquals(time(station.getVertrekTijd(), InfoStatus.ACTUEEL), stop.actualDeparture());
+            assertEquals(time(station.getAankomstTijd(), InfoStatus.GEPLAND), stop.plannedArrival());
+            assertEquals(time(station.getAankomstTijd(), InfoStatus.ACTUEEL), stop.actualArrival());
+            for (SpoorPlannedActueelType spoor : station.getTreinVertrekSpoor()) {
+                String track = spoor.getInfoStatus() == InfoStatus.GEPLAND ? stop.plannedDepartureTrack() : stop.actualDepartureTrack();
+                assertTrue(track.startsWith(Integer.toString(spoor.getSpoorNummer())));
+            }
+        }
+
+        // Verify known values of the first and a passed station
+        JourneyStop first = index.stop(2992, DATE, "MT").orElseThrow();
+        assertEquals(LocalDateTime.of(2025, 12, 25, 22, 59).toEpochSecond(ZoneOffset.UTC), first.plannedDeparture());
+        assertEquals(JourneyIndex.NO_TIME, first.plannedArrival());
+        assertEquals("3", first.plannedDepartureTrack());
+        assertTrue(first.plannedStop());
+        assertFalse(index.stop(2992, DATE, "BDE").orElseThrow().actualStop());
+
+        assertTrue(index.stop(2992, DATE, "UT").isEmpty());
+        assertTrue(index.stop(2993, DATE, "MT").isEmpty());
+    }
+
+    /**
+     * Test that only newer versions of a trip replace it, and that old trips expire.
+     */
+    @Test
+    public void testVersionsAndExpiry() throws Exception {
+        String xml = TestFixtures.string("/test-rit-message.xml");
+        ReisInformatieProductRitInfoType first = InfoPlusMessage.parseRIT(xml);
+        ReisInformatieProductRitInfoType renumbered = InfoPlusMessage.parseRIT(xml
+            .replace("<ReisInformatieProductID>53590029920001<", "<ReisInformatieProductID>53590029920002<")
+            .replace("<LogischeRitDeelNummer>2992<", "<LogischeRitDeelNummer>12992<"));
+
+        JourneyIndex index = new JourneyIndex();
+        assertTrue(index.apply(renumbered));
+        assertFalse(index.apply(first));
+        assertFalse(index.apply(renumbered));
+        assertTrue(index.stop(2992, DATE, "MT").isEmpty());
+        assertTrue(index.stop(12992, DATE, "MT").isPresent());
+
+        // Verify a part that is no longer in the trip is removed
+        index = new JourneyIndex();
+        index.apply(first);
+        index.apply(renumbered);
+        assertTrue(index.stop(2992, DATE, "MT").isEmpty());
+        assertEquals(1, index.size());
+
+        assertEquals(0, index.expire(DATE));
+        assertEquals(1, index.expire(DATE.plusDays(1)));
+        assertTrue(index.stop(12992, DATE, "MT").isEmpty());
+    }
+
+    /**
+     * Test that a train part shared by two trips keeps the values of the newest message,
+     * whichever trip it came from, and stays indexed while any of the trips contains it.
+     */
+    @Test
+    public void testSharedPart() throws Exception {
+        String xml = TestFixtures.string("/test-rit-message.xml");
+        ReisInformatieProductRitInfoType older = InfoPlusMessage.parseRIT(xml
+            .replace("<TreinNummer>2992<", "<TreinNummer>3992<"));
+        ReisInformatieProductRitInfoType newer = InfoPlusMessage.parseRIT(xml
+            .replace("<ReisInformatieProductID>53590029920001<", "<ReisInformatieProductID>53590029920002<")
+            .replaceFirst("<VertrekTijd InfoStatus=\"Actueel\">2025-12-25T22:59:00.000Z<",
+                "<VertrekTijd InfoStatus=\"Actueel\">2025-12-25T23:01:00.000Z<"));
+        long actual = LocalDateTime.of(2025, 12, 25, 23, 1).toEpochSecond(ZoneOffset.UTC);
+
+        // Verify the older trip does not overwrite the part of the newer one
+        JourneyIndex index = new JourneyIndex();
+        assertTrue(index.apply(newer));
+        assertTrue(index.apply(older));
+        assertEquals(2, index.size());
+        assertEquals(actual, index.stop(2992, DATE, "MT").orElseThrow().actualDeparture());
+
+        // Verify the newer trip replaces the part of the older one
+        index = new JourneyIndex();
+        assertTrue(index.apply(older));
+        assertTrue(index.apply(newer));
+        assertEquals(actual, index.stop(2992, DATE, "MT").orElseThrow().actualDeparture());
+
+        // Verify a part dropped by one trip is resolved from the other trip that still contains it
+        ReisInformatieProductRitInfoType dropped = InfoPlusMessage.parseRIT(xml
+            .replace("<ReisInformatieProductID>53590029920001<", "<ReisInformatieProductID>53590029920003<")
+            .replace("<LogischeRitDeelNummer>2992<", "<LogischeRitDeelNummer>12992<"));
+        assertTrue(index.apply(dropped));
+        long planned = LocalDateTime.of(2025, 12, 25, 22, 59).toEpochSecond(ZoneOffset.UTC);
+        assertEquals(planned, index.stop(2992, DATE, "MT").orElseThrow().actualDeparture());
+        assertEquals(index.stops(12992, DATE).size(), index.stops(2992, DATE).size());
+
+        // Verify a part is only removed once no trip contains it
+        assertEquals(2, index.expire(DATE.plusDays(1)));
+        assertTrue(index.stops(2992, DATE).isEmpty());
+        assertTrue(index.stops(12992, DATE).isEmpty());
+    }
+
+    private static long time(List<AankomstOfVertrekTijdType> times, InfoStatus status) {
+        return times.stream()
+            .filter(time -> time.getInfoStatus() == status)
+            .mapToLong(time -> time.getValue().toEpochSecond(ZoneOffset.UTC))
+            .findFirst()
+            .orElse(JourneyIndex.NO_TIME);
+    }
+}
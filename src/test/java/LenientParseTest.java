@@ -0,0 +1,101 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.InfoPlusProduct;
+import nl.bliksemlabs.infoplus.ParseProblem;
+import nl.bliksemlabs.infoplus.ParseResult;
+import nl.bliksemlabs.infoplus.Projection;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LenientParseTest {
+
+    /**
+     * Test that the fixtures are valid according to the bundled schemas.
+     */
+    @Test
+    public void testFixturesAreClean() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().validateSchema(true).build();
+        for (String name : new String[]{"/test-rit-message.xml", "/test-dvs-message.xml", "/test-das-message.xml"}) {
+            ParseResult<InfoPlusProduct> result = parser.parseLenient(stream(TestFixtures.bytes(name)));
+            assertNotNull(result.value());
+            assertTrue(result.isClean(), name + ": " + result.problems());
+        }
+
+        // Verify strict parsing validates as well
+        byte[] rit = TestFixtures.bytes("/test-rit-message.xml");
+        assertEquals(2992, parser.parseRIT(stream(rit)).getRitInfo().getTreinNummer());
+    }
+
+    /**
+     * Test that an element unknown to the schema is reported as a problem while the rest of
+     * the message is still parsed.
+     */
+    @Test
+    public void testUnknownElement() throws Exception {
+        String dvs = TestFixtures.string("/test-dvs-message.xml")
+            .replaceFirst("<ns2:RitStation>", "<ns2:RitStation><ns2:NieuwVeld>x</ns2:NieuwVeld>");
+        byte[] xml = dvs.getBytes(StandardCharsets.UTF_8);
+
+        InfoPlusParser validating = InfoPlusParser.builder().validateSchema(true).build();
+        ParseResult<ReisInformatieProductDVSType> result = validating.parseDVSLenient(stream(xml));
+        assertFalse(result.isClean());
+        assertEquals(6789, result.value().getDynamischeVertrekStaat().getRitId().intValue());
+        ParseProblem problem = result.problems().getFirst();
+        assertEquals(ParseProblem.Severity.ERROR, problem.severity());
+        assertTrue(problem.message().contains("NieuwVeld"), problem.message());
+        assertTrue(problem.line() > 0);
+
+        // Verify a strict validating parse fails on the same message
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> validating.parseDVS(stream(xml)));
+
+        // Verify the unknown element is reported without validation as well
+        ParseResult<ReisInformatieProductDVSType> unvalidated = InfoPlusParser.builder().build().parseDVSLenient(stream(xml));
+        assertEquals(1, unvalidated.problems().size());
+        assertEquals(6789, unvalidated.value().getDynamischeVertrekStaat().getRitId().intValue());
+    }
+
+    /**
+     * Test that a value that cannot be converted is reported with its location and left empty.
+     */
+    @Test
+    public void testUnconvertibleValue() throws Exception {
+        String dvs = TestFixtures.string("/test-dvs-message.xml")
+            .replace("PT23S", "23 seconden");
+        byte[] xml = dvs.getBytes(StandardCharsets.UTF_8);
+
+        ParseResult<InfoPlusProduct> result = InfoPlusParser.builder().build().parseLenient(stream(xml));
+        assertEquals(1, result.problems().size());
+        assertEquals(58, result.problems().getFirst().line());
+        ReisInformatieProductDVSType product = ((InfoPlusProduct.Dvs) result.value()).product();
+        assertEquals(6789, product.getDynamischeVertrekStaat().getRitId().intValue());
+
+        // Verify validation adds the schema violations of the same value
+        ParseResult<InfoPlusProduct> validated = InfoPlusParser.builder().validateSchema(true).build().parseLenient(stream(xml));
+        assertTrue(validated.problems().size() > 1);
+        assertTrue(validated.problems().stream().allMatch(problem -> problem.line() == 58));
+    }
+
+    /**
+     * Test that XML that is not well-formed still fails a lenient parse.
+     */
+    @Test
+    public void testMalformed() throws Exception {
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        InputStream truncated = new ByteArrayInputStream(dvs, 0, dvs.length / 2);
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> InfoPlusParser.builder().build().parseDVSLenient(truncated));
+
+        // Verify validation cannot be combined with a projection
+        assertThrows(IllegalStateException.class,
+            () -> InfoPlusParser.builder().projection(Projection.WITHOUT_PRESENTATIE).validateSchema(true).build());
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+}
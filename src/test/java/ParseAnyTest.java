@@ -0,0 +1,91 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.InfoPlusProduct;
+import nl.bliksemlabs.infoplus.MessageType;
+import nl.bliksemlabs.infoplus.Projection;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseAnyTest {
+
+    /**
+     * Test that each message type is detected and parsed to the same content as the typed
+     * parse methods.
+     */
+    @Test
+    public void testParseDetectsMessageType() throws Exception {
+        byte[] rit = TestFixtures.bytes("/test-rit-message.xml");
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        byte[] das = TestFixtures.bytes("/test-das-message.xml");
+
+        InfoPlusProduct product = InfoPlusMessage.parse(new ByteArrayInputStream(rit));
+        assertEquals(MessageType.RIT, product.type());
+        InfoPlusProduct.Rit ritProduct = assertInstanceOf(InfoPlusProduct.Rit.class, product);
+        assertEquals(InfoPlusMessage.parseRIT(new ByteArrayInputStream(rit)).getRitInfo().getTreinNummer(),
+            ritProduct.product().getRitInfo().getTreinNummer());
+
+        product = InfoPlusMessage.parse(ByteBuffer.wrap(dvs));
+        InfoPlusProduct.Dvs dvsProduct = assertInstanceOf(InfoPlusProduct.Dvs.class, product);
+        assertEquals("UTLN", dvsProduct.product().getDynamischeVertrekStaat().getRitStation().getStationCode());
+        assertEquals("6.2", dvsProduct.product().getVersie());
+        assertNotNull(dvsProduct.product().getTimeStamp());
+
+        product = InfoPlusMessage.parse(new ByteArrayInputStream(das));
+        InfoPlusProduct.Das dasProduct = assertInstanceOf(InfoPlusProduct.Das.class, product);
+        assertEquals(InfoPlusMessage.parseDAS(new ByteArrayInputStream(das)).getDynamischeAankomstStaat().getRitId(),
+            dasProduct.product().getDynamischeAankomstStaat().getRitId());
+
+        // Verify the type survives a switch over the sealed interface
+        String station = switch (product) {
+            case InfoPlusProduct.Rit r -> null;
+            case InfoPlusProduct.Dvs d -> d.product().getDynamischeVertrekStaat().getRitStation().getStationCode();
+            case InfoPlusProduct.Das d -> d.product().getDynamischeAankomstStaat().getRitStation().getStationCode();
+        };
+        assertNotNull(station);
+    }
+
+    /**
+     * Test that projections apply to detected messages, and unknown messages are rejected.
+     */
+    @Test
+    public void testParseWithProjectionAndUnknownMessage() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().projection(Projection.WITHOUT_PRESENTATIE).build();
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+
+        InfoPlusProduct.Dvs product = assertInstanceOf(InfoPlusProduct.Dvs.class, parser.parse(dvs, 0, dvs.length));
+        assertNull(product.product().getDynamischeVertrekStaat().getTrein().getPresentatieTreinEindBestemming());
+        assertEquals(2, product.product().getDynamischeVertrekStaat().getTrein().getTreinEindBestemming().size());
+
+        byte[] unknown = "<a xmlns=\"urn:example\"><b/></a>".getBytes(StandardCharsets.UTF_8);
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> parser.parse(unknown, 0, unknown.length));
+    }
+
+    /**
+     * Test detection with a comment before the root element, a default namespace and
+     * gzip compression.
+     */
+    @Test
+    public void testParseDetectsVariants() throws Exception {
+        String dvs = TestFixtures.string("/test-dvs-message.xml")
+            .replace("<ns1:PutReisInformatieBoodschapIn xmlns:ns1=", "<!-- feed > 1 --><PutReisInformatieBoodschapIn data-x='>' xmlns=")
+            .replace("</ns1:PutReisInformatieBoodschapIn>", "</PutReisInformatieBoodschapIn>")
+            .replace("<ns2:ReisInformatieProductDVS", "<ns2:ReisInformatieProductDVS xmlns:ns1=\"urn:ns:cdm:reisinformatie:message:ritinfo:5\"");
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(dvs.getBytes(StandardCharsets.UTF_8));
+        }
+
+        InfoPlusProduct product = InfoPlusMessage.parse(new ByteArrayInputStream(compressed.toByteArray()));
+        InfoPlusProduct.Dvs dvsProduct = assertInstanceOf(InfoPlusProduct.Dvs.class, product);
+        assertEquals("UTLN", dvsProduct.product().getDynamischeVertrekStaat().getRitStation().getStationCode());
+    }
+}
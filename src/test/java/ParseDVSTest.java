@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +35,8 @@ public class ParseDVSTest {
         // Verify RIP administration data
         assertEquals("5355006789623005", dvs.getRIPAdministratie().getReisInformatieProductID().toString());
         assertEquals(54, dvs.getRIPAdministratie().getAbonnementId().intValue());
+        assertEquals(LocalDateTime.of(2025, 12, 21, 23, 10), dvs.getRIPAdministratie().getReisInformatieTijdstip());
+        assertEquals(LocalDateTime.of(2025, 12, 21, 22, 59, 59, 922_000_000), dvs.getTimeStamp());
 
         // Verify DVS data
         DynamischeVertrekStaatType vertrekStaat = dvs.getDynamischeVertrekStaat();
@@ -72,6 +75,8 @@ public class ParseDVSTest {
         assertEquals(2, trein.getVertrekTijd().size());
         assertEquals(InfoStatus.GEPLAND, trein.getVertrekTijd().get(0).getInfoStatus());
         assertEquals(InfoStatus.ACTUEEL, trein.getVertrekTijd().get(1).getInfoStatus());
+        assertEquals(LocalDateTime.of(2025, 12, 21, 23, 10), trein.getVertrekTijd().get(0).getValue());
+        assertEquals(LocalDateTime.of(2025, 12, 21, 23, 10, 23), trein.getVertrekTijd().get(1).getValue());
 
         // Verify delays
         assertNotNull(trein.getExacteVertrekVertraging());
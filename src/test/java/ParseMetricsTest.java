@@ -0,0 +1,114 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.LogLinearHistogram;
+import nl.bliksemlabs.infoplus.MessageType;
+import nl.bliksemlabs.infoplus.ParseMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseMetricsTest {
+
+    /**
+     * Test that parses, failures and Unmarshaller acquisitions are counted per type.
+     */
+    @Test
+    public void testMetrics() throws Exception {
+        ParseMetrics metrics = ParseMetrics.builder().measureAllocation(true).build();
+        InfoPlusParser parser = InfoPlusParser.builder().listener(metrics).build();
+        byte[] dvs = TestFixtures.bytes("/test-dvs-message.xml");
+        byte[] das = TestFixtures.bytes("/test-das-message.xml");
+        byte[] compressedDas = TestFixtures.gzip(das);
+
+        parser.parseDVS(dvs, 0, dvs.length);
+        parser.parseDVS(new String(dvs, StandardCharsets.UTF_8));
+        parser.decodeDVS(dvs, 0, dvs.length);
+        parser.parse(compressedDas, 0, compressedDas.length);
+
+        // Verify sizes are those of the input, compressed or not
+        ParseMetrics.Stats dvsStats = metrics.stats(MessageType.DVS);
+        assertEquals(3, dvsStats.parsed());
+        assertEquals(0, dvsStats.failed());
+        assertEquals(3, dvsStats.latencyNanos().count());
+        assertTrue(dvsStats.latencyNanos().max() > 0);
+        assertEquals(dvs.length, dvsStats.bytes().max());
+        assertNotNull(dvsStats.contextCreation());
+        ParseMetrics.Stats dasStats = metrics.stats(MessageType.DAS);
+        assertEquals(1, dasStats.parsed());
+        assertEquals(compressedDas.length, dasStats.bytes().sum());
+
+        // Verify allocation is measured on platform threads
+        assertEquals(3, dvsStats.allocatedBytes().count());
+        assertTrue(dvsStats.allocatedBytes().mean() > dvs.length);
+
+        // Verify Unmarshallers are only created on the first parse of a type
+        assertEquals(2, dvsStats.acquireNanos().count());
+        assertEquals(1, dvsStats.unmarshallersCreated());
+
+        // Verify failures are counted by type and cause
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> parser.parseDVS(dvs, 0, dvs.length / 2));
+        byte[] unknown = "<foo/>".getBytes(StandardCharsets.UTF_8);
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () -> parser.parse(unknown, 0, unknown.length));
+        assertEquals(1, metrics.stats(MessageType.DVS).failed());
+        assertEquals(1, metrics.failedUnknownType());
+        assertEquals(1, metrics.failureCauses().get("SAXParseException"));
+        assertEquals(1, metrics.failureCauses().get("InfoPlusParseException"));
+
+        metrics.reset();
+        assertEquals(0, metrics.stats(MessageType.DVS).parsed());
+        assertEquals(0, metrics.stats(MessageType.DVS).latencyNanos().count());
+        assertTrue(metrics.failureCauses().isEmpty());
+    }
+
+    /**
+     * Test that runtime exceptions are counted as failures and thrown unchanged.
+     */
+    @Test
+    public void testRuntimeFailure() {
+        ParseMetrics metrics = ParseMetrics.builder().build();
+        InfoPlusParser parser = InfoPlusParser.builder().listener(metrics).build();
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("Stream closed by the feed");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> parser.parseDVS(broken));
+        assertEquals(1, metrics.stats(MessageType.DVS).failed());
+        assertEquals(1, metrics.failureCauses().get("IllegalStateException"));
+    }
+
+    /**
+     * Test that percentiles are reported within the error of the histogram buckets.
+     */
+    @Test
+    public void testHistogram() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000, snapshot.max());
+        assertEquals(5000.5, snapshot.mean(), 1e-9);
+        for (double quantile : new double[]{0.01, 0.5, 0.9, 0.99, 0.999}) {
+            double expected = quantile * 10_000;
+            long percentile = snapshot.percentile(quantile);
+            assertTrue(percentile >= expected && percentile <= expected * 1.125, quantile + ": " + percentile);
+        }
+        assertEquals(10_000, snapshot.percentile(1));
+
+        // Verify small values and the extremes of the range
+        histogram.reset();
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().percentile(0));
+        assertEquals(3, histogram.snapshot().percentile(0.5));
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().percentile(1));
+    }
+}
@@ -0,0 +1,208 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.InfoPlusPipeline;
+import nl.bliksemlabs.infoplus.MessageType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineTest {
+
+    /**
+     * Test that a feed of all types is parsed and published per type, and completes.
+     */
+    @Test
+    public void testFeed() throws Exception {
+        List<MessageType> failures = Collections.synchronizedList(new ArrayList<>());
+        InfoPlusPipeline pipeline = InfoPlusPipeline.builder(InfoPlusParser.builder().build())
+            .workers(MessageType.DVS, 2)
+            .queueCapacity(MessageType.DVS, 2)
+            .onFailure((type, exception) -> failures.add(type))
+            .build();
+        Collector<Object> rit = new Collector<>();
+        Collector<ReisInformatieProductDVSType> dvs = new Collector<>();
+        Collector<Object> das = new Collector<>();
+        pipeline.rit().subscribe(rit);
+        pipeline.dvs().subscribe(dvs);
+        pipeline.das().subscribe(das);
+
+        byte[] dvsMessage = TestFixtures.bytes("/test-dvs-message.xml");
+        try (SubmissionPublisher<byte[]> feed = new SubmissionPublisher<>()) {
+            feed.subscribe(pipeline);
+            feed.submit(TestFixtures.bytes("/test-rit-message.xml"));
+            for (int i = 0; i < 20; i++) {
+                feed.submit(dvsMessage);
+            }
+            feed.submit(TestFixtures.gzip(TestFixtures.bytes("/test-das-message.xml")));
+            feed.submit(Arrays.copyOf(dvsMessage, dvsMessage.length / 2));
+            feed.submit("<foo/>".getBytes(StandardCharsets.UTF_8));
+        }
+        rit.await();
+        dvs.await();
+        das.await();
+
+        // Verify nothing is dropped while blocking
+        assertEquals(1, rit.items.size());
+        assertEquals(20, dvs.items.size());
+        assertEquals(6789, dvs.items.peek().getDynamischeVertrekStaat().getRitId().intValue());
+        assertEquals(1, das.items.size());
+        InfoPlusPipeline.Stats stats = pipeline.stats(MessageType.DVS);
+        assertEquals(21, stats.received());
+        assertEquals(20, stats.parsed());
+        assertEquals(1, stats.failed());
+        assertEquals(0, stats.dropped());
+        assertEquals(0, stats.queued());
+
+        // Verify failures reach the handler, with null for an unknown type
+        assertEquals(1, pipeline.failedUnknownType());
+        assertEquals(2, failures.size());
+        assertTrue(failures.contains(MessageType.DVS));
+        assertTrue(failures.contains(null));
+    }
+
+    /**
+     * Test that the oldest payload of the same service is dropped first when the queue is full.
+     */
+    @Test
+    public void testDropOldest() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        InfoPlusPipeline pipeline = InfoPlusPipeline.builder(InfoPlusParser.builder().build())
+            .backpressure(InfoPlusPipeline.Backpressure.DROP_OLDEST)
+            .queueCapacity(MessageType.DVS, 2)
+            .threadFactory(gated(gate))
+            .build();
+        Collector<ReisInformatieProductDVSType> dvs = new Collector<>();
+        pipeline.dvs().subscribe(dvs);
+        pipeline.onSubscribe(new NoSubscription());
+
+        // Queue [1, 2], then [2, 1'], [1', 3] and [3, 4]
+        pipeline.onNext(dvs(1, 0));
+        pipeline.onNext(dvs(2, 0));
+        pipeline.onNext(dvs(1, 1));
+        pipeline.onNext(dvs(3, 0));
+        pipeline.onNext(dvs(4, 0));
+        InfoPlusPipeline.Stats stats = pipeline.stats(MessageType.DVS);
+        assertEquals(5, stats.received());
+        assertEquals(3, stats.dropped());
+        assertEquals(2, stats.queued());
+
+        pipeline.onComplete();
+        gate.countDown();
+        dvs.await();
+        assertEquals(List.of(3, 4), dvs.items.stream()
+            .map(product -> product.getDynamischeVertrekStaat().getRitId().intValue())
+            .toList());
+    }
+
+    /**
+     * Test that a pending payload is replaced by a newer one of the same service.
+     */
+    @Test
+    public void testCoalesceLatest() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        InfoPlusPipeline pipeline = InfoPlusPipeline.builder(InfoPlusParser.builder().build())
+            .backpressure(InfoPlusPipeline.Backpressure.COALESCE_LATEST)
+            .queueCapacity(MessageType.DVS, 2)
+            .threadFactory(gated(gate))
+            .build();
+        Collector<ReisInformatieProductDVSType> dvs = new Collector<>();
+        pipeline.dvs().subscribe(dvs);
+        pipeline.onSubscribe(new NoSubscription());
+
+        pipeline.onNext(dvs(1, 0));
+        pipeline.onNext(dvs(2, 0));
+        pipeline.onNext(dvs(1, 1));
+        pipeline.onNext(dvs(2, 1));
+        pipeline.onNext(dvs(1, 2));
+        InfoPlusPipeline.Stats stats = pipeline.stats(MessageType.DVS);
+        assertEquals(3, stats.coalesced());
+        assertEquals(0, stats.dropped());
+
+        // Verify the latest versions are parsed, in the order their services first arrived
+        pipeline.onComplete();
+        gate.countDown();
+        dvs.await();
+        assertEquals(List.of("1@12", "2@11"), dvs.items.stream()
+            .map(product -> product.getDynamischeVertrekStaat().getRitId() + "@"
+                + product.getRIPAdministratie().getReisInformatieTijdstip().getMinute())
+            .toList());
+    }
+
+    /**
+     * DVS message with the given RitId, sent the given number of minutes after the fixture.
+     */
+    private byte[] dvs(int ritId, int version) {
+        String xml = TestFixtures.string("/test-dvs-message.xml")
+            .replace("RitId>6789</", "RitId>" + ritId + "</")
+            .replace("T23:10:00.000Z</ns2:ReisInformatieTijdstip>", "T23:1" + version + ":00.000Z</ns2:ReisInformatieTijdstip>");
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Worker threads that wait for the gate to open before taking from their queue.
+     */
+    private static ThreadFactory gated(CountDownLatch gate) {
+        return runnable -> new Thread(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            runnable.run();
+        });
+    }
+
+    private static final class NoSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    private static final class Collector<T> implements Flow.Subscriber<T> {
+
+        private final ConcurrentLinkedQueue<T> items = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(completed.await(30, TimeUnit.SECONDS), "Pipeline should complete");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.Projection;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectionTest {
+
+    /**
+     * Test that presentation texts are skipped from a DVS message while the other data is kept.
+     */
+    @Test
+    public void testDVSWithoutPresentatie() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder().projection(Projection.WITHOUT_PRESENTATIE).build();
+
+        ndov.cdm.trein.reisinformatie.data._4.TreinType trein;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-dvs-message.xml")) {
+            assertNotNull(xmlStream, "Test XML file should be found in resources");
+            trein = parser.parseDVS(xmlStream).getDynamischeVertrekStaat().getTrein();
+        }
+
+        // Presentation texts are skipped
+        assertNull(trein.getPresentatieVerkorteRoute());
+        assertNull(trein.getPresentatieTreinEindBestemming());
+        assertNull(trein.getPresentatieTreinVertrekSpoor());
+        assertNull(trein.getTreinVleugel().getFirst().getPresentatieTreinVleugelEindBestemming());
+
+        // Everything else is still there
+        assertEquals(6789, trein.getTreinNummer());
+        assertEquals(2, trein.getVerkorteRoute().size());
+        assertEquals(4, trein.getVerkorteRoute().getFirst().getStation().size());
+        assertEquals(2, trein.getTreinVertrekSpoor().getFirst().getSpoorNummer());
+        assertEquals(6, trein.getTreinVleugel().getFirst().getStopStations().getFirst().getStation().size());
+        assertEquals("TL", trein.getTreinVleugel().getFirst().getMaterieelDeelDVS().getFirst()
+            .getMaterieelDeelEindBestemming().getFirst().getStationCode());
+    }
+
+    /**
+     * Test that a RIT message can be parsed and streamed with a combined projection.
+     */
+    @Test
+    public void testRITWithCombinedProjection() throws Exception {
+        InfoPlusParser parser = InfoPlusParser.builder()
+            .projection(Projection.WITHOUT_PRESENTATIE.and(Projection.WITHOUT_WIJZIGING).and(Projection.skipping("MaterieelDeel")))
+            .build();
+
+        ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType ritInfo;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-rit-message.xml")) {
+            ritInfo = parser.parseRIT(xmlStream);
+        }
+        var stations = ritInfo.getRitInfo().getLogischeRit().getFirst().getLogischeRitDeel().getFirst().getLogischeRitDeelStation();
+        assertEquals(13, stations.size());
+        for (var station : stations) {
+            assertNull(station.getPresentatieTreinEindBestemming());
+            assertTrue(station.getMaterieelDeel().isEmpty());
+            assertTrue(station.getWijziging().isEmpty());
+            assertNotNull(station.getStation().getStationCode());
+        }
+
+        List<String> streamed = new ArrayList<>();
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-rit-message.xml")) {
+            parser.streamRIT(xmlStream, (context, station) -> {
+                assertTrue(station.getMaterieelDeel().isEmpty());
+                streamed.add(station.getStation().getStationCode());
+            });
+        }
+        assertEquals(13, streamed.size());
+        assertEquals("MT", streamed.getFirst());
+    }
+}
@@ -0,0 +1,91 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ndov.cdm.trein.reisinformatie.data._4.TreinType;
+import nl.bliksemlabs.infoplus.BoundedStationDictionary;
+import nl.bliksemlabs.infoplus.InfoPlusParser;
+import nl.bliksemlabs.infoplus.StationDictionary;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import ns.cdm.reisinformatie.data.rit._5.RitStationsType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StationDictionaryTest {
+
+    /**
+     * Test that stations of separately parsed messages share their String instances.
+     */
+    @Test
+    public void testSharedStationsAcrossMessages() throws Exception {
+        BoundedStationDictionary dictionary = StationDictionary.bounded(BoundedStationDictionary.DEFAULT_MAX_STATIONS);
+        InfoPlusParser parser = InfoPlusParser.builder().stationDictionary(dictionary).build();
+
+        byte[] dvsBytes = TestFixtures.bytes("/test-dvs-message.xml");
+        ReisInformatieProductDVSType first = parser.parseDVS(dvsBytes, 0, dvsBytes.length);
+        ReisInformatieProductDVSType second = parser.parseDVS(dvsBytes, 0, dvsBytes.length);
+
+        // Verify values are unchanged and shared between messages
+        TreinType firstTrein = first.getDynamischeVertrekStaat().getTrein();
+        TreinType secondTrein = second.getDynamischeVertrekStaat().getTrein();
+        assertEquals("Utrecht Lunetten", first.getDynamischeVertrekStaat().getRitStation().getLangeNaam());
+        assertSame(first.getDynamischeVertrekStaat().getRitStation().getLangeNaam(),
+            second.getDynamischeVertrekStaat().getRitStation().getLangeNaam());
+        assertSame(firstTrein.getTreinEindBestemming().getFirst().getUICCode(),
+            secondTrein.getTreinEindBestemming().getFirst().getUICCode());
+
+        // Verify stations within a message are shared as well
+        assertSame(firstTrein.getTreinEindBestemming().getFirst().getLangeNaam(),
+            firstTrein.getTreinEindBestemming().getLast().getLangeNaam());
+
+        // Verify streamed RIT stations go through the dictionary
+        byte[] ritBytes = TestFixtures.bytes("/test-rit-message.xml");
+        ReisInformatieProductRitInfoType ritInfo = parser.parseRIT(ritBytes, 0, ritBytes.length);
+        List<RitStationsType> stations = ritInfo.getRitInfo().getLogischeRit().getFirst()
+            .getLogischeRitDeel().getFirst().getLogischeRitDeelStation();
+        String lastStation = stations.getLast().getStation().getLangeNaam();
+        parser.streamRIT(new ByteArrayInputStream(ritBytes), (context, station) -> {
+            if (context.stationIndex() == stations.size() - 1) {
+                assertSame(lastStation, station.getStation().getLangeNaam());
+            }
+        });
+
+        BoundedStationDictionary.Stats stats = dictionary.stats();
+        assertTrue(stats.hits() > 0);
+        assertTrue(stats.size() > 0);
+        assertTrue(stats.hitRate() > 0.5);
+    }
+
+    /**
+     * Test that the dictionary keeps no more than its maximum number of stations, and
+     * keeps every version of a renamed station.
+     */
+    @Test
+    public void testBoundedDictionary() {
+        BoundedStationDictionary dictionary = StationDictionary.bounded(2);
+
+        StationDictionary.Station utln = station("UTLN", "Utrecht Lunetten");
+        assertSame(utln, dictionary.canonical(utln));
+        assertSame(utln, dictionary.canonical(station("UTLN", "Utrecht Lunetten")));
+
+        // Verify both versions of a renamed station stay shared, instead of replacing each other
+        StationDictionary.Station renamed = station("UTLN", "Utrecht Lunetten-Oost");
+        assertSame(renamed, dictionary.canonical(renamed));
+        assertSame(utln, dictionary.canonical(station("UTLN", "Utrecht Lunetten")));
+        assertSame(renamed, dictionary.canonical(station("UTLN", "Utrecht Lunetten-Oost")));
+        assertSame(utln, dictionary.canonical(station("UTLN", "Utrecht Lunetten")));
+
+        // Verify unknown stations pass through once the dictionary is full
+        StationDictionary.Station tl = station("TL", "Tiel");
+        assertSame(tl, dictionary.canonical(tl));
+        assertNotSame(tl, dictionary.canonical(station("TL", "Tiel")));
+        assertEquals(2, dictionary.stats().size());
+
+        assertEquals(new BoundedStationDictionary.Stats(4, 4, 2), dictionary.stats());
+    }
+
+    private static StationDictionary.Station station(String code, String name) {
+        return new StationDictionary.Station(new String(code), "0", new String(name), null, new String(name), null);
+    }
+}
@@ -0,0 +1,81 @@
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.RitStationContext;
+import ns.cdm.reisinformatie.data.rit._5.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamRITTest {
+
+    /**
+     * Test that streaming a RIT message visits the same stations, in the same order, as
+     * parsing the whole message.
+     */
+    @Test
+    public void testStreamRITMessage() throws Exception {
+        ReisInformatieProductRitInfoType ritInfo;
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-rit-message.xml")) {
+            assertNotNull(xmlStream, "Test XML file should be found in resources");
+            ritInfo = InfoPlusMessage.parseRIT(xmlStream);
+        }
+        List<RitStationsType> expected = ritInfo.getRitInfo().getLogischeRit().getFirst()
+            .getLogischeRitDeel().getFirst().getLogischeRitDeelStation();
+
+        List<RitStationContext> contexts = new ArrayList<>();
+        List<RitStationsType> stations = new ArrayList<>();
+        try (InputStream xmlStream = getClass().getResourceAsStream("/test-rit-message.xml")) {
+            InfoPlusMessage.streamRIT(xmlStream, (context, station) -> {
+                contexts.add(context);
+                stations.add(station);
+            });
+        }
+
+        assertEquals(expected.size(), stations.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getStation().getStationCode(), stations.get(i).getStation().getStationCode());
+            assertEquals(expected.get(i).getVertrekTijd().size(), stations.get(i).getVertrekTijd().size());
+            assertEquals(expected.get(i).getTreinVertrekSpoor().size(), stations.get(i).getTreinVertrekSpoor().size());
+            assertEquals(i, contexts.get(i).stationIndex());
+        }
+
+        // Verify the position of the first station
+        RitStationContext first = contexts.getFirst();
+        assertEquals(2992, first.treinNummer());
+        assertEquals(LocalDate.of(2025, 12, 25), first.treinDatum());
+        assertEquals("2992", first.logischeRitNummer());
+        assertEquals(2992, first.logischeRitDeelNummer());
+
+        // Verify the stations are fully unmarshalled
+        RitStationsType last = stations.getLast();
+        assertEquals("EHV", last.getStation().getStationCode());
+        assertEquals(5, last.getTreinAankomstSpoor().getFirst().getSpoorNummer());
+        assertEquals("AD47", stations.getFirst().getMaterieelDeel().getFirst().getMaterieelDeelID());
+    }
+
+    /**
+     * Test that malformed trip values are reported as parse failures.
+     */
+    @Test
+    public void testStreamMalformedTreinNummer() {
+        String xml = TestFixtures.string("/test-rit-message.xml").replace("<TreinNummer>2992<", "<TreinNummer>abc<");
+        InfoPlusMessage.InfoPlusParseException e = assertThrows(InfoPlusMessage.InfoPlusParseException.class, () ->
+            InfoPlusMessage.streamRIT(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), (context, station) -> fail()));
+        assertInstanceOf(NumberFormatException.class, e.getCause());
+    }
+
+    /**
+     * Test that other message types are rejected.
+     */
+    @Test
+    public void testStreamWrongMessageType() {
+        assertThrows(InfoPlusMessage.InfoPlusParseException.class, () ->
+            InfoPlusMessage.streamRIT(getClass().getResourceAsStream("/test-dvs-message.xml"), (context, station) -> fail()));
+    }
+}
@@ -0,0 +1,107 @@
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDASType;
+import ndov.cdm.trein.reisinformatie.data._4.ReisInformatieProductDVSType;
+import ndov.cdm.trein.reisinformatie.data._4.UitingType;
+import nl.bliksemlabs.infoplus.InfoPlusMessage;
+import nl.bliksemlabs.infoplus.InfoPlusProduct;
+import nl.bliksemlabs.infoplus.InfoPlusSequenceWriter;
+import nl.bliksemlabs.infoplus.InfoPlusWriter;
+import ns.cdm.reisinformatie.data.rit._5.ReisInformatieProductRitInfoType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteMessagesTest {
+
+    /**
+     * Test that written messages parse back to messages that are written identically,
+     * to a stream and to a ByteBuffer.
+     */
+    @Test
+    public void testWriteRoundTrip() throws Exception {
+        ReisInformatieProductRitInfoType rit = InfoPlusMessage.parseRIT(TestFixtures.string("/test-rit-message.xml"));
+        byte[] ritXml = writeRIT(rit);
+        assertArrayEquals(ritXml, writeRIT(InfoPlusMessage.parseRIT(new ByteArrayInputStream(ritXml))));
+
+        ReisInformatieProductDVSType dvs = InfoPlusMessage.parseDVS(TestFixtures.string("/test-dvs-message.xml"));
+        byte[] dvsXml = writeDVS(dvs);
+        ReisInformatieProductDVSType parsedDvs = InfoPlusMessage.parseDVS(new ByteArrayInputStream(dvsXml));
+        assertArrayEquals(dvsXml, writeDVS(parsedDvs));
+        assertEquals(dvs.getRIPAdministratie().getReisInformatieTijdstip(), parsedDvs.getRIPAdministratie().getReisInformatieTijdstip());
+
+        ReisInformatieProductDASType das = InfoPlusMessage.parseDAS(TestFixtures.string("/test-das-message.xml"));
+        byte[] dasXml = writeDAS(das);
+        assertArrayEquals(dasXml, writeDAS(InfoPlusMessage.parseDAS(new ByteArrayInputStream(dasXml))));
+
+        // Verify writing into a ByteBuffer gives the same bytes, after the existing content
+        ByteBuffer buffer = ByteBuffer.allocate(dvsXml.length + 4);
+        buffer.putInt(42);
+        InfoPlusMessage.writeDVS(dvs, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        assertArrayEquals(dvsXml, Arrays.copyOfRange(buffer.array(), 4, buffer.position()));
+
+        // Verify a message that does not fit leaves the position unchanged
+        ByteBuffer small = ByteBuffer.allocateDirect(dvsXml.length - 1);
+        assertThrows(InfoPlusMessage.InfoPlusWriteException.class, () -> InfoPlusMessage.writeDVS(dvs, small));
+        assertEquals(0, small.position());
+    }
+
+    /**
+     * Test that a sequence of messages is written one per line without XML declarations,
+     * including a message with a line break in its text.
+     */
+    @Test
+    public void testWriteSequence() throws Exception {
+        ReisInformatieProductRitInfoType rit = InfoPlusMessage.parseRIT(TestFixtures.string("/test-rit-message.xml"));
+        ReisInformatieProductDVSType dvs = InfoPlusMessage.parseDVS(TestFixtures.string("/test-dvs-message.xml"));
+        ReisInformatieProductDASType das = InfoPlusMessage.parseDAS(TestFixtures.string("/test-das-message.xml"));
+        UitingType uiting = dvs.getDynamischeVertrekStaat().getTrein().getPresentatieTreinEindBestemming()
+            .getUitingen().getFirst().getUiting().getFirst();
+        uiting.setValue("Tiel\nvia Geldermalsen");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InfoPlusSequenceWriter sequence = InfoPlusWriter.builder().build().sequence(out)) {
+            sequence.writeRIT(rit);
+            sequence.writeDVS(dvs);
+            sequence.write(new InfoPlusProduct.Das(das));
+        }
+
+        // Verify there is one line per message, each parsed on its own
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertFalse(lines[0].startsWith("<?xml"));
+        assertArrayEquals(writeRIT(rit), writeRIT(assertInstanceOf(InfoPlusProduct.Rit.class, parse(lines[0])).product()));
+        ReisInformatieProductDVSType parsedDvs = assertInstanceOf(InfoPlusProduct.Dvs.class, parse(lines[1])).product();
+        assertArrayEquals(writeDVS(dvs), writeDVS(parsedDvs));
+        assertEquals("Tiel\nvia Geldermalsen", parsedDvs.getDynamischeVertrekStaat().getTrein()
+            .getPresentatieTreinEindBestemming().getUitingen().getFirst().getUiting().getFirst().getValue());
+        assertArrayEquals(writeDAS(das), writeDAS(assertInstanceOf(InfoPlusProduct.Das.class, parse(lines[2])).product()));
+    }
+
+    private static InfoPlusProduct parse(String line) throws InfoPlusMessage.InfoPlusParseException {
+        return InfoPlusMessage.parse(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] writeRIT(ReisInformatieProductRitInfoType product) throws InfoPlusMessage.InfoPlusWriteException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InfoPlusMessage.writeRIT(product, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] writeDVS(ReisInformatieProductDVSType product) throws InfoPlusMessage.InfoPlusWriteException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InfoPlusMessage.writeDVS(product, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] writeDAS(ReisInformatieProductDASType product) throws InfoPlusMessage.InfoPlusWriteException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InfoPlusMessage.writeDAS(product, out);
+        return out.toByteArray();
+    }
+}